@@ -3,6 +3,17 @@
 # Get the script's directory
 DIR="$(cd "$(dirname "$0")" && pwd)"
 
+# If a reservation server is running (./run.sh SERVE), send the command to it
+PORT="${FLIGHT_BOOKER_PORT:-7070}"
+if [[ "$1" != "SERVE" && "$1" != "BATCH" && "$1" != "CREATE" && "$1" != "IMPORT" && "$1" != "EXPORT" ]] \
+    && exec 3<>"/dev/tcp/127.0.0.1/$PORT" 2>/dev/null; then
+  echo "$*" >&3
+  IFS= read -r REPLY <&3
+  exec 3<&-
+  echo "$REPLY"
+  exit 0
+fi
+
 # Find the latest JAR matching the expected name pattern
 JAR_FILE=$(ls "$DIR"/target/flight-booker-*.jar 2>/dev/null | head -n 1)
 
@@ -12,5 +23,5 @@ if [[ ! -f "$JAR_FILE" ]]; then
   exit 1
 fi
 
-# Run the JAR with all passed arguments
-exec java -jar "$JAR_FILE" "$@"
+# Run the JAR with all passed arguments (JVM options such as -Dreservation.strategy go in JAVA_OPTS)
+exec java $JAVA_OPTS -jar "$JAR_FILE" "$@"
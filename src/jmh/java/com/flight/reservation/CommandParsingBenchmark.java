@@ -0,0 +1,70 @@
+package com.flight.reservation;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link CommandParser}, fed lines split the way {@link Main} and {@link ReservationServer}
+ * used to split them, with the allocation-free {@link CommandDecoder}. Run it with JMH's GC
+ * profiler to compare the allocation rates too, e.g.
+ * <pre>
+ * java -jar target/benchmarks.jar CommandParsingBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandParsingBenchmark {
+    private final static int LINES = 1 << 12; // Pre-generated lines, replayed in a loop
+    private final static String[] ACTIONS = {"BOOK", "CANCEL", "HOLD"};
+    private final static String[] FLIGHTS = {"", "UA100 ", "LH400 "};
+
+    private final String[] lines = new String[LINES];
+    private final CommandDecoder decoder = new CommandDecoder();
+    private ByteBuffer buffer;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        SplittableRandom random = new SplittableRandom(42);
+        StringBuilder all = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            int seats = 1 + random.nextInt(3);
+            String row = String.valueOf((char) ('A' + random.nextInt(20)));
+            lines[i] = ACTIONS[random.nextInt(ACTIONS.length)] + " " + FLIGHTS[random.nextInt(FLIGHTS.length)]
+                    + row + random.nextInt(8 - seats + 1) + " " + seats;
+            all.append(lines[i]).append('\n');
+        }
+        buffer = ByteBuffer.allocateDirect(all.length());
+        buffer.put(all.toString().getBytes(StandardCharsets.US_ASCII)).flip();
+    }
+
+    @Benchmark
+    public Command commandParser() {
+        String line = lines[next];
+        next = (next + 1) & (LINES - 1);
+        return CommandParser.parse(line.trim().split("\\s+"));
+    }
+
+    @Benchmark
+    public long decodeCharSequence() {
+        String line = lines[next];
+        next = (next + 1) & (LINES - 1);
+        return decoder.decode(line);
+    }
+
+    @Benchmark
+    public long decodeByteBuffer() {
+        if (!buffer.hasRemaining()) {
+            buffer.rewind();
+        }
+        return decoder.decode(buffer);
+    }
+}
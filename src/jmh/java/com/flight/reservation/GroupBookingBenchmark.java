@@ -0,0 +1,135 @@
+package com.flight.reservation;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the single-row BOOK/CANCEL throughput of every {@link ReservationStrategy} while other
+ * threads book two-row groups with {@link AbstractReservationManager#bookGroup}.
+ * <p>
+ * {@code singleRowOnly} is the baseline without groups. In the {@code mixed} group, three threads
+ * run the same single-row commands and one thread books a group across two adjacent rows, then
+ * cancels it, so the {@code mixed:singleRow} score shows what group bookings cost the rest of the
+ * traffic, e.g.
+ * <pre>
+ * java -jar target/benchmarks.jar GroupBookingBenchmark -p strategy=ROW_LOCK
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GroupBookingBenchmark {
+    private final static int COMMANDS_PER_THREAD = 1 << 12; // Pre-generated commands, replayed in a loop
+
+    @Param({"SYNCHRONIZED", "ROW_LOCK", "CAS", "RING_BUFFER", "STRIPED"})
+    public String strategy;
+
+    @Param({"20x8", "60x10"})
+    public String layout;
+
+    private AbstractReservationManager manager;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        manager = ReservationStrategy.fromName(strategy).create(new FlightSeats(CabinLayout.parse(layout)));
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws Exception {
+        if (manager instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    /**
+     * Per-thread stream of single-row commands, half BOOKs and half CANCELs.
+     */
+    @State(Scope.Thread)
+    public static class SingleRowWorkload {
+        private final Command[] commands = new Command[COMMANDS_PER_THREAD];
+        private int next;
+
+        @Setup(Level.Trial)
+        public void generate(GroupBookingBenchmark benchmark) {
+            SplittableRandom random = new SplittableRandom(Thread.currentThread().threadId());
+            CabinLayout layout = CabinLayout.parse(benchmark.layout);
+            for (int i = 0; i < commands.length; i++) {
+                int seats = 1 + random.nextInt(3);
+                commands[i] = new Command.Builder()
+                        .setAction(random.nextBoolean() ? Action.BOOK : Action.CANCEL)
+                        .setRowNumber(random.nextInt(layout.getRowLength()))
+                        .setColumnNumber(random.nextInt(layout.getColLength() - seats + 1))
+                        .setConsecutiveSeats(seats)
+                        .build();
+            }
+        }
+
+        Command next() {
+            Command command = commands[next];
+            next = (next + 1) & (COMMANDS_PER_THREAD - 1);
+            return command;
+        }
+    }
+
+    /**
+     * Per-thread stream of groups of three seats in each of two adjacent rows.
+     */
+    @State(Scope.Thread)
+    public static class GroupWorkload {
+        private final List<List<Command>> groups = new ArrayList<>(COMMANDS_PER_THREAD);
+        private final List<List<Command>> cancels = new ArrayList<>(COMMANDS_PER_THREAD);
+        private int next;
+
+        @Setup(Level.Trial)
+        public void generate(GroupBookingBenchmark benchmark) {
+            SplittableRandom random = new SplittableRandom(Thread.currentThread().threadId());
+            CabinLayout layout = CabinLayout.parse(benchmark.layout);
+            for (int i = 0; i < COMMANDS_PER_THREAD; i++) {
+                int row = random.nextInt(layout.getRowLength() - 1);
+                int col = random.nextInt(layout.getColLength() - 2);
+                groups.add(List.of(part(Action.BOOK, row, col), part(Action.BOOK, row + 1, col)));
+                cancels.add(List.of(part(Action.CANCEL, row, col), part(Action.CANCEL, row + 1, col)));
+            }
+        }
+
+        private static Command part(Action action, int row, int col) {
+            return new Command.Builder().setAction(action).setRowNumber(row).setColumnNumber(col)
+                    .setConsecutiveSeats(3).build();
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean singleRowOnly(SingleRowWorkload workload) {
+        return manager.execute(workload.next());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public boolean singleRow(SingleRowWorkload workload) {
+        return manager.execute(workload.next());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public boolean group(GroupWorkload workload) {
+        int i = workload.next;
+        workload.next = (i + 1) & (COMMANDS_PER_THREAD - 1);
+        if (!manager.bookGroup(workload.groups.get(i))) {
+            return false;
+        }
+        for (Command cancel : workload.cancels.get(i)) { // Frees the seats again, so the chart doesn't fill up
+            manager.execute(cancel);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,97 @@
+package com.flight.reservation;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link ReservationStrategy} implementations under concurrent BOOK/CANCEL load.
+ * <p>
+ * Reports throughput and the latency distribution (including p99) of a single
+ * {@link AbstractReservationManager#execute(Command)} call. The number of threads is set with
+ * JMH's {@code -t} option, e.g.
+ * <pre>
+ * java -jar target/benchmarks.jar ReservationManagerBenchmark -t 32 -p hotRowRatio=0.9
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ReservationManagerBenchmark {
+    private final static int COMMANDS_PER_THREAD = 1 << 12; // Pre-generated commands, replayed in a loop
+
+    @Param({"SYNCHRONIZED", "ROW_LOCK", "CAS", "RING_BUFFER", "STRIPED"})
+    public String strategy;
+
+    // Cabin dimensions: the default narrowbody and a widebody
+    @Param({"20x8", "60x10"})
+    public String layout;
+
+    // Share of commands that target the hot row (row 0); the rest are spread uniformly
+    @Param({"0.0", "0.5", "0.9"})
+    public double hotRowRatio;
+
+    // Share of commands that are BOOKs; the rest are CANCELs
+    @Param({"0.5", "0.9"})
+    public double bookRatio;
+
+    private FlightSeats flightSeats;
+    private AbstractReservationManager manager;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        flightSeats = new FlightSeats(CabinLayout.parse(layout));
+        manager = ReservationStrategy.fromName(strategy).create(flightSeats);
+    }
+
+    // Set up per iteration, so closed per iteration: the ring buffer runs a consumer thread
+    @TearDown(Level.Iteration)
+    public void tearDown() throws Exception {
+        if (manager instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    /**
+     * Per-thread stream of commands, generated up front so that the measurement only covers
+     * the reservation manager.
+     */
+    @State(Scope.Thread)
+    public static class Workload {
+        private final Command[] commands = new Command[COMMANDS_PER_THREAD];
+        private int next;
+
+        @Setup(Level.Trial)
+        public void generate(ReservationManagerBenchmark benchmark) {
+            SplittableRandom random = new SplittableRandom(Thread.currentThread().threadId());
+            CabinLayout layout = CabinLayout.parse(benchmark.layout);
+            for (int i = 0; i < commands.length; i++) {
+                int row = random.nextDouble() < benchmark.hotRowRatio ? 0 : random.nextInt(layout.getRowLength());
+                int seats = 1 + random.nextInt(3);
+                int col = random.nextInt(layout.getColLength() - seats + 1);
+                commands[i] = new Command.Builder()
+                        .setAction(random.nextDouble() < benchmark.bookRatio ? Action.BOOK : Action.CANCEL)
+                        .setRowNumber(row)
+                        .setColumnNumber(col)
+                        .setConsecutiveSeats(seats)
+                        .build();
+            }
+        }
+
+        Command next() {
+            Command command = commands[next];
+            next = (next + 1) & (COMMANDS_PER_THREAD - 1);
+            return command;
+        }
+    }
+
+    @Benchmark
+    public boolean execute(Workload workload) {
+        return manager.execute(workload.next());
+    }
+}
@@ -0,0 +1,98 @@
+package com.flight.reservation;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the seat picking of a BOOK before {@link SeatPlacement}, which counted the free seats
+ * and then took them one by one leftward from the requested column and then rightward, with the
+ * nearest-block placement, on rows with few reserved seats, fragmented rows and nearly full ones.
+ * Only the picking is measured, not the commit, e.g.
+ * <pre>
+ * java -jar target/benchmarks.jar SeatPlacementBenchmark -p cols=64
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeatPlacementBenchmark {
+    private final static int ROWS = 1 << 12; // Pre-generated row masks, replayed in a loop
+
+    @Param({"8", "64"})
+    public int cols;
+
+    /**
+     * The share of reserved seats: "sparse" 1/8, "fragmented" 1/2 in short runs, "full" 7/8.
+     */
+    @Param({"sparse", "fragmented", "full"})
+    public String occupancy;
+
+    private final long[] rowMasks = new long[ROWS];
+    private final int[] targets = new int[ROWS];
+    private final int[] parties = new int[ROWS];
+    private long fullRowMask;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        SplittableRandom random = new SplittableRandom(42);
+        fullRowMask = cols == Long.SIZE ? -1L : (1L << cols) - 1;
+        for (int i = 0; i < ROWS; i++) {
+            long mask = switch (occupancy) {
+                case "sparse" -> random.nextLong() & random.nextLong() & random.nextLong();
+                case "fragmented" -> random.nextLong();
+                case "full" -> random.nextLong() | random.nextLong() | random.nextLong();
+                default -> throw new IllegalArgumentException("Invalid occupancy: " + occupancy);
+            };
+            rowMasks[i] = mask & fullRowMask;
+            targets[i] = random.nextInt(cols);
+            parties[i] = 1 + random.nextInt(Math.min(cols, 4));
+        }
+    }
+
+    @Benchmark
+    public long leftThenRight() {
+        int i = next;
+        next = (i + 1) & (ROWS - 1);
+        long rowMask = rowMasks[i];
+        int totalSeats = parties[i];
+        if (cols - Long.bitCount(rowMask) < totalSeats) {
+            return 0;
+        }
+        long free = ~rowMask & fullRowMask;
+        long leftRange = FlightSeats.rangeMask(0, targets[i]);
+        long left = free & leftRange;
+        long right = free & ~leftRange;
+        long taken = 0;
+        for (; totalSeats > 0 && left != 0; totalSeats--) {
+            long seat = Long.highestOneBit(left);
+            taken |= seat;
+            left ^= seat;
+        }
+        for (; totalSeats > 0; totalSeats--) {
+            long seat = Long.lowestOneBit(right);
+            taken |= seat;
+            right ^= seat;
+        }
+        return taken;
+    }
+
+    @Benchmark
+    public long nearestBlock() {
+        int i = next;
+        next = (i + 1) & (ROWS - 1);
+        return SeatPlacement.place(~rowMasks[i] & fullRowMask, targets[i], parties[i], true);
+    }
+
+    @Benchmark
+    public long nearestBlockNoSplit() {
+        int i = next;
+        next = (i + 1) & (ROWS - 1);
+        return SeatPlacement.place(~rowMasks[i] & fullRowMask, targets[i], parties[i], false);
+    }
+}
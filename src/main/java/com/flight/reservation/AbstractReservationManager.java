@@ -1,14 +1,53 @@
 package com.flight.reservation;
 
-import java.util.stream.IntStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.IntPredicate;
+
+import static java.lang.System.Logger.Level;
 
 /**
  * Abstract base class for managing seat reservations on a flight.
  * Provides common functionalities for reserving and canceling seats,
  * while allowing subclasses to define the execution logic.
+ * <p>
+ * Seat states are read and updated through the row bitmasks of {@link FlightSeats},
+ * so none of the reservation paths allocate.
+ * <p>
+ * Every command is recorded in the {@link ReservationMetrics} of the subclass. Tracing each
+ * command is opt-in with {@code -Dreservation.trace=true}; when disabled it costs one constant
+ * check and allocates nothing.
+ * <p>
+ * Besides the blocking {@link #execute}, commands can run with a bound on the time spent waiting
+ * for locks ({@link #tryExecute}) or asynchronously ({@link #executeAsync}), both reporting a
+ * {@link ReservationResult} rather than throwing for seats that don't exist.
+ * <p>
+ * A command with a {@link Command#getRequestId() request ID} is executed at most once: the manager
+ * remembers the outcomes of recent request IDs in a {@link RequestDeduplicator}, and a replay of
+ * the same ID, e.g. a client retrying after a timeout, gets the original outcome without executing
+ * again. A replay that arrives while the original executes waits for its outcome.
  */
 public abstract class AbstractReservationManager {
+    private final static boolean TRACE = Boolean.getBoolean("reservation.trace");
+    private final static System.Logger LOGGER = System.getLogger(AbstractReservationManager.class.getName());
+    private final static ExecutorService ASYNC_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
     private final FlightSeats flightSeats;
+    private final ReservationMetrics metrics = ReservationMetrics.forManager(getClass());
+    private volatile Executor asyncExecutor = ASYNC_EXECUTOR;
+    private volatile long asyncLockTimeoutNanos = Long.MAX_VALUE;
+    private volatile long holdTimeoutNanos = SeatHolds.DEFAULT_TIMEOUT_NANOS;
+    private volatile SeatHolds holds; // Created by the first hold
+    private volatile int dedupCapacity = RequestDeduplicator.DEFAULT_CAPACITY;
+    private volatile long dedupRetentionNanos = RequestDeduplicator.DEFAULT_RETENTION_NANOS;
+    private volatile RequestDeduplicator requests; // Created by the first command with a request ID
+    private volatile boolean splitBookings = true;
 
     /**
      * Constructor to initialize the reservation manager with a flight seat layout.
@@ -28,84 +67,747 @@ public abstract class AbstractReservationManager {
      */
     public abstract boolean execute(Command command);
 
-    boolean reserveSeats(int row, int startCol, int endCol) {
-        if (!areSeatsAvailable(row, startCol, endCol)) return false;
+    /**
+     * Executes a command, giving up if the locks it needs can't be acquired in time.
+     * <p>
+     * The default executes the command through {@link #execute}, which suits managers that never
+     * wait for a lock; managers with locks override it to acquire them with a timeout.
+     *
+     * @param command The command to execute.
+     * @param timeout The longest time to wait for the locks.
+     * @param unit    The unit of {@code timeout}.
+     * @return The result of the command, {@link FailureReason#TIMEOUT} if the locks weren't acquired
+     * in time, or {@link FailureReason#INVALID_SEATS} if its seats don't exist in this cabin.
+     */
+    public ReservationResult tryExecute(Command command, long timeout, TimeUnit unit) {
+        try {
+            return ReservationResult.of(command, execute(command));
+        } catch (IllegalArgumentException e) {
+            return ReservationResult.failure(FailureReason.INVALID_SEATS);
+        }
+    }
+
+    /**
+     * Executes a command without blocking the caller.
+     * <p>
+     * The command runs through {@link #tryExecute} on the executor and with the lock timeout set by
+     * {@link #configureAsync}; by default a new virtual thread per command and no timeout.
+     *
+     * @param command The command to execute.
+     * @return A future completed with the result of the command.
+     */
+    public CompletableFuture<ReservationResult> executeAsync(Command command) {
+        long timeoutNanos = getAsyncLockTimeoutNanos();
+        return CompletableFuture.supplyAsync(() -> tryExecute(command, timeoutNanos, TimeUnit.NANOSECONDS), asyncExecutor);
+    }
+
+    /**
+     * Configures how {@link #executeAsync} runs commands.
+     *
+     * @param executor The executor running the commands, e.g. a virtual-thread-per-task executor.
+     * @param timeout  The longest time a command waits for its locks.
+     * @param unit     The unit of {@code timeout}.
+     */
+    public void configureAsync(Executor executor, long timeout, TimeUnit unit) {
+        this.asyncExecutor = executor;
+        this.asyncLockTimeoutNanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * Executes a batch of commands.
+     * <p>
+     * Commands are grouped by row, keeping their relative order within a row, and every group is
+     * handed to {@link #executeGroup} in one call, so a manager can acquire each row's lock once
+     * per batch. Commands on different rows are independent, so the result is the same as executing
+     * the commands one by one in input order. Commands whose action picks its own row (see
+     * {@link ActionInterface#targetsRow()}) run one by one through {@link #execute} after the groups.
+     *
+     * @param commands The commands to execute.
+     * @return The result of every command, in input order: true if it succeeded, false if it failed
+     * or was invalid for this seating arrangement.
+     */
+    public boolean[] executeAll(List<Command> commands) {
+        boolean[] results = new boolean[commands.size()];
+        int rowLength = flightSeats.getRowLength();
 
-        for (int i = startCol; i <= endCol; i++) {
-            flightSeats.getSeat(row, i).reserve();
+        // Counting sort of the command indices by row (stable); invalid rows just fail
+        int[] rowStart = new int[rowLength + 1];
+        for (Command command : commands) {
+            int row = command.getRowNumber();
+            if (row < rowLength && command.getAction().targetsRow()) rowStart[row + 1]++;
         }
-        return true;
+        for (int row = 0; row < rowLength; row++) {
+            rowStart[row + 1] += rowStart[row];
+        }
+        int[] order = new int[rowStart[rowLength]];
+        int[] next = rowStart.clone();
+        for (int i = 0; i < results.length; i++) {
+            Command command = commands.get(i);
+            int row = command.getRowNumber();
+            if (row < rowLength && command.getAction().targetsRow()) order[next[row]++] = i;
+        }
+
+        for (int row = 0; row < rowLength; row++) {
+            if (rowStart[row] < rowStart[row + 1]) {
+                executeGroup(row, commands, order, rowStart[row], rowStart[row + 1], results);
+            }
+        }
+        for (int i = 0; i < results.length; i++) {
+            if (!commands.get(i).getAction().targetsRow()) {
+                try {
+                    results[i] = execute(commands.get(i));
+                } catch (RuntimeException e) {
+                    results[i] = false;
+                }
+            }
+        }
+        return results;
     }
 
-    boolean newReserveSeats(int row, int targetIndex, int totalSeats) {
-        System.out.println("newReserveSeats...");
+    /**
+     * Executes the commands of a batch that target the same row.
+     * <p>
+     * The default executes every command through {@link #execute}; managers with row or
+     * manager-wide locks override it to take the lock once for the whole group.
+     *
+     * @param row      The row all commands of the group target.
+     * @param commands The commands of the batch.
+     * @param order    Indices into {@code commands}, grouped by row.
+     * @param from     The first position of the group in {@code order} (inclusive).
+     * @param to       The last position of the group in {@code order} (exclusive).
+     * @param results  The results of the batch, indexed like {@code commands}.
+     */
+    protected void executeGroup(int row, List<Command> commands, int[] order, int from, int to, boolean[] results) {
+        for (int i = from; i < to; i++) {
+            Command command = commands.get(order[i]);
+            try {
+                results[order[i]] = execute(command);
+            } catch (RuntimeException e) {
+                results[order[i]] = false;
+            }
+        }
+    }
+
+    /**
+     * Applies the commands of a group without any synchronization. Callers must hold whatever
+     * lock protects the row.
+     *
+     * @see #executeGroup
+     */
+    void applyGroup(List<Command> commands, int[] order, int from, int to, boolean[] results) {
+        for (int i = from; i < to; i++) {
+            Command command = commands.get(order[i]);
+            try {
+                results[order[i]] = apply(command);
+            } catch (RuntimeException e) {
+                results[order[i]] = false;
+            }
+        }
+    }
+
+    /**
+     * Applies a command without any synchronization and records it in the metrics. Callers must
+     * hold whatever lock protects the row, and time their lock wait with {@link #recordLockWait}.
+     *
+     * @param command The command to apply.
+     * @return true if the operation succeeds, false otherwise.
+     * @throws IllegalArgumentException If the seats of the command don't exist in this cabin.
+     */
+    final boolean apply(Command command) {
+        return applyInRow(command) >= 0;
+    }
 
-        if (getAvailableSeats(row, targetIndex) < totalSeats) {
-            System.out.println("Not enough available seats");
+    /**
+     * Applies a command like {@link #apply} and tells which row it changed. A replayed request ID
+     * gets the row of the original command.
+     *
+     * @param command The command to apply.
+     * @return The row the command changed, or -1 if it failed.
+     * @throws IllegalArgumentException If the seats of the command don't exist in this cabin.
+     */
+    final int applyInRow(Command command) {
+        long requestId = command.getRequestId();
+        if (requestId == Command.NO_REQUEST_ID) {
+            return applyAction(command);
+        }
+        RequestDeduplicator deduplicator = getRequests();
+        int outcome = deduplicator.claim(requestId, System.nanoTime());
+        if (outcome != RequestDeduplicator.CLAIMED) {
+            metrics.recordReplay();
+            return outcome == RequestDeduplicator.FAILED ? -1 : outcome;
+        }
+        int row;
+        try {
+            row = applyAction(command);
+        } catch (RuntimeException e) {
+            deduplicator.abandon(requestId);
+            throw e;
+        }
+        deduplicator.complete(requestId, row);
+        return row;
+    }
+
+    private int applyAction(Command command) {
+        long start = System.nanoTime();
+        int row = -1;
+        try {
+            row = command.getAction().executeInRow(this, command);
+            return row;
+        } catch (IllegalArgumentException e) {
+            metrics.recordFailure(FailureReason.INVALID_SEATS);
+            throw e;
+        } finally {
+            metrics.recordExecution(command.getAction(), row >= 0, System.nanoTime() - start);
+            if (TRACE) {
+                trace(command, row >= 0);
+            }
+        }
+    }
+
+    /**
+     * Executes a command and tells which row it changed, e.g. to journal it. A command that picks
+     * its own row, such as a {@link Action#PLACE}, changes the row it found room in; it locks that
+     * row itself, so it's applied without the lock of {@link #execute}.
+     *
+     * @param command The command to execute.
+     * @return The row the command changed, or -1 if it failed.
+     * @throws IllegalArgumentException If the seats of the command don't exist in this cabin.
+     */
+    public int executeInRow(Command command) {
+        if (command.getAction().targetsRow()) {
+            return execute(command) ? command.getRowNumber() : -1;
+        }
+        return applyInRow(command);
+    }
+
+    /**
+     * @return The lock timeout of {@link #executeAsync}, in nanoseconds.
+     */
+    protected final long getAsyncLockTimeoutNanos() {
+        return asyncLockTimeoutNanos;
+    }
+
+    /**
+     * Records a command that gave up waiting for its locks.
+     *
+     * @return The {@link FailureReason#TIMEOUT} result.
+     */
+    protected final ReservationResult recordTimeout() {
+        metrics.recordFailure(FailureReason.TIMEOUT);
+        return ReservationResult.failure(FailureReason.TIMEOUT);
+    }
+
+    /**
+     * Acquires a lock, waiting at most the given time. An interrupted caller gives up like one that
+     * timed out, with its interrupt status restored.
+     *
+     * @param lock    The lock to acquire.
+     * @param timeout The longest time to wait.
+     * @param unit    The unit of {@code timeout}.
+     * @return true if the lock was acquired, false otherwise.
+     */
+    protected static boolean tryLock(Lock lock, long timeout, TimeUnit unit) {
+        try {
+            return lock.tryLock(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             return false;
         }
+    }
 
+    /**
+     * Applies a command like {@link #apply} and reports its outcome as a result.
+     *
+     * @param command The command to apply.
+     * @return The result of the command.
+     */
+    final ReservationResult applyForResult(Command command) {
+        try {
+            return ReservationResult.of(command, apply(command));
+        } catch (IllegalArgumentException e) {
+            return ReservationResult.failure(FailureReason.INVALID_SEATS);
+        }
+    }
+
+    /**
+     * Records the time a caller waited for a lock.
+     *
+     * @param waitStart The {@link System#nanoTime()} before the caller started waiting.
+     */
+    protected final void recordLockWait(long waitStart) {
+        metrics.recordLockWait(System.nanoTime() - waitStart);
+    }
 
-        for (int i = targetIndex; i >= 0 && totalSeats > 0; i--) {
-            Seat seat = flightSeats.getSeat(row, i);
-            System.out.println("totalSeats is " + totalSeats + " at index " + i);
+    /**
+     * @return The seating arrangement managed by this instance.
+     */
+    protected FlightSeats getFlightSeats() {
+        return flightSeats;
+    }
 
-            if (!seat.isReserved()) {
-                seat.reserve();
-                totalSeats--;
+    /**
+     * @return The metrics shared by every manager of this class.
+     */
+    public ReservationMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Publishes a new reservation mask for a row.
+     * <p>
+     * Every reservation path computes the new mask from the one it read and hands it here. Managers
+     * that serialize access to the row (e.g. with a lock) can simply store it, which is the default.
+     * Lock-free managers override this with a compare-and-set and the caller retries from a fresh
+     * read when it returns false.
+     *
+     * @param row      The row number.
+     * @param expected The mask the new one was computed from.
+     * @param updated  The new reservation mask.
+     * @return true if the mask was published, false if the row changed since {@code expected} was read.
+     */
+    protected boolean commitRow(int row, long expected, long updated) {
+        flightSeats.setRowMask(row, updated);
+        return true;
+    }
+
+    /**
+     * Runs an update of a single row under whatever synchronization this manager uses for that row.
+     * <p>
+     * Used by actions that pick their row while executing, so the managers don't lock a row up
+     * front. The default runs the update directly, which suits managers that commit through
+     * {@link #commitRow} with a compare-and-set.
+     *
+     * @param row    The row number.
+     * @param update The update, given the row number.
+     * @return The result of the update.
+     */
+    protected boolean withRowLock(int row, IntPredicate update) {
+        return update.test(row);
+    }
+
+    /**
+     * Books seats in several rows at once, all or nothing, e.g. a family split across two
+     * adjacent rows.
+     * <p>
+     * Every command must be a BOOK and reserves exactly its seats, from its column on; unlike a
+     * single BOOK, no other free seat of the row is picked instead. Commands may target the same
+     * row as long as their seats don't overlap.
+     *
+     * @param commands The BOOK commands of the group.
+     * @return true if every seat was booked, false if any was taken, in which case none is booked.
+     * @throws IllegalArgumentException If a command isn't a BOOK, or its seats don't exist in this
+     *                                  cabin or overlap those of another command of the group.
+     */
+    public boolean bookGroup(List<Command> commands) {
+        // The rows in ascending order, each with the union of its seats
+        long[] keys = new long[commands.size()];
+        for (int i = 0; i < keys.length; i++) {
+            Command command = commands.get(i);
+            if (command.getAction() != Action.BOOK) {
+                throw new IllegalArgumentException("A group booking only takes BOOK commands");
             }
+            keys[i] = (long) command.getRowNumber() << 32 | i;
+        }
+        Arrays.sort(keys);
+        int[] rows = new int[keys.length];
+        long[] ranges = new long[keys.length];
+        int rowCount = 0;
+        for (long key : keys) {
+            Command command = commands.get((int) key);
+            int row = command.getRowNumber();
+            long range = flightSeats.getSeatRangeMask(row, command.getColumnNumber(),
+                    command.getColumnNumber() + command.getConsecutiveSeats() - 1);
+            if (rowCount > 0 && rows[rowCount - 1] == row) {
+                if ((ranges[rowCount - 1] & range) != 0) {
+                    throw new IllegalArgumentException("The seats of a group booking overlap");
+                }
+                ranges[rowCount - 1] |= range;
+            } else {
+                rows[rowCount] = row;
+                ranges[rowCount++] = range;
+            }
+        }
+
+        long start = System.nanoTime();
+        boolean result = reserveRows(Arrays.copyOf(rows, rowCount), Arrays.copyOf(ranges, rowCount));
+        if (!result) {
+            metrics.recordFailure(FailureReason.SEATS_TAKEN);
         }
+        metrics.recordExecution(Action.BOOK, result, System.nanoTime() - start);
+        return result;
+    }
 
-        if (totalSeats > 0) {
-            for (int i = targetIndex + 1; i < flightSeats.getColLength() && totalSeats > 0; i++) {
-                Seat seat = flightSeats.getSeat(row, i);
-                if (!seat.isReserved()) {
-                    seat.reserve();
-                    totalSeats--;
+    /**
+     * Reserves the given seats of several rows, all or nothing.
+     * <p>
+     * The default suits managers that commit through {@link #commitRow} with a compare-and-set: the
+     * seats of each row are marked as held, the same way as for a HOLD, and reserved, row by row in
+     * ascending order. If a row has no room, the rows done so far are rolled back; the held mark
+     * keeps other commands from canceling tentatively reserved seats meanwhile. Other commands may
+     * find the seats of a group that is rolled back briefly taken, but never see half a group booked
+     * for good. Managers that lock rows override this to lock every row of the group, in ascending
+     * order so that groups never deadlock, and call {@link #reserveRowsLocked}.
+     *
+     * @param rows   The rows, in strictly ascending order.
+     * @param ranges The seats to reserve in each row.
+     * @return true if every seat was reserved, false if none was.
+     */
+    protected boolean reserveRows(int[] rows, long[] ranges) {
+        SeatHolds seatHolds = getHolds();
+        int locked = 0;
+        int reserved = 0;
+        try {
+            for (; locked < rows.length; locked++) {
+                seatHolds.lock(rows[locked]);
+            }
+            for (; reserved < rows.length; reserved++) {
+                if (!reserveHeld(seatHolds, rows[reserved], ranges[reserved])) break;
+            }
+            for (int i = 0; i < reserved; i++) {
+                if (reserved == rows.length) {
+                    seatHolds.clearHeld(rows[i], ranges[i]); // Committed: the seats are booked
+                } else {
+                    unreserveHeld(seatHolds, rows[i], ranges[i]); // Rolled back
                 }
             }
+            return reserved == rows.length;
+        } finally {
+            for (int i = 0; i < locked; i++) {
+                seatHolds.unlock(rows[i]);
+            }
+        }
+    }
+
+    /**
+     * Reserves the given seats of several rows, all or nothing, for callers holding the locks of
+     * every row of the group.
+     *
+     * @param rows   The rows.
+     * @param ranges The seats to reserve in each row.
+     * @return true if every seat was reserved, false if none was.
+     */
+    protected final boolean reserveRowsLocked(int[] rows, long[] ranges) {
+        for (int i = 0; i < rows.length; i++) {
+            if (!areSeatsAvailable(rows[i], flightSeats.getRowMask(rows[i]), ranges[i])) {
+                return false;
+            }
+        }
+        for (int i = 0; i < rows.length; i++) {
+            long rowMask = flightSeats.getRowMask(rows[i]);
+            commitRow(rows[i], rowMask, rowMask | ranges[i]);
         }
         return true;
     }
 
+    /**
+     * Reserves {@code totalSeats} adjacent seats in the first row that has room for them.
+     * <p>
+     * The row is found through the {@link FlightSeats#findRowWithFreeBlock free-block index}
+     * rather than by scanning the rows, and the seats are the leftmost free block of that row.
+     *
+     * @param totalSeats The number of adjacent seats.
+     * @return The row the seats were reserved in, or -1 if no row has room for them.
+     */
+    public int placeSeats(int totalSeats) {
+        while (true) {
+            int row = flightSeats.findRowWithFreeBlock(totalSeats);
+            if (row < 0) {
+                metrics.recordFailure(FailureReason.NO_ROOM);
+                return -1;
+            }
+            if (withRowLock(row, r -> reserveFreeBlock(r, totalSeats))) return row;
+            // The block was taken since the index was read; the index already reflects it
+        }
+    }
+
+    private boolean reserveFreeBlock(int row, int totalSeats) {
+        while (true) {
+            long rowMask = flightSeats.getRowMask(row);
+            long block = FreeBlockIndex.firstFreeBlock(~rowMask & flightSeats.getSellableMask(row), totalSeats);
+            if (block == 0) return false;
+            if (commitRow(row, rowMask, rowMask | block)) return true;
+            metrics.recordRetry();
+        }
+    }
+
+    boolean reserveSeats(int row, int startCol, int endCol) {
+        long range = flightSeats.getSeatRangeMask(row, startCol, endCol);
+        while (true) {
+            long rowMask = flightSeats.getRowMask(row);
+            if (!areSeatsAvailable(row, rowMask, range)) {
+                metrics.recordFailure(FailureReason.SEATS_TAKEN);
+                return false;
+            }
+            if (commitRow(row, rowMask, rowMask | range)) return true;
+            metrics.recordRetry();
+        }
+    }
+
+    boolean newReserveSeats(int row, int targetIndex, int totalSeats) {
+        return reserveNearest(row, targetIndex, totalSeats) != 0;
+    }
+
+    /**
+     * Books seats for a party in a row, like a BOOK command, and tells which seats it got.
+     * <p>
+     * The party gets the block of adjacent free seats nearest to the requested column, or, if the
+     * row has no such block and {@link #configureSplitBookings split bookings} are allowed, the
+     * free seats spanning the fewest columns (see {@link SeatPlacement}).
+     *
+     * @param row        The row number.
+     * @param targetCol  The requested first column.
+     * @param totalSeats The size of the party.
+     * @return The booked seats as a bitmask of the row, or 0 if the row has no room for the party.
+     * @throws IllegalArgumentException If the row or the requested column doesn't exist in this cabin.
+     */
+    public long bookSeats(int row, int targetCol, int totalSeats) {
+        long start = System.nanoTime();
+        long[] booked = new long[1]; // Out of the row update, which only returns a boolean
+        boolean result = withRowLock(row, r -> (booked[0] = reserveNearest(r, targetCol, totalSeats)) != 0);
+        metrics.recordExecution(Action.BOOK, result, System.nanoTime() - start);
+        return booked[0];
+    }
+
+    /**
+     * Configures whether a BOOK may split a party over non-adjacent seats when its row has no block
+     * of adjacent free seats left. Allowed by default, so a BOOK only fails when the row has too
+     * few free seats; when disallowed, it fails unless the party can sit together.
+     *
+     * @param allowed true to allow split bookings.
+     */
+    public void configureSplitBookings(boolean allowed) {
+        this.splitBookings = allowed;
+    }
+
+    // Picks the seats in one pass over the free-seat mask and commits them; returns them, or 0
+    private long reserveNearest(int row, int targetCol, int totalSeats) {
+        flightSeats.getSeatRangeMask(row, targetCol, targetCol);
+        while (true) {
+            long rowMask = flightSeats.getRowMask(row);
+            long seats = SeatPlacement.place(~rowMask & flightSeats.getSellableMask(row), targetCol, totalSeats, splitBookings);
+            if (seats == 0) {
+                metrics.recordFailure(FailureReason.SEATS_TAKEN);
+                return 0;
+            }
+            if (commitRow(row, rowMask, rowMask | seats)) return seats;
+            metrics.recordRetry();
+        }
+    }
+
     boolean cancelSeats(int row, int startCol, int endCol) {
-        if (!areSeatsReserved(row, startCol, endCol)) return false;
+        long range = flightSeats.getSeatRangeMask(row, startCol, endCol);
+        while (true) {
+            long rowMask = flightSeats.getRowMask(row);
+            // Held seats are reserved but can only be confirmed or released. The mask is read
+            // first: a hold marks its seats before reserving them, so they show up as held here
+            if (!areSeatsReserved(rowMask, range) || (getHeldMask(row) & range) != 0) {
+                metrics.recordFailure(FailureReason.SEATS_NOT_RESERVED);
+                return false;
+            }
+            if (commitRow(row, rowMask, rowMask & ~range)) return true;
+            metrics.recordRetry();
+        }
+    }
+
+    /**
+     * Configures how long holds last. Applies to holds started after the first hold of this
+     * manager only if called before it.
+     *
+     * @param timeout The duration of a hold.
+     * @param unit    The unit of {@code timeout}.
+     */
+    public void configureHolds(long timeout, TimeUnit unit) {
+        this.holdTimeoutNanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * Configures how many request IDs are remembered and for how long. Applies only if called before
+     * the first command with a request ID.
+     *
+     * @param capacity  The number of request IDs remembered within the retention time.
+     * @param retention How long a request ID is remembered at least.
+     * @param unit      The unit of {@code retention}.
+     */
+    public void configureDeduplication(int capacity, long retention, TimeUnit unit) {
+        this.dedupCapacity = capacity;
+        this.dedupRetentionNanos = unit.toNanos(retention);
+    }
+
+    /**
+     * Gets the held seats of a row, i.e. the reserved seats waiting for a CONFIRM or RELEASE.
+     *
+     * @param row The row number.
+     * @return The bitmask of the held seats.
+     */
+    public long getHeldMask(int row) {
+        SeatHolds seatHolds = holds;
+        return seatHolds == null ? 0 : seatHolds.getHeldMask(row);
+    }
+
+    /**
+     * @return The number of holds whose expiry is pending, including confirmed or released ones.
+     */
+    int getPendingHoldExpiries() {
+        SeatHolds seatHolds = holds;
+        return seatHolds == null ? 0 : seatHolds.getPendingExpiries();
+    }
+
+    /**
+     * @return Whether a thread is running to expire holds.
+     */
+    boolean isExpiringHolds() {
+        SeatHolds seatHolds = holds;
+        return seatHolds != null && seatHolds.isTicking();
+    }
 
-        for (int i = startCol; i <= endCol; i++) {
-            flightSeats.getSeat(row, i).cancel();
+    boolean holdSeats(int row, int startCol, int endCol) {
+        long range = flightSeats.getSeatRangeMask(row, startCol, endCol);
+        SeatHolds seatHolds = getHolds();
+        seatHolds.lock(row);
+        try {
+            if (!reserveHeld(seatHolds, row, range)) {
+                metrics.recordFailure(FailureReason.SEATS_TAKEN);
+                return false;
+            }
+            seatHolds.startHold(row, range);
+            return true;
+        } finally {
+            seatHolds.unlock(row);
         }
-        return true;
     }
 
-    private boolean areSeatsAvailable(int row, int startCol, int endCol) {
-        return IntStream.rangeClosed(startCol, endCol)
-                .mapToObj(col -> flightSeats.getSeat(row, col))
-                .noneMatch(Seat::isReserved);
+    boolean confirmSeats(int row, int startCol, int endCol) {
+        long range = flightSeats.getSeatRangeMask(row, startCol, endCol);
+        SeatHolds seatHolds = getHolds();
+        seatHolds.lock(row);
+        try {
+            if ((seatHolds.getHeldMask(row) & range) != range) {
+                metrics.recordFailure(FailureReason.SEATS_NOT_HELD);
+                return false;
+            }
+            seatHolds.clearHeld(row, range); // The seats stay reserved
+            return true;
+        } finally {
+            seatHolds.unlock(row);
+        }
     }
 
-    private int getAvailableSeats(int row, int targetIndex) {
-        // start from `targetIndex` and expand in both ways (left first)
-        int leftCount = 0;
-        for (int i = targetIndex; i >= 0; i--) {
-            Seat seat = flightSeats.getSeat(row, i);
-            if (!seat.isReserved()) {
-                leftCount++;
+    boolean releaseSeats(int row, int startCol, int endCol) {
+        long range = flightSeats.getSeatRangeMask(row, startCol, endCol);
+        SeatHolds seatHolds = getHolds();
+        seatHolds.lock(row);
+        try {
+            if ((seatHolds.getHeldMask(row) & range) != range) {
+                metrics.recordFailure(FailureReason.SEATS_NOT_HELD);
+                return false;
             }
+            unreserveHeld(seatHolds, row, range);
+            return true;
+        } finally {
+            seatHolds.unlock(row);
         }
+    }
+
+    // Releases the seats of an expired hold that weren't confirmed, released or held again since
+    private void expireHold(int row, long seats, long holdId) {
+        withRowLock(row, r -> {
+            SeatHolds seatHolds = holds;
+            seatHolds.lock(r);
+            try {
+                long expired = seatHolds.getSeatsOfHold(r, seats, holdId);
+                if (expired != 0) {
+                    unreserveHeld(seatHolds, r, expired);
+                    metrics.recordHoldExpiry();
+                }
+                return true;
+            } finally {
+                seatHolds.unlock(r);
+            }
+        });
+    }
+
+    // The row mask without its held seats, read under the hold lock of the row so that a hold or
+    // release in progress is either fully in or fully out
+    private long getDurableRowMask(int row) {
+        SeatHolds seatHolds = holds;
+        seatHolds.lock(row);
+        try {
+            return flightSeats.getRowMask(row) & ~seatHolds.getHeldMask(row);
+        } finally {
+            seatHolds.unlock(row);
+        }
+    }
 
-        int rightCount = 0;
-        for (int i = targetIndex + 1; i < flightSeats.getColLength(); i++) {
-            Seat seat = flightSeats.getSeat(row, i);
-            if (!seat.isReserved()) {
-                rightCount++;
+    // Marks free seats as held and reserves them, or leaves the row as it was if any seat is held
+    // or reserved. The caller holds the hold lock of the row.
+    private boolean reserveHeld(SeatHolds seatHolds, int row, long seats) {
+        if ((seatHolds.getHeldMask(row) & seats) != 0) {
+            return false;
+        }
+        seatHolds.markHeld(row, seats); // Before reserving, see cancelSeats
+        while (true) {
+            long rowMask = flightSeats.getRowMask(row);
+            if (!areSeatsAvailable(row, rowMask, seats)) {
+                seatHolds.clearHeld(row, seats);
+                return false;
             }
+            if (commitRow(row, rowMask, rowMask | seats)) return true;
+            metrics.recordRetry();
         }
-        return leftCount + rightCount;
     }
 
-    private boolean areSeatsReserved(int row, int startCol, int endCol) {
-        return IntStream.rangeClosed(startCol, endCol)
-                .mapToObj(col -> flightSeats.getSeat(row, col))
-                .allMatch(Seat::isReserved);
+    // Frees held seats, then clears their held mark, so cancelSeats never sees them unheld but
+    // reserved. The caller holds the hold lock of the row.
+    private void unreserveHeld(SeatHolds seatHolds, int row, long seats) {
+        while (true) {
+            long rowMask = flightSeats.getRowMask(row);
+            if (commitRow(row, rowMask, rowMask & ~seats)) break;
+            metrics.recordRetry();
+        }
+        seatHolds.clearHeld(row, seats);
+    }
+
+    private SeatHolds getHolds() {
+        SeatHolds seatHolds = holds;
+        if (seatHolds == null) {
+            synchronized (this) {
+                seatHolds = holds;
+                if (seatHolds == null) {
+                    seatHolds = new SeatHolds(flightSeats.getLayout(), holdTimeoutNanos, this::expireHold);
+                    holds = seatHolds;
+                    flightSeats.setDurableRowMasks(this::getDurableRowMask);
+                }
+            }
+        }
+        return seatHolds;
+    }
+
+    private RequestDeduplicator getRequests() {
+        RequestDeduplicator deduplicator = requests;
+        if (deduplicator == null) {
+            synchronized (this) {
+                deduplicator = requests;
+                if (deduplicator == null) {
+                    deduplicator = new RequestDeduplicator(dedupCapacity, dedupRetentionNanos);
+                    requests = deduplicator;
+                }
+            }
+        }
+        return deduplicator;
+    }
+
+    private void trace(Command command, boolean result) {
+        LOGGER.log(Level.INFO, () -> String.format("%s %s %s row=%d col=%d seats=%d -> %s",
+                getClass().getSimpleName(), command.getFlightId(), command.getAction(), command.getRowNumber(),
+                command.getColumnNumber(), command.getConsecutiveSeats(), result ? "SUCCESS" : "FAIL"));
+    }
+
+    // Neither reserved nor blocked
+    private boolean areSeatsAvailable(int row, long rowMask, long range) {
+        return (rowMask & range) == 0 && (flightSeats.getSellableMask(row) & range) == range;
+    }
+
+    private boolean areSeatsReserved(long rowMask, long range) {
+        return (rowMask & range) == range;
     }
 }
@@ -3,13 +3,12 @@ package com.flight.reservation;
 /**
  * Enum representing actions that can be performed on flight seats.
  * Implements the {@link ActionInterface} and provides concrete implementations
- * for booking and canceling seats via the {@code execute} method.
+ * for booking, canceling, automatically placing and holding seats via the {@code execute} method.
  */
 public enum Action implements ActionInterface {
-    BOOK {
+    BOOK(FailureReason.SEATS_TAKEN) {
         @Override
         public boolean execute(AbstractReservationManager manager, Command command) {
-            System.out.print("executing...");
             return manager.newReserveSeats(
                     command.getRowNumber(),
                     command.getColumnNumber(),
@@ -25,7 +24,7 @@ public enum Action implements ActionInterface {
 //        }
     },
 
-    CANCEL {
+    CANCEL(FailureReason.SEATS_NOT_RESERVED) {
         @Override
         public boolean execute(AbstractReservationManager manager, Command command) {
             return manager.cancelSeats(
@@ -34,6 +33,95 @@ public enum Action implements ActionInterface {
                     command.getColumnNumber() + command.getConsecutiveSeats() - 1
             );
         }
+    },
+
+    /**
+     * Reserves the requested number of adjacent seats in any row that has room for them.
+     * The row and column of the command are ignored.
+     */
+    PLACE(FailureReason.NO_ROOM) {
+        @Override
+        public boolean execute(AbstractReservationManager manager, Command command) {
+            return executeInRow(manager, command) >= 0;
+        }
+
+        @Override
+        public int executeInRow(AbstractReservationManager manager, Command command) {
+            return manager.placeSeats(command.getConsecutiveSeats());
+        }
+
+        @Override
+        public boolean targetsRow() {
+            return false;
+        }
+    },
+
+    /**
+     * Reserves seats for a limited time, until they are confirmed or released. Seats that are
+     * neither are released automatically when the hold expires.
+     */
+    HOLD(FailureReason.SEATS_TAKEN) {
+        @Override
+        public boolean execute(AbstractReservationManager manager, Command command) {
+            return manager.holdSeats(
+                    command.getRowNumber(),
+                    command.getColumnNumber(),
+                    command.getColumnNumber() + command.getConsecutiveSeats() - 1
+            );
+        }
+
+        @Override
+        public boolean needsServer() {
+            return true;
+        }
+    },
+
+    /**
+     * Turns held seats into a booking.
+     */
+    CONFIRM(FailureReason.SEATS_NOT_HELD) {
+        @Override
+        public boolean execute(AbstractReservationManager manager, Command command) {
+            return manager.confirmSeats(
+                    command.getRowNumber(),
+                    command.getColumnNumber(),
+                    command.getColumnNumber() + command.getConsecutiveSeats() - 1
+            );
+        }
+
+        @Override
+        public boolean needsServer() {
+            return true;
+        }
+    },
+
+    /**
+     * Frees held seats before their hold expires.
+     */
+    RELEASE(FailureReason.SEATS_NOT_HELD) {
+        @Override
+        public boolean execute(AbstractReservationManager manager, Command command) {
+            return manager.releaseSeats(
+                    command.getRowNumber(),
+                    command.getColumnNumber(),
+                    command.getColumnNumber() + command.getConsecutiveSeats() - 1
+            );
+        }
+
+        @Override
+        public boolean needsServer() {
+            return true;
+        }
+    };
+
+    private final FailureReason failureReason;
+
+    Action(FailureReason failureReason) {
+        this.failureReason = failureReason;
     }
-}
 
+    @Override
+    public FailureReason getFailureReason() {
+        return failureReason;
+    }
+}
@@ -16,4 +16,44 @@ public interface ActionInterface {
      * @return true if the action succeeds, false otherwise.
      */
     boolean execute(AbstractReservationManager manager, Command command);
+
+    /**
+     * Executes the action like {@link #execute} and tells which row it changed. Actions that pick
+     * their own row override it to return that row.
+     *
+     * @param manager The {@link AbstractReservationManager} responsible for seat management.
+     * @param command The {@link Command} to execute.
+     * @return The row the action changed, or -1 if it failed.
+     */
+    default int executeInRow(AbstractReservationManager manager, Command command) {
+        return execute(manager, command) ? command.getRowNumber() : -1;
+    }
+
+    /**
+     * Tells whether the action applies to the row of its command. Actions that pick their own row
+     * return false, and managers don't lock the command's row for them.
+     *
+     * @return true if the action only touches {@link Command#getRowNumber()}, false otherwise.
+     */
+    default boolean targetsRow() {
+        return true;
+    }
+
+    /**
+     * Tells whether the action only works on seats kept in memory between commands, i.e. by a
+     * {@link ReservationServer}. A one-shot command would leave such state behind in the seating
+     * file without anything to end it.
+     *
+     * @return true if the action must not run outside server mode.
+     */
+    default boolean needsServer() {
+        return false;
+    }
+
+    /**
+     * Gets the reason a command of this action failed when {@link #execute} returns false.
+     *
+     * @return The failure reason.
+     */
+    FailureReason getFailureReason();
 }
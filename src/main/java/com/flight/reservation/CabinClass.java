@@ -0,0 +1,11 @@
+package com.flight.reservation;
+
+/**
+ * Enum of the cabin classes a seat can be sold in.
+ */
+public enum CabinClass {
+    FIRST,
+    BUSINESS,
+    PREMIUM_ECONOMY,
+    ECONOMY
+}
@@ -0,0 +1,78 @@
+package com.flight.reservation;
+
+/**
+ * The dimensions of the cabin of a flight: its number of rows and of seats per row.
+ * <p>
+ * A layout is written as {@code <ROWS>x<COLUMNS>}, e.g. "60x10" for a widebody with 60 rows of
+ * 10 seats. Rows are named with one or two letters (A to Z, then AA to ZZ), and a row can hold
+ * at most {@value FlightSeats#MAX_COL_LENGTH} seats.
+ */
+public class CabinLayout {
+    public final static int MAX_ROW_LENGTH = 26 + 26 * 26; // Rows A to ZZ
+    public final static CabinLayout DEFAULT = new CabinLayout(20, 8);
+
+    private final int rowLength;
+    private final int colLength;
+
+    /**
+     * @param rowLength The number of rows.
+     * @param colLength The number of seats in each row.
+     * @throws IllegalArgumentException If the dimensions are out of range.
+     */
+    public CabinLayout(int rowLength, int colLength) {
+        if (rowLength <= 0 || rowLength > MAX_ROW_LENGTH || colLength <= 0 || colLength > FlightSeats.MAX_COL_LENGTH) {
+            throw new IllegalArgumentException("Invalid seating dimensions: " + rowLength + "x" + colLength);
+        }
+        this.rowLength = rowLength;
+        this.colLength = colLength;
+    }
+
+    /**
+     * Parses a layout written as {@code <ROWS>x<COLUMNS>}.
+     *
+     * @param layout The layout, e.g. "60x10".
+     * @return The parsed layout.
+     * @throws IllegalArgumentException If the layout is malformed or out of range.
+     */
+    public static CabinLayout parse(String layout) {
+        int separator = layout.indexOf('x');
+        try {
+            if (separator > 0) {
+                return new CabinLayout(Integer.parseInt(layout.substring(0, separator)),
+                        Integer.parseInt(layout.substring(separator + 1)));
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid cabin layout: " + layout);
+    }
+
+    /**
+     * @return The number of rows.
+     */
+    public int getRowLength() {
+        return rowLength;
+    }
+
+    /**
+     * @return The number of seats in each row.
+     */
+    public int getColLength() {
+        return colLength;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CabinLayout layout && layout.rowLength == rowLength && layout.colLength == colLength;
+    }
+
+    @Override
+    public int hashCode() {
+        return rowLength * 31 + colLength;
+    }
+
+    @Override
+    public String toString() {
+        return rowLength + "x" + colLength;
+    }
+}
@@ -3,15 +3,21 @@ package com.flight.reservation;
 /**
  * Represents a command to book or cancel seats in a flight.
  * <p>
- * This class encapsulates the action type, row number, column number, and
+ * This class encapsulates the flight, the action type, row number, column number, and
  * the number of consecutive seats involved in the command.
  * It follows the Builder pattern to ensure proper construction and validation.
  */
 public class Command {
+    public final static String DEFAULT_FLIGHT_ID = ""; // The flight of commands without a flight ID
+    public final static int MAX_FLIGHT_ID_LENGTH = 8;
+    public final static long NO_REQUEST_ID = 0; // The request ID of commands that aren't deduplicated
+
+    private final String flightId;
     private final Action action;
     private final int rowNumber;
     private final int columnNumber;
     private final int consecutiveSeats;
+    private final long requestId;
 
     /**
      * Private constructor to enforce the use of the Builder for object creation.
@@ -19,14 +25,23 @@ public class Command {
      * @param builder The Builder instance containing the initialized values.
      */
     private Command(Builder builder) {
+        this.flightId = builder.flightId;
         this.action = builder.action;
         this.rowNumber = builder.rowNumber;
         this.columnNumber = builder.columnNumber;
         this.consecutiveSeats = builder.consecutiveSeats;
+        this.requestId = builder.requestId;
+    }
+
+    /**
+     * @return The ID of the flight the command applies to, or {@link #DEFAULT_FLIGHT_ID}.
+     */
+    public String getFlightId() {
+        return flightId;
     }
 
     /**
-     * @return The action to be performed (BOOK or CANCEL).
+     * @return The {@link Action} to be performed.
      */
     public Action getAction() {
         return action;
@@ -53,21 +68,59 @@ public class Command {
         return consecutiveSeats;
     }
 
+    /**
+     * Gets the ID a client gave the request of this command. A manager executes a command with a
+     * request ID at most once; executing it again returns the outcome of the first execution.
+     *
+     * @return The request ID, or {@link #NO_REQUEST_ID}.
+     */
+    public long getRequestId() {
+        return requestId;
+    }
+
     /**
      * Builder class for constructing {@link Command} objects.
      * <p>
      * Ensures input validation before creating an instance of Command.
      */
     public static class Builder {
+        private String flightId = DEFAULT_FLIGHT_ID;
         private Action action;
         private int rowNumber;
         private int columnNumber;
         private int consecutiveSeats;
+        private long requestId = NO_REQUEST_ID;
+
+        /**
+         * Sets the flight the command applies to.
+         *
+         * @param flightId The flight ID: up to 8 upper-case letters and digits (e.g. "UA100").
+         * @return The builder instance for chaining.
+         * @throws IllegalArgumentException If the flight ID is null or malformed.
+         */
+        public Builder setFlightId(String flightId) {
+            validateFlightId(flightId);
+            this.flightId = flightId;
+            return this;
+        }
+
+        /**
+         * Checks that a flight ID is well-formed, for callers that take a flight ID outside a command.
+         *
+         * @param flightId The flight ID.
+         * @throws IllegalArgumentException If the flight ID is null or malformed.
+         */
+        public static void validateFlightId(String flightId) {
+            if (flightId == null || flightId.isEmpty() || flightId.length() > MAX_FLIGHT_ID_LENGTH
+                    || !flightId.chars().allMatch(c -> (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))) {
+                throw new IllegalArgumentException("Flight ID must be 1 to 8 upper-case letters or digits");
+            }
+        }
 
         /**
          * Sets the action type for the command.
          *
-         * @param action The action to be performed (BOOK or CANCEL).
+         * @param action The {@link Action} to be performed.
          * @return The builder instance for chaining.
          * @throws IllegalArgumentException If the action is null.
          */
@@ -82,14 +135,14 @@ public class Command {
         /**
          * Sets the row number for the command.
          *
-         * @param rowNumber The row number (0-20).
+         * Whether the row exists is checked against the cabin of the flight when the command executes.
+         *
+         * @param rowNumber The row number (0 to {@link CabinLayout#MAX_ROW_LENGTH} - 1).
          * @return The builder instance for chaining.
          * @throws IllegalArgumentException If the row number is out of bounds.
          */
         public Builder setRowNumber(int rowNumber) {
-            if (rowNumber < 0 || rowNumber > 20) {
-                throw new IllegalArgumentException("Row number must be in the range of [0, 20]");
-            }
+            validateRowNumber(rowNumber);
             this.rowNumber = rowNumber;
             return this;
         }
@@ -97,14 +150,14 @@ public class Command {
         /**
          * Sets the starting column number for the command.
          *
-         * @param columnNumber The column number (0-7).
+         * Whether the column exists is checked against the cabin of the flight when the command executes.
+         *
+         * @param columnNumber The column number (0 to {@link FlightSeats#MAX_COL_LENGTH} - 1).
          * @return The builder instance for chaining.
          * @throws IllegalArgumentException If the column number is out of bounds.
          */
         public Builder setColumnNumber(int columnNumber) {
-            if (columnNumber < 0 || columnNumber > 7) {
-                throw new IllegalArgumentException("Column number must be in the range of [0, 7]");
-            }
+            validateColumnNumber(columnNumber);
             this.columnNumber = columnNumber;
             return this;
         }
@@ -112,18 +165,32 @@ public class Command {
         /**
          * Sets the number of consecutive seats for the command.
          *
-         * @param consecutiveSeats The number of consecutive seats (1-8).
+         * @param consecutiveSeats The number of consecutive seats (1 to {@link FlightSeats#MAX_COL_LENGTH}).
          * @return The builder instance for chaining.
          * @throws IllegalArgumentException If the number of consecutive seats is out of bounds.
          */
         public Builder setConsecutiveSeats(int consecutiveSeats) {
-            if (consecutiveSeats < 1 || consecutiveSeats > 8) {
-                throw new IllegalArgumentException("Consecutive seats must be in the range of [1, 8]");
-            }
+            validateConsecutiveSeats(consecutiveSeats);
             this.consecutiveSeats = consecutiveSeats;
             return this;
         }
 
+        /**
+         * Sets the ID of the request, for a client that may retry it, e.g. after a timeout. The
+         * retry must carry the same command.
+         *
+         * @param requestId The request ID, unique per flight among recent requests.
+         * @return The builder instance for chaining.
+         * @throws IllegalArgumentException If the request ID isn't positive.
+         */
+        public Builder setRequestId(long requestId) {
+            if (requestId <= NO_REQUEST_ID) {
+                throw new IllegalArgumentException("Request ID must be positive");
+            }
+            this.requestId = requestId;
+            return this;
+        }
+
         /**
          * Builds and returns a {@link Command} instance after validation.
          *
@@ -131,26 +198,45 @@ public class Command {
          * @throws IllegalArgumentException If any of inputs are invalid.
          */
         public Command build() {
-            // validate();
+            validate();
             return new Command(this);
         }
 
+        // The individual values are checked by the setters; the cabin of the flight is checked on execution
         private void validate() {
             if (action == null) {
                 throw new IllegalArgumentException("Action must be set");
             }
-            if (rowNumber < 0 || rowNumber > 20) {
-                throw new IllegalArgumentException("Row number must be in the range of [0, 20]");
+            if (consecutiveSeats < 1) {
+                throw new IllegalArgumentException("Consecutive seats must be set");
             }
-            if (columnNumber < 0 || columnNumber > 7) {
-                throw new IllegalArgumentException("Column number must be in the range of [0, 7]");
+            validateEndColumn(columnNumber, consecutiveSeats);
+        }
+
+        // The checks of the setters, shared with CommandDecoder so both accept the same commands
+
+        static void validateRowNumber(int rowNumber) {
+            if (rowNumber < 0 || rowNumber >= CabinLayout.MAX_ROW_LENGTH) {
+                throw new IllegalArgumentException("Row number must be in the range of [0, " + (CabinLayout.MAX_ROW_LENGTH - 1) + "]");
             }
-            if (consecutiveSeats < 1 || consecutiveSeats > 8) {
-                throw new IllegalArgumentException("Consecutive seats must be in the range of [1, 8]");
+        }
+
+        static void validateColumnNumber(int columnNumber) {
+            if (columnNumber < 0 || columnNumber >= FlightSeats.MAX_COL_LENGTH) {
+                throw new IllegalArgumentException("Column number must be in the range of [0, " + (FlightSeats.MAX_COL_LENGTH - 1) + "]");
             }
+        }
+
+        static void validateConsecutiveSeats(int consecutiveSeats) {
+            if (consecutiveSeats < 1 || consecutiveSeats > FlightSeats.MAX_COL_LENGTH) {
+                throw new IllegalArgumentException("Consecutive seats must be in the range of [1, " + FlightSeats.MAX_COL_LENGTH + "]");
+            }
+        }
+
+        static void validateEndColumn(int columnNumber, int consecutiveSeats) {
             int endCol = columnNumber + consecutiveSeats - 1;
-            if (endCol > 7) {
-                throw new IllegalArgumentException("The end column number must be smaller than or equal to 7");
+            if (endCol >= FlightSeats.MAX_COL_LENGTH) {
+                throw new IllegalArgumentException("The end column number must be smaller than or equal to " + (FlightSeats.MAX_COL_LENGTH - 1));
             }
         }
     }
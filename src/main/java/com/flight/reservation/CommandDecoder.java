@@ -0,0 +1,389 @@
+package com.flight.reservation;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Decodes command lines without allocating, for ingesting large volumes of commands.
+ * <p>
+ * Accepts the grammar of {@link CommandParser}, e.g. "BOOK UA100 A1 2", from a
+ * {@link CharSequence} or straight from the bytes of a {@link ByteBuffer}, and applies the
+ * validation of {@link Command.Builder}. A decoder is a reusable, mutable command: every decoded
+ * line overwrites its fields, and the action, row, column and seat count are also returned
+ * {@link #pack packed} into a {@code long}. The flight ID is the only field that needs an object;
+ * the decoder keeps the last one and reuses it while consecutive lines name the same flight. The
+ * optional request ID, e.g. "BOOK UA100 A1 2 REQ=42", is available from {@link #getRequestId()}.
+ * <p>
+ * A decoder isn't thread-safe; use one per thread or connection.
+ */
+public class CommandDecoder {
+    public final static long NO_LINE = -1; // Returned by decode(ByteBuffer) when the buffer is empty
+
+    private final static Action[] ACTIONS = Action.values();
+    private final static int MAX_TOKENS = 5;
+    private final static int INITIAL_LINE_CAPACITY = 64;
+
+    // Layout of a packed command: seats in bits 0-6, column in bits 8-13, row in bits 16-25, action
+    // ordinal in bits 32-39
+    private final static int COLUMN_SHIFT = 8;
+    private final static int ROW_SHIFT = 16;
+    private final static int ACTION_SHIFT = 32;
+
+    private byte[] line = new byte[INITIAL_LINE_CAPACITY]; // The current line, as ASCII bytes
+    private final int[] tokenStarts = new int[MAX_TOKENS];
+    private final int[] tokenEnds = new int[MAX_TOKENS];
+
+    private Action action;
+    private String flightId = Command.DEFAULT_FLIGHT_ID;
+    private int rowNumber;
+    private int columnNumber;
+    private int consecutiveSeats;
+    private long requestId = Command.NO_REQUEST_ID;
+
+    /**
+     * Packs the fields of a command, apart from its flight ID, into a {@code long}.
+     *
+     * @param action           The action.
+     * @param rowNumber        The row number; 0 for actions that don't target a row.
+     * @param columnNumber     The starting column number; 0 for actions that don't target a row.
+     * @param consecutiveSeats The number of consecutive seats.
+     * @return The packed command.
+     * @throws IllegalArgumentException If the fields don't make a valid command.
+     */
+    public static long pack(Action action, int rowNumber, int columnNumber, int consecutiveSeats) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action cannot be null");
+        }
+        Command.Builder.validateRowNumber(rowNumber);
+        Command.Builder.validateColumnNumber(columnNumber);
+        Command.Builder.validateConsecutiveSeats(consecutiveSeats);
+        Command.Builder.validateEndColumn(columnNumber, consecutiveSeats);
+        return (long) action.ordinal() << ACTION_SHIFT | (long) rowNumber << ROW_SHIFT
+                | (long) columnNumber << COLUMN_SHIFT | consecutiveSeats;
+    }
+
+    /**
+     * @param packed A {@link #pack packed} command.
+     * @return The action of the command.
+     */
+    public static Action unpackAction(long packed) {
+        return ACTIONS[(int) (packed >>> ACTION_SHIFT) & 0xFF];
+    }
+
+    /**
+     * @param packed A {@link #pack packed} command.
+     * @return The row number of the command.
+     */
+    public static int unpackRowNumber(long packed) {
+        return (int) (packed >>> ROW_SHIFT) & 0x3FF;
+    }
+
+    /**
+     * @param packed A {@link #pack packed} command.
+     * @return The starting column number of the command.
+     */
+    public static int unpackColumnNumber(long packed) {
+        return (int) (packed >>> COLUMN_SHIFT) & 0x3F;
+    }
+
+    /**
+     * @param packed A {@link #pack packed} command.
+     * @return The number of consecutive seats of the command.
+     */
+    public static int unpackConsecutiveSeats(long packed) {
+        return (int) packed & 0x7F;
+    }
+
+    /**
+     * Decodes a command line.
+     *
+     * @param text The command line, e.g. "BOOK UA100 A1 2".
+     * @return The {@link #pack packed} command; the flight ID is available from {@link #getFlightId()}.
+     * @throws IllegalArgumentException If the line isn't a valid command.
+     */
+    public long decode(CharSequence text) {
+        int length = text.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            line[i] = c < 0x80 ? (byte) c : 0x7F; // Characters outside ASCII are never valid
+        }
+        return decodeLine(length);
+    }
+
+    /**
+     * Decodes the next line of a buffer of ASCII bytes. The line ends at a {@code '\n'} or at the
+     * limit of the buffer, and the buffer's position moves past it, even if the line isn't valid.
+     *
+     * @param buffer The buffer; its position is at the start of the line.
+     * @return The {@link #pack packed} command, or {@link #NO_LINE} if the buffer has no byte left.
+     * @throws IllegalArgumentException If the line isn't a valid command.
+     */
+    public long decode(ByteBuffer buffer) {
+        if (!buffer.hasRemaining()) {
+            return NO_LINE;
+        }
+        int length = 0;
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if (b == '\n') {
+                break;
+            }
+            ensureCapacity(length + 1);
+            line[length++] = b;
+        }
+        return decodeLine(length);
+    }
+
+    /**
+     * @return The action of the last decoded command.
+     */
+    public Action getAction() {
+        return action;
+    }
+
+    /**
+     * @return The flight ID of the last decoded command, or {@link Command#DEFAULT_FLIGHT_ID}.
+     */
+    public String getFlightId() {
+        return flightId;
+    }
+
+    /**
+     * @return The row number of the last decoded command.
+     */
+    public int getRowNumber() {
+        return rowNumber;
+    }
+
+    /**
+     * @return The starting column number of the last decoded command.
+     */
+    public int getColumnNumber() {
+        return columnNumber;
+    }
+
+    /**
+     * @return The number of consecutive seats of the last decoded command.
+     */
+    public int getConsecutiveSeats() {
+        return consecutiveSeats;
+    }
+
+    /**
+     * @return The request ID of the last decoded command, or {@link Command#NO_REQUEST_ID}.
+     */
+    public long getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * Builds an immutable {@link Command} from the last decoded command, for the APIs that take one.
+     *
+     * @return The command.
+     */
+    public Command toCommand() {
+        Command.Builder builder = new Command.Builder()
+                .setAction(action)
+                .setRowNumber(rowNumber)
+                .setColumnNumber(columnNumber)
+                .setConsecutiveSeats(consecutiveSeats);
+        if (!flightId.equals(Command.DEFAULT_FLIGHT_ID)) {
+            builder.setFlightId(flightId);
+        }
+        if (requestId != Command.NO_REQUEST_ID) {
+            builder.setRequestId(requestId);
+        }
+        return builder.build();
+    }
+
+    // Splits the line into tokens and decodes them, following CommandParser.parse
+    private long decodeLine(int length) {
+        int tokens = 0;
+        for (int i = 0; ; ) {
+            while (i < length && isSpace(line[i])) {
+                i++;
+            }
+            if (i == length) {
+                break;
+            }
+            if (tokens == MAX_TOKENS) {
+                throw new IllegalArgumentException("Too many input arguments: " + text(0, length));
+            }
+            tokenStarts[tokens] = i;
+            while (i < length && !isSpace(line[i])) {
+                i++;
+            }
+            tokenEnds[tokens++] = i;
+        }
+        if (tokens == 0) {
+            throw new IllegalArgumentException("The number of input arguments isn't equal to 3 or 4.");
+        }
+
+        long requestId = Command.NO_REQUEST_ID;
+        if (tokens > 1 && isRequestId(tokens - 1)) {
+            requestId = decodeRequestId(--tokens);
+        }
+
+        int next = 0;
+        Action action = decodeAction(next++);
+        int positionArgs = action.targetsRow() ? 1 : 0;
+        if (tokens != 2 + positionArgs && tokens != 3 + positionArgs) {
+            throw new IllegalArgumentException("The number of input arguments isn't equal to "
+                    + (2 + positionArgs) + " or " + (3 + positionArgs) + ".");
+        }
+        String flightId = tokens == 3 + positionArgs ? decodeFlightId(next++) : Command.DEFAULT_FLIGHT_ID;
+        int row = 0;
+        int col = 0;
+        if (action.targetsRow()) {
+            long position = decodePosition(next++);
+            row = (int) (position >>> Integer.SIZE);
+            col = (int) position;
+        }
+        int seats = decodeConsecutiveNumber(next);
+
+        long packed = pack(action, row, col, seats);
+        this.action = action;
+        this.flightId = flightId;
+        this.rowNumber = row;
+        this.columnNumber = col;
+        this.consecutiveSeats = seats;
+        this.requestId = requestId;
+        return packed;
+    }
+
+    private Action decodeAction(int token) {
+        int start = tokenStarts[token];
+        int length = tokenEnds[token] - start;
+        for (Action candidate : ACTIONS) {
+            String name = candidate.name();
+            if (name.length() == length && matches(start, name)) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("Invalid action name: " + text(start, tokenEnds[token]));
+    }
+
+    // Reuses the flight ID of the previous line when it's the same flight
+    private String decodeFlightId(int token) {
+        int start = tokenStarts[token];
+        int length = tokenEnds[token] - start;
+        if (flightId.length() == length && matches(start, flightId)) {
+            return flightId;
+        }
+        String decoded = text(start, tokenEnds[token]);
+        Command.Builder.validateFlightId(decoded);
+        return decoded;
+    }
+
+    // Returns the row in the upper and the column in the lower half, see CommandParser.parsePosition
+    private long decodePosition(int token) {
+        int start = tokenStarts[token];
+        int end = tokenEnds[token];
+        int letters = 0;
+        while (start + letters < end && line[start + letters] >= 'A' && line[start + letters] <= 'Z') {
+            letters++;
+        }
+        int digits = end - start - letters;
+        if (letters < 1 || letters > 2 || digits < 1 || digits > 2) {
+            throw new IllegalArgumentException("Invalid position format: " + text(start, end));
+        }
+
+        int row = line[start] - 'A';
+        if (letters == 2) {
+            row = 26 + row * 26 + (line[start + 1] - 'A');
+        }
+        int col = 0;
+        for (int i = start + letters; i < end; i++) {
+            if (line[i] < '0' || line[i] > '9') {
+                throw new IllegalArgumentException("Invalid position format: " + text(start, end));
+            }
+            col = col * 10 + (line[i] - '0');
+        }
+        return (long) row << Integer.SIZE | col;
+    }
+
+    // Accepts what Integer.parseInt accepts: an optional sign and decimal digits
+    private int decodeConsecutiveNumber(int token) {
+        int start = tokenStarts[token];
+        int end = tokenEnds[token];
+        int i = start;
+        boolean negative = line[i] == '-';
+        if (negative || line[i] == '+') {
+            i++;
+        }
+        if (i == end) {
+            throw new IllegalArgumentException("Invalid consecutive number: " + text(start, end));
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            if (line[i] < '0' || line[i] > '9') {
+                throw new IllegalArgumentException("Invalid consecutive number: " + text(start, end));
+            }
+            value = value * 10 + (line[i] - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new IllegalArgumentException("Invalid consecutive number: " + text(start, end));
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid consecutive number: " + text(start, end));
+        }
+        return (int) value;
+    }
+
+    private boolean isRequestId(int token) {
+        String prefix = CommandParser.REQUEST_ID_PREFIX;
+        return tokenEnds[token] - tokenStarts[token] >= prefix.length() && matches(tokenStarts[token], prefix);
+    }
+
+    // Accepts what CommandParser.parseRequestId accepts: the prefix, an optional sign and decimal digits
+    private long decodeRequestId(int token) {
+        int start = tokenStarts[token];
+        int end = tokenEnds[token];
+        int i = start + CommandParser.REQUEST_ID_PREFIX.length();
+        boolean negative = i < end && line[i] == '-';
+        if (negative || (i < end && line[i] == '+')) {
+            i++;
+        }
+        if (i == end) {
+            throw new IllegalArgumentException("Invalid request ID: " + text(start, end));
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            if (line[i] < '0' || line[i] > '9' || value > (Long.MAX_VALUE - (line[i] - '0')) / 10) {
+                throw new IllegalArgumentException("Invalid request ID: " + text(start, end));
+            }
+            value = value * 10 + (line[i] - '0');
+        }
+        if (negative || value == Command.NO_REQUEST_ID) {
+            throw new IllegalArgumentException("Request ID must be positive");
+        }
+        return value;
+    }
+
+    private boolean matches(int start, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (line[start + i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // As with String.trim, every space and control character separates tokens
+    private static boolean isSpace(byte b) {
+        return b >= 0 && b <= ' ';
+    }
+
+    private String text(int start, int end) {
+        return new String(line, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    private void ensureCapacity(int length) {
+        if (length > line.length) {
+            line = Arrays.copyOf(line, Math.max(length, line.length * 2));
+        }
+    }
+}
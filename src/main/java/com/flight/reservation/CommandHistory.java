@@ -0,0 +1,293 @@
+package com.flight.reservation;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded in-memory history of the changes made to the seats of a flight, to undo the latest
+ * ones, restore an earlier version of the chart or compare two versions.
+ * <p>
+ * A BOOK picks its own seats, so a command can't be inverted from its parameters; the history
+ * records what every command actually changed instead. Each change of a row mask of
+ * {@link FlightSeats} is one entry of a ring of primitive arrays: the
+ * {@link FlightSeats#getVersion() version} the change produced, the row, the seats that flipped
+ * and the mask it left. A row at any version still in the ring is the mask the first later change
+ * of the row started from, i.e. the mask it left with its seats flipped back. Once the ring is full
+ * the oldest entries are overwritten, and versions before {@link #getOldestVersion()} can't be
+ * restored anymore. The capacity is set with {@code -Dreservation.history.size}.
+ * <p>
+ * Restores go through the reservation manager, under the synchronization it uses for each row,
+ * and are recorded like any other change, so a restore is undone by restoring the version before
+ * it. A restore sets the seats changed since the restored version to their state at that version
+ * rather than flipping them, so a command changing the same seats while it runs ends up ordered
+ * before it instead of being inverted; commands on other seats are kept. Held seats are never
+ * changed. Group bookings and their rollbacks change one row per entry. Both return the seats
+ * they set back per row, so a caller can journal the restored rows like commands.
+ * <p>
+ * The history is guarded by {@link ReentrantLock}s rather than monitors, since commands record
+ * their changes on virtual threads.
+ */
+public class CommandHistory implements AutoCloseable {
+    final static int DEFAULT_CAPACITY = Integer.getInteger("reservation.history.size", 4096);
+
+    private final AbstractReservationManager manager;
+    private final FlightSeats flightSeats;
+    private final FlightSeats.RowListener listener = this::record;
+    private final ReentrantLock lock = new ReentrantLock(); // Guards the ring
+    private final ReentrantLock restoreLock = new ReentrantLock(); // Taken before any row lock, never while holding `lock`
+
+    private final long[] versions;
+    private final long[] changedSeats;
+    private final long[] rowMasks; // The mask each entry left
+    private final int[] rows; // The row of each entry, or ~row for the changes made by a restore
+    private final int mask;
+    private long recorded; // The number of entries recorded so far; the next one goes to `recorded & mask`
+    private long oldestVersion; // The earliest version that can still be restored
+    private long undoneVersion = Long.MAX_VALUE; // The version of the last undone change, until a command changes a row
+    private volatile Thread restoringThread;
+
+    /**
+     * Constructs a history of {@link #DEFAULT_CAPACITY} entries.
+     *
+     * @param manager The reservation manager of the flight, which applies the restores.
+     */
+    public CommandHistory(AbstractReservationManager manager) {
+        this(manager, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Starts recording the changes of a flight. The current version is the oldest one that can be
+     * restored.
+     *
+     * @param manager  The reservation manager of the flight, which applies the restores.
+     * @param capacity The number of row changes kept, rounded up to a power of two.
+     * @throws IllegalArgumentException If {@code capacity} isn't positive or exceeds 2^30.
+     */
+    public CommandHistory(AbstractReservationManager manager, int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("History capacity must be in the range of [1, 2^30]: " + capacity);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.manager = manager;
+        this.flightSeats = manager.getFlightSeats();
+        this.versions = new long[size];
+        this.changedSeats = new long[size];
+        this.rowMasks = new long[size];
+        this.rows = new int[size];
+        this.mask = size - 1;
+        lock.lock();
+        try {
+            flightSeats.addRowListener(listener);
+            this.oldestVersion = flightSeats.getVersion();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Undoes the latest changes made by commands, by restoring the version before the earliest of
+     * them. Successive undos step further back; the steps restart from the latest change once a
+     * command changes a row again. Changes made by restores are skipped.
+     *
+     * @param changes The number of changes to undo.
+     * @return The seats set back, as a bitmask per row; see {@link #restore}.
+     * @throws IllegalArgumentException If {@code changes} isn't positive, or fewer changes are left
+     *                                  in the history.
+     */
+    public long[] undo(int changes) {
+        if (changes < 1) {
+            throw new IllegalArgumentException("The number of changes must be positive: " + changes);
+        }
+        restoreLock.lock();
+        try {
+            long undone;
+            lock.lock();
+            try {
+                undone = findUndoable(changes);
+            } finally {
+                lock.unlock();
+            }
+            long[] restored = restore(undone - 1);
+            lock.lock();
+            try {
+                undoneVersion = undone;
+            } finally {
+                lock.unlock();
+            }
+            return restored;
+        } finally {
+            restoreLock.unlock();
+        }
+    }
+
+    /**
+     * Brings every row back to its state at an earlier version.
+     *
+     * @param version The version to restore, from {@link #getOldestVersion()} to the current one.
+     * @return The seats changed since the version, which were set back unless held, as a bitmask
+     * per row; 0 for the rows left alone.
+     * @throws IllegalArgumentException If the version isn't in the history.
+     */
+    public long[] restore(long version) {
+        restoreLock.lock();
+        try {
+            long[] changed = new long[flightSeats.getRowLength()];
+            long[] restored = new long[changed.length];
+            lock.lock();
+            try {
+                checkVersion(version);
+                rowsAt(version, changed, restored);
+            } finally {
+                lock.unlock();
+            }
+            restoringThread = Thread.currentThread();
+            try {
+                for (int row = 0; row < changed.length; row++) {
+                    if (changed[row] != 0) {
+                        setSeats(row, changed[row], restored[row]);
+                    }
+                }
+            } finally {
+                restoringThread = null;
+            }
+            return changed;
+        } finally {
+            restoreLock.unlock();
+        }
+    }
+
+    /**
+     * Compares two versions of the chart.
+     *
+     * @param fromVersion A version, from {@link #getOldestVersion()} to the current one.
+     * @param toVersion   Another version, before or after {@code fromVersion}.
+     * @return The seats whose reservation state differs between the two versions, as a bitmask per
+     * row.
+     * @throws IllegalArgumentException If either version isn't in the history.
+     */
+    public long[] diff(long fromVersion, long toVersion) {
+        lock.lock();
+        try {
+            checkVersion(fromVersion);
+            checkVersion(toVersion);
+            return changesSince(Math.min(fromVersion, toVersion), Math.max(fromVersion, toVersion));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The earliest version that can be restored.
+     */
+    public long getOldestVersion() {
+        lock.lock();
+        try {
+            return oldestVersion;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of row changes kept.
+     */
+    public int getCapacity() {
+        return versions.length;
+    }
+
+    /**
+     * Stops recording the changes of the flight.
+     */
+    @Override
+    public void close() {
+        flightSeats.removeRowListener(listener);
+    }
+
+    private void record(int row, long seats, long rowMask, long version) {
+        if (seats == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            int slot = (int) (recorded & mask);
+            if (recorded > mask) {
+                oldestVersion = Math.max(oldestVersion, versions[slot]);
+            }
+            versions[slot] = version;
+            changedSeats[slot] = seats;
+            rowMasks[slot] = rowMask;
+            if (Thread.currentThread() == restoringThread) {
+                rows[slot] = ~row;
+            } else {
+                rows[slot] = row;
+                undoneVersion = Long.MAX_VALUE;
+            }
+            recorded++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Finds the version of the earliest of the latest `changes` changes made by commands, before
+    // the last undone one
+    private long findUndoable(int changes) {
+        for (long i = recorded - 1; i >= Math.max(0, recorded - versions.length); i--) {
+            int slot = (int) (i & mask);
+            if (rows[slot] >= 0 && versions[slot] < undoneVersion && versions[slot] > oldestVersion && --changes == 0) {
+                return versions[slot];
+            }
+        }
+        throw new IllegalArgumentException("Not enough changes left in the history");
+    }
+
+    // The seats flipped by the entries after `fromVersion`, up to `toVersion`, by row
+    private long[] changesSince(long fromVersion, long toVersion) {
+        long[] flips = new long[flightSeats.getRowLength()];
+        for (long i = Math.max(0, recorded - versions.length); i < recorded; i++) {
+            int slot = (int) (i & mask);
+            if (versions[slot] > fromVersion && versions[slot] <= toVersion) {
+                int row = rows[slot] < 0 ? ~rows[slot] : rows[slot];
+                flips[row] ^= changedSeats[slot];
+            }
+        }
+        return flips;
+    }
+
+    // For every row changed after `version`: the seats changed since, and the mask at `version`,
+    // which the first later change started from. Every change after the oldest version is still in
+    // the ring, whatever the order the changes were recorded in.
+    private void rowsAt(long version, long[] changed, long[] masks) {
+        long[] firstVersions = new long[changed.length];
+        for (long i = Math.max(0, recorded - versions.length); i < recorded; i++) {
+            int slot = (int) (i & mask);
+            if (versions[slot] > version) {
+                int row = rows[slot] < 0 ? ~rows[slot] : rows[slot];
+                if (changed[row] == 0 || versions[slot] < firstVersions[row]) {
+                    firstVersions[row] = versions[slot];
+                    masks[row] = rowMasks[slot] ^ changedSeats[slot];
+                }
+                changed[row] |= changedSeats[slot];
+            }
+        }
+    }
+
+    private void checkVersion(long version) {
+        if (version < oldestVersion || version > flightSeats.getVersion()) {
+            throw new IllegalArgumentException("Version not in the history: " + version);
+        }
+    }
+
+    // Sets seats of a row to their state in `target` under the manager's synchronization, leaving
+    // the held ones alone. Seats a command changed meanwhile are set as well, never inverted.
+    private void setSeats(int row, long seats, long target) {
+        manager.withRowLock(row, r -> {
+            while (true) {
+                long current = flightSeats.getRowMask(r);
+                long restored = seats & ~manager.getHeldMask(r);
+                long updated = (current & ~restored) | (target & restored);
+                if (updated == current || manager.commitRow(r, current, updated)) {
+                    return true;
+                }
+            }
+        });
+    }
+}
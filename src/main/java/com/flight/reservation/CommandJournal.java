@@ -0,0 +1,399 @@
+package com.flight.reservation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An append-only write-ahead journal of executed {@link Command}s.
+ * <p>
+ * Each record holds the command together with the reservation mask of its row right after
+ * it executed (24 bytes, little-endian):
+ * - flight ID (8 ASCII bytes, zero-padded; all zero for the default flight)
+ * - row (int), action ordinal, column and number of seats (one byte each), one unused byte; the
+ *   action is {@value #RESTORE_ACTION} for a row set back by a {@link CommandHistory} restore
+ * - row mask after the command (long), without held seats: holds live in memory only, so a hold,
+ *   its release and its expiry leave the persisted mask unchanged
+ * <p>
+ * Replay restores every row to the mask of its last record, which doesn't depend on the
+ * order in which concurrent commands were appended, as long as the mask is read after
+ * the command committed (see {@link #append}).
+ * <p>
+ * Durability uses group commit: {@link #append} only buffers a record, and
+ * {@link #awaitDurable} makes the caller wait until its record is on disk. The first waiter
+ * becomes the leader, writes everything buffered so far with a single {@code fsync}, and
+ * releases every caller whose record was part of that batch.
+ * <p>
+ * Waiting uses a {@link ReentrantLock} rather than a monitor so that callers on virtual
+ * threads don't pin their carrier thread.
+ */
+public class CommandJournal implements Closeable {
+    private final static int RECORD_SIZE = 24;
+    final static int RESTORE_ACTION = 0xFF;
+    private final static int INITIAL_BUFFER_SIZE = RECORD_SIZE * 1024;
+
+    private final FileChannel channel;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushDone = lock.newCondition();
+    private ByteBuffer pending = newBuffer(INITIAL_BUFFER_SIZE); // Records not yet handed to a flush
+    private ByteBuffer flushing = newBuffer(INITIAL_BUFFER_SIZE); // Records being written by the leader
+    private long appendedSequence; // Sequence number of the last appended record
+    private long durableSequence; // Sequence number of the last record on disk
+    private boolean flushInProgress;
+    private IOException failure; // Set once a flush failed; the journal is unusable from then on
+    private long recordCount; // Records in the file plus pending ones
+
+    private CommandJournal(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.recordCount = channel.size() / RECORD_SIZE;
+    }
+
+    /**
+     * Opens a journal file, creating it if it doesn't exist. New records are appended after
+     * the last complete record.
+     *
+     * @param fileName The name of the journal file.
+     * @return The opened journal.
+     * @throws RuntimeException If an I/O error occurs while opening the file.
+     */
+    public static CommandJournal open(String fileName) {
+        try {
+            FileChannel channel = FileChannel.open(Path.of(fileName),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // Drop a torn record left by a crash in the middle of a write
+            channel.truncate(channel.size() / RECORD_SIZE * RECORD_SIZE);
+            channel.position(channel.size());
+            return new CommandJournal(channel);
+        } catch (IOException e) {
+            throw new RuntimeException("Error opening journal: " + fileName, e);
+        }
+    }
+
+    /**
+     * Restores the flights of an inventory from the journal: every row found in the journal is set to
+     * the mask recorded by its last command. Flights are loaded the first time one of their records
+     * is replayed.
+     *
+     * @param inventory The inventory holding the latest snapshot of every flight.
+     * @return The number of records replayed.
+     * @throws RuntimeException If an I/O error occurs while reading the journal.
+     */
+    public long replay(FlightInventory inventory) {
+        return replay((flightId, row, mask) -> inventory.restoreRow(flightId, row, mask));
+    }
+
+    /**
+     * Restores the seating arrangement of the default flight from the journal: every row found in
+     * the journal is set to the mask recorded by its last command. Records of other flights are
+     * skipped.
+     *
+     * @param flightSeats The seating arrangement loaded from the latest snapshot.
+     * @return The number of records replayed.
+     * @throws RuntimeException If an I/O error occurs while reading the journal.
+     */
+    public long replay(FlightSeats flightSeats) {
+        return replay((flightId, row, mask) -> {
+            if (flightId.equals(Command.DEFAULT_FLIGHT_ID)) {
+                flightSeats.setRowMask(row, mask);
+            }
+        });
+    }
+
+    private long replay(RowRestorer restorer) {
+        lock.lock();
+        try {
+            long replayed = 0;
+            ByteBuffer buffer = newBuffer(INITIAL_BUFFER_SIZE);
+            byte[] flightId = new byte[Command.MAX_FLIGHT_ID_LENGTH];
+            long position = 0;
+            long end = channel.size();
+            while (position < end) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                buffer.flip();
+                buffer.limit(buffer.limit() / RECORD_SIZE * RECORD_SIZE);
+                while (buffer.hasRemaining()) {
+                    buffer.get(flightId);
+                    int row = buffer.getInt();
+                    buffer.getInt(); // action, column, seats: kept for auditing only
+                    restorer.restore(decodeFlightId(flightId), row, buffer.getLong());
+                    replayed++;
+                }
+                position += read / RECORD_SIZE * RECORD_SIZE;
+            }
+            return replayed;
+        } catch (IOException e) {
+            throw new RuntimeException("Error replaying journal", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Buffers a record for an executed command. The record is not durable until
+     * {@link #awaitDurable} returns for the returned sequence number.
+     * <p>
+     * Call this after the command committed: the row mask is read here, under the journal's
+     * lock, so a record appended later for the same row never holds an older mask.
+     *
+     * @param command     The executed command.
+     * @param flightSeats The seating arrangement the command was executed on.
+     * @return The sequence number of the record.
+     */
+    public long append(Command command, FlightSeats flightSeats) {
+        return append(command, command.getRowNumber(), flightSeats);
+    }
+
+    /**
+     * Buffers a record for an executed command that changed the given row, e.g. the row a
+     * {@link Action#PLACE} command found room in.
+     *
+     * @param command     The executed command.
+     * @param row         The row the command changed.
+     * @param flightSeats The seating arrangement the command was executed on.
+     * @return The sequence number of the record.
+     * @see #append(Command, FlightSeats)
+     */
+    public long append(Command command, int row, FlightSeats flightSeats) {
+        return append(command.getFlightId(), row, command.getAction().ordinal(), command.getColumnNumber(),
+                command.getConsecutiveSeats(), flightSeats);
+    }
+
+    /**
+     * Buffers a record for a row set back by a {@link CommandHistory} restore, e.g. an UNDO. Like
+     * for a command, call this once the row was changed.
+     *
+     * @param flightId    The flight ID.
+     * @param row         The row the restore changed.
+     * @param flightSeats The seating arrangement of the flight.
+     * @return The sequence number of the record.
+     */
+    public long appendRestore(String flightId, int row, FlightSeats flightSeats) {
+        return append(flightId, row, RESTORE_ACTION, 0, 0, flightSeats);
+    }
+
+    private long append(String flightId, int row, int action, int col, int seats, FlightSeats flightSeats) {
+        lock.lock();
+        try {
+            checkNotFailed();
+            if (pending.remaining() < RECORD_SIZE) {
+                pending = newBuffer(pending.capacity() * 2).put(pending.flip());
+            }
+            putFlightId(flightId);
+            pending.putInt(row)
+                    .put((byte) action)
+                    .put((byte) col)
+                    .put((byte) seats)
+                    .put((byte) 0)
+                    .putLong(flightSeats.getDurableRowMask(row));
+            recordCount++;
+            return ++appendedSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until the record with the given sequence number is written and synced to disk.
+     * Concurrent callers share a single {@code fsync}.
+     *
+     * @param sequence The sequence number returned by {@link #append}.
+     * @throws RuntimeException If an I/O error occurs while writing the journal.
+     */
+    public void awaitDurable(long sequence) {
+        lock.lock();
+        try {
+            while (durableSequence < sequence) {
+                checkNotFailed();
+                if (!flushInProgress) {
+                    break; // Become the leader of the next batch
+                }
+                waitForFlush();
+            }
+            if (durableSequence >= sequence) return;
+            flushInProgress = true;
+        } finally {
+            lock.unlock();
+        }
+        flushBatch();
+    }
+
+    /**
+     * Writes every buffered record and syncs the journal.
+     */
+    public void flush() {
+        long sequence;
+        lock.lock();
+        try {
+            sequence = appendedSequence;
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(sequence);
+    }
+
+    /**
+     * @return The number of records in the journal, including buffered ones.
+     */
+    public long size() {
+        lock.lock();
+        try {
+            return recordCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Compacts the journal into a snapshot: saves the rows of the seating arrangement changed since
+     * its last save to the store, syncs it, and empties the journal.
+     * <p>
+     * Commands appended after the snapshot was taken are kept, so replaying the snapshot and the
+     * remaining journal restores the latest state.
+     *
+     * @param flightSeats The live seating arrangement.
+     * @param store       The snapshot store.
+     * @throws RuntimeException If an I/O error occurs.
+     */
+    public void compact(FlightSeats flightSeats, MappedSeatStore store) {
+        compact(() -> {
+            store.saveDirtyRows(flightSeats);
+            store.force();
+        });
+    }
+
+    /**
+     * Compacts the journal into snapshots: saves every flight of the inventory changed since its last
+     * snapshot, and empties the journal.
+     * <p>
+     * Commands appended after the snapshots were taken are kept, so replaying the snapshots and the
+     * remaining journal restores the latest state.
+     *
+     * @param inventory The inventory holding the live flights.
+     * @throws RuntimeException If an I/O error occurs.
+     */
+    public void compact(FlightInventory inventory) {
+        compact(inventory::saveDirty);
+    }
+
+    private void compact(Runnable snapshot) {
+        flush();
+        lock.lock();
+        try {
+            while (flushInProgress) {
+                waitForFlush();
+            }
+            checkNotFailed();
+            // Buffered records stay and are written after the truncation. If the snapshot holds a
+            // newer mask for their row, the command that produced it appends a later record.
+            snapshot.run();
+            try {
+                channel.truncate(0);
+                channel.position(0);
+                channel.force(true);
+            } catch (IOException e) {
+                throw new RuntimeException("Error compacting journal", e);
+            }
+            recordCount = pending.position() / RECORD_SIZE;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flushes buffered records and closes the journal.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    private void flushBatch() {
+        long batchEnd;
+        ByteBuffer batch;
+        lock.lock();
+        try {
+            // Swap buffers so appenders can keep going while this batch is written
+            batch = pending;
+            pending = flushing.clear();
+            flushing = batch;
+            batchEnd = appendedSequence;
+        } finally {
+            lock.unlock();
+        }
+        IOException error = null;
+        try {
+            batch.flip();
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            error = e;
+        }
+        lock.lock();
+        try {
+            if (error == null) {
+                durableSequence = batchEnd;
+            } else {
+                failure = error;
+            }
+            flushInProgress = false;
+            flushDone.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (error != null) {
+            throw new RuntimeException("Error writing journal", error);
+        }
+    }
+
+    private void checkNotFailed() {
+        if (failure != null) {
+            throw new RuntimeException("Journal is unusable after a failed write", failure);
+        }
+    }
+
+    private void waitForFlush() {
+        try {
+            flushDone.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the journal", e);
+        }
+    }
+
+    private void putFlightId(String flightId) {
+        for (int i = 0; i < Command.MAX_FLIGHT_ID_LENGTH; i++) {
+            pending.put(i < flightId.length() ? (byte) flightId.charAt(i) : 0);
+        }
+    }
+
+    private static String decodeFlightId(byte[] flightId) {
+        int length = 0;
+        while (length < flightId.length && flightId[length] != 0) {
+            length++;
+        }
+        return length == 0 ? Command.DEFAULT_FLIGHT_ID : new String(flightId, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    private static ByteBuffer newBuffer(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Receives the row masks read during a replay.
+     */
+    @FunctionalInterface
+    private interface RowRestorer {
+        void restore(String flightId, int row, long mask);
+    }
+}
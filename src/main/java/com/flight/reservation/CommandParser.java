@@ -6,27 +6,49 @@ package com.flight.reservation;
  * It ensures that actions, seat positions, and seat counts are correctly formatted before creating a command.
  */
 public class CommandParser {
+    final static String REQUEST_ID_PREFIX = "REQ="; // Marks the optional request ID, e.g. "REQ=42"
 
     /**
      * Parses a string array of arguments into a {@link Command} object.
+     * <p>
+     * Accepts either {@code <ACTION> <SEAT_POSITION> <CONSECUTIVE_SEATS>} for the default flight, or
+     * {@code <ACTION> <FLIGHT_ID> <SEAT_POSITION> <CONSECUTIVE_SEATS>}, e.g. "BOOK UA100 A1 2".
+     * {@code PLACE} takes no seat position, e.g. "PLACE UA100 4". Either may end with the
+     * {@linkplain Command#getRequestId() request ID} of a request the client may retry, e.g.
+     * "BOOK UA100 A1 2 REQ=42".
      *
-     * @param args A string array containing the action, seat position, and number of consecutive seats.
+     * @param args A string array containing the action, optional flight ID, seat position, and number of
+     *             consecutive seats, and optional request ID.
      * @return A {@link Command} object representing the parsed input.
      * @throws IllegalArgumentException If the number of arguments is incorrect.
      */
     public static Command parse(String[] args) {
-        if (args.length != 3) {
-            throw new IllegalArgumentException("The number of input arguments isn't equal to 3.");
+        if (args.length == 0) {
+            throw new IllegalArgumentException("The number of input arguments isn't equal to 3 or 4.");
         }
 
-        Action action = parseAction(args[0]);
-        int[] position = parsePosition(args[1]);
-        int consecutiveNumber = parseConsecutiveNumber(args[2]);
+        int next = 0;
+        Action action = parseAction(args[next++]);
+        int positionArgs = action.targetsRow() ? 1 : 0;
+        int length = args[args.length - 1].startsWith(REQUEST_ID_PREFIX) ? args.length - 1 : args.length;
+        if (length != 2 + positionArgs && length != 3 + positionArgs) {
+            throw new IllegalArgumentException("The number of input arguments isn't equal to "
+                    + (2 + positionArgs) + " or " + (3 + positionArgs) + ".");
+        }
+        Command.Builder builder = new Command.Builder().setAction(action);
+        if (length < args.length) {
+            builder.setRequestId(parseRequestId(args[length]));
+        }
+        if (length == 3 + positionArgs) {
+            builder.setFlightId(args[next++]);
+        }
+        if (action.targetsRow()) {
+            int[] position = parsePosition(args[next++]);
+            builder.setRowNumber(position[0]).setColumnNumber(position[1]);
+        }
+        int consecutiveNumber = parseConsecutiveNumber(args[next]);
 
-        return new Command.Builder()
-                .setAction(action)
-                .setRowNumber(position[0])
-                .setColumnNumber(position[1])
+        return builder
                 .setConsecutiveSeats(consecutiveNumber)
                 .build();
     }
@@ -36,22 +58,59 @@ public class CommandParser {
             return Action.BOOK;
         } else if (actionName.equals("CANCEL")) {
             return Action.CANCEL;
+        } else if (actionName.equals("PLACE")) {
+            return Action.PLACE;
+        } else if (actionName.equals("HOLD")) {
+            return Action.HOLD;
+        } else if (actionName.equals("CONFIRM")) {
+            return Action.CONFIRM;
+        } else if (actionName.equals("RELEASE")) {
+            return Action.RELEASE;
         } else {
             throw new IllegalArgumentException("Invalid action name: " + actionName);
         }
     }
 
+    // A position is a row name of one or two letters (A to Z, then AA to ZZ) followed by a column
+    // number of one or two digits, e.g. "A1" or "BH12"
     private static int[] parsePosition(String position) {
-        if (position.length() != 2) {
+        int letters = 0;
+        while (letters < position.length() && isRowLetter(position.charAt(letters))) {
+            letters++;
+        }
+        int digits = position.length() - letters;
+        if (letters < 1 || letters > 2 || digits < 1 || digits > 2) {
             throw new IllegalArgumentException("Invalid position format: " + position);
         }
 
-        int row = position.charAt(0) - 'A'; // Converts row letter to index (A -> 0, B -> 1, etc.)
-        int col = position.charAt(1) - '0'; // Converts column character to integer
+        int row = position.charAt(0) - 'A'; // Converts row letters to index (A -> 0, ..., AA -> 26, etc.)
+        if (letters == 2) {
+            row = 26 + row * 26 + (position.charAt(1) - 'A');
+        }
+        int col = 0;
+        for (int i = letters; i < position.length(); i++) {
+            char digit = position.charAt(i);
+            if (digit < '0' || digit > '9') {
+                throw new IllegalArgumentException("Invalid position format: " + position);
+            }
+            col = col * 10 + (digit - '0'); // Converts column characters to integer
+        }
 
         return new int[]{row, col};
     }
 
+    private static boolean isRowLetter(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    private static long parseRequestId(String requestId) {
+        try {
+            return Long.parseLong(requestId.substring(REQUEST_ID_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid request ID: " + requestId);
+        }
+    }
+
     private static int parseConsecutiveNumber(String consecutiveNumber) {
         try {
             return Integer.parseInt(consecutiveNumber);
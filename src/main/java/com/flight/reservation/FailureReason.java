@@ -0,0 +1,13 @@
+package com.flight.reservation;
+
+/**
+ * Enum of the reasons a reservation command can fail.
+ */
+public enum FailureReason {
+    SEATS_TAKEN,        // BOOK: the row has no room for the party
+    SEATS_NOT_RESERVED, // CANCEL: some of the seats aren't reserved
+    NO_ROOM,            // PLACE: no row has enough adjacent free seats
+    SEATS_NOT_HELD,     // CONFIRM, RELEASE: some of the seats aren't held
+    INVALID_SEATS,      // The seats don't exist in the cabin of the flight
+    TIMEOUT             // The locks of the seats couldn't be acquired in time
+}
@@ -46,7 +46,7 @@ public class FileManager {
 
     private String createRowRepresentation(FlightSeats flightSeats, int row) {
         return IntStream.range(0, flightSeats.getColLength())
-                .mapToObj(col -> flightSeats.getSeat(row, col).isReserved() ? RESERVED_SYMBOL : EMPTY_SYMBOL)
+                .mapToObj(col -> flightSeats.isReserved(row, col) ? RESERVED_SYMBOL : EMPTY_SYMBOL)
                 .collect(Collectors.joining(DELIMITER));
     }
 
@@ -0,0 +1,213 @@
+package com.flight.reservation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the seating arrangements and reservation managers of many flights, keyed by flight ID.
+ * <p>
+ * Every flight has its own {@link FlightSeats} and {@link AbstractReservationManager}, so commands
+ * on different flights never share a lock. A flight is loaded from the {@link FlightStore} the first
+ * time a command touches it. Every {@link FlightSeats} tracks the rows changed since its last save,
+ * so a snapshot only writes the changed rows of the changed flights.
+ * <p>
+ * An inventory built with a history capacity also keeps a {@link CommandHistory} per flight, from
+ * the time the flight is loaded, so the latest changes of a flight can be undone or an earlier
+ * version restored.
+ */
+public class FlightInventory {
+    private final FlightStore flightStore;
+    private final ReservationStrategy strategy;
+    private final int historyCapacity; // 0 when no history is kept
+    private final ConcurrentHashMap<String, Flight> flights = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an inventory that keeps no history of the flights.
+     *
+     * @param flightStore The store flights are loaded from and saved to.
+     * @param strategy    The reservation strategy used for every flight.
+     */
+    public FlightInventory(FlightStore flightStore, ReservationStrategy strategy) {
+        this(flightStore, strategy, 0);
+    }
+
+    /**
+     * @param flightStore     The store flights are loaded from and saved to.
+     * @param strategy        The reservation strategy used for every flight.
+     * @param historyCapacity The number of row changes the {@link CommandHistory} of each flight
+     *                        keeps, or 0 to keep no history.
+     * @throws IllegalArgumentException If {@code historyCapacity} is negative or exceeds 2^30.
+     */
+    public FlightInventory(FlightStore flightStore, ReservationStrategy strategy, int historyCapacity) {
+        if (historyCapacity < 0 || historyCapacity > 1 << 30) {
+            throw new IllegalArgumentException("History capacity must be in the range of [0, 2^30]: " + historyCapacity);
+        }
+        this.flightStore = flightStore;
+        this.strategy = strategy;
+        this.historyCapacity = historyCapacity;
+    }
+
+    /**
+     * Executes a command on the flight it targets, loading the flight first if needed.
+     *
+     * @param command The command to execute.
+     * @return true if the operation succeeds, false otherwise.
+     */
+    public boolean execute(Command command) {
+        return executeInRow(command) >= 0;
+    }
+
+    /**
+     * Executes a command on the flight it targets and tells which row it changed, e.g. to journal it.
+     * A {@link Action#PLACE} command changes the row it found room in.
+     *
+     * @param command The command to execute.
+     * @return The row the command changed, or -1 if it failed.
+     */
+    public int executeInRow(Command command) {
+        return getFlight(command.getFlightId()).reservationManager.executeInRow(command);
+    }
+
+    /**
+     * Executes a batch of commands, possibly on different flights. Each flight receives its commands
+     * as one {@link AbstractReservationManager#executeAll} batch.
+     *
+     * @param commands The commands to execute.
+     * @return The result of every command, in input order.
+     */
+    public boolean[] executeAll(List<Command> commands) {
+        boolean[] results = new boolean[commands.size()];
+        Map<String, List<Integer>> indicesByFlight = new LinkedHashMap<>();
+        for (int i = 0; i < commands.size(); i++) {
+            indicesByFlight.computeIfAbsent(commands.get(i).getFlightId(), id -> new ArrayList<>()).add(i);
+        }
+        indicesByFlight.forEach((flightId, indices) -> {
+            Flight flight = getFlight(flightId);
+            List<Command> flightCommands = new ArrayList<>(indices.size());
+            for (int index : indices) {
+                flightCommands.add(commands.get(index));
+            }
+            boolean[] flightResults = flight.reservationManager.executeAll(flightCommands);
+            for (int i = 0; i < flightResults.length; i++) {
+                results[indices.get(i)] = flightResults[i];
+            }
+        });
+        return results;
+    }
+
+    /**
+     * Gets the seating arrangement of a flight, loading the flight first if needed.
+     *
+     * @param flightId The flight ID.
+     * @return The seating arrangement of the flight.
+     */
+    public FlightSeats getFlightSeats(String flightId) {
+        return getFlight(flightId).flightSeats;
+    }
+
+    /**
+     * Gets the reservation manager of a flight, loading the flight first if needed.
+     *
+     * @param flightId The flight ID.
+     * @return The reservation manager of the flight.
+     */
+    public AbstractReservationManager getReservationManager(String flightId) {
+        return getFlight(flightId).reservationManager;
+    }
+
+    /**
+     * Undoes the latest changes made by commands to a flight.
+     *
+     * @param flightId The flight ID.
+     * @param changes  The number of changes to undo.
+     * @return The seats set back, as a bitmask per row.
+     * @throws IllegalArgumentException If {@code changes} isn't positive, or fewer changes are left
+     *                                  in the history of the flight.
+     * @throws IllegalStateException    If the inventory keeps no history.
+     * @see CommandHistory#undo
+     */
+    public long[] undo(String flightId, int changes) {
+        return getHistory(flightId).undo(changes);
+    }
+
+    /**
+     * Brings every row of a flight back to its state at an earlier version.
+     *
+     * @param flightId The flight ID.
+     * @param version  The {@link FlightSeats#getVersion() version} to restore.
+     * @return The seats changed since the version, as a bitmask per row.
+     * @throws IllegalArgumentException If the version isn't in the history of the flight.
+     * @throws IllegalStateException    If the inventory keeps no history.
+     * @see CommandHistory#restore
+     */
+    public long[] restore(String flightId, long version) {
+        return getHistory(flightId).restore(version);
+    }
+
+    /**
+     * Sets the reservation mask of a row of a flight, e.g. when replaying a journal. The row is saved
+     * by the next snapshot.
+     *
+     * @param flightId The flight ID.
+     * @param row      The row number.
+     * @param mask     The reservation bitmask of the row.
+     */
+    void restoreRow(String flightId, int row, long mask) {
+        Flight flight = getFlight(flightId);
+        flight.flightSeats.setRowMask(row, mask);
+    }
+
+    /**
+     * Saves the rows of every flight changed since the last call. A row changed many times in
+     * between is written once.
+     */
+    public void saveDirty() {
+        flights.forEach((flightId, flight) -> {
+            if (flight.flightSeats.isDirty()) {
+                flightStore.save(flightId, flight.flightSeats);
+            }
+        });
+    }
+
+    /**
+     * @return The number of flights loaded in memory.
+     */
+    public int size() {
+        return flights.size();
+    }
+
+    private Flight getFlight(String flightId) {
+        Flight flight = flights.get(flightId);
+        if (flight == null) {
+            // Only flights hashing to the same bin wait while a flight is loaded
+            flight = flights.computeIfAbsent(flightId, id -> new Flight(flightStore.load(id), strategy, historyCapacity));
+        }
+        return flight;
+    }
+
+    private CommandHistory getHistory(String flightId) {
+        CommandHistory history = getFlight(flightId).history;
+        if (history == null) {
+            throw new IllegalStateException("No history is kept for the flights");
+        }
+        return history;
+    }
+
+    /**
+     * The in-memory state of one flight.
+     */
+    private static class Flight {
+        private final FlightSeats flightSeats;
+        private final AbstractReservationManager reservationManager;
+        private final CommandHistory history; // Null when no history is kept
+
+        private Flight(FlightSeats flightSeats, ReservationStrategy strategy, int historyCapacity) {
+            this.flightSeats = flightSeats;
+            this.reservationManager = strategy.create(flightSeats);
+            this.history = historyCapacity == 0 ? null : new CommandHistory(reservationManager, historyCapacity);
+        }
+    }
+}
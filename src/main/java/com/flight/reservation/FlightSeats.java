@@ -1,37 +1,92 @@
 package com.flight.reservation;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntToLongFunction;
+
 /**
  * Represents the entire seating chart of a flight.
  * <p>
- * This class manages the seating arrangement using a 2D array of {@link Seat} objects.
- * It provides methods to:
+ * This class manages the seating arrangement as one {@code long} bitmask per row, where bit
+ * {@code col} is set when the seat at that column is reserved. It provides methods to:
  * - Retrieve individual seats.
+ * - Read and update the reservation mask of a row.
  * - Get the number of rows and columns.
  * - Validate seat positions.
+ * - Find a row that can seat a party together, through a {@link FreeBlockIndex} kept up to date
+ *   on every change of a row mask.
+ * <p>
+ * Row masks are read with acquire and written with release semantics, and can be updated with
+ * {@link #compareAndSetRowMask}, so lock-free managers can share the same chart.
+ * <p>
+ * Every change of a row mask increments the {@link #getVersion() version} of the chart. Seat-map
+ * readers copy the chart into an immutable {@link SeatMapSnapshot} without locking out writers,
+ * and the latest snapshot is cached until the next change.
+ * <p>
+ * Each seat also has fixed {@link SeatAttributes} (cabin class, position, price tier), stored as
+ * masks per row next to the reservation masks, so filtered availability queries combine masks.
  * <p>
- * The default seating configuration has 20 rows and 8 columns.
+ * Changed rows are also marked dirty until a {@link MappedSeatStore} saves them, so persisting the
+ * chart only writes the rows changed since the last save, however often each one changed.
+ * <p>
+ * The dimensions come from a {@link CabinLayout}; the default seating configuration has 20 rows
+ * and 8 columns. A row can hold at most {@value #MAX_COL_LENGTH} columns.
  */
 public class FlightSeats {
-    private final static int DEFAULT_ROW_LENGTH = 20; // Default number of rows
-    private final static int DEFAULT_COL_LENGTH = 8;  // Default number of columns
-    private final Seat[][] seats; // 2D array to hold the seat objects
+    public final static int MAX_COL_LENGTH = Long.SIZE; // One bit per seat in a single long
+    private final static VarHandle ROWS = MethodHandles.arrayElementVarHandle(long[].class);
+    private final static int SNAPSHOT_SPINS = 4; // Copies retried at once before yielding
+    private final long[] rows; // Reservation bitmask of each row
+    private final int colLength;
+    private final CabinLayout layout;
+    private final FreeBlockIndex freeBlocks;
+    private final long[] dirtyRows; // Bit `row % 64` of word `row / 64` set when the row changed since saved
+    private final AtomicLong version = new AtomicLong(); // Incremented after every change of a row mask
+    private volatile SeatAttributes attributes;
+    private volatile RowListener[] rowListeners = new RowListener[0]; // Copied on every change
+    private volatile SeatMapSnapshot snapshot; // The latest snapshot, reused until the version changes
+    private volatile IntToLongFunction durableRowMasks; // Leaves out seats that live in memory only
 
     /**
      * Default constructor that initializes the flight seating arrangement with default values.
      */
     public FlightSeats() {
-        seats = new Seat[DEFAULT_ROW_LENGTH][DEFAULT_COL_LENGTH];
-        for (int i = 0; i < DEFAULT_ROW_LENGTH; i++) {
-            for (int j = 0; j < DEFAULT_COL_LENGTH; j++) {
-                seats[i][j] = new Seat(); // Initialize each seat in the array
-            }
-        }
+        this(CabinLayout.DEFAULT);
+    }
+
+    /**
+     * Constructor that initializes an empty seating arrangement with the given dimensions.
+     *
+     * @param rowLength The number of rows.
+     * @param colLength The number of columns in each row.
+     * @throws IllegalArgumentException If the dimensions are invalid.
+     */
+    public FlightSeats(int rowLength, int colLength) {
+        this(new CabinLayout(rowLength, colLength));
+    }
+
+    /**
+     * Constructor that initializes an empty seating arrangement with the given cabin layout.
+     *
+     * @param layout The dimensions of the cabin.
+     */
+    public FlightSeats(CabinLayout layout) {
+        this.layout = layout;
+        this.rows = new long[layout.getRowLength()];
+        this.colLength = layout.getColLength();
+        this.freeBlocks = new FreeBlockIndex(rows.length, colLength);
+        this.dirtyRows = new long[(rows.length + Long.SIZE - 1) / Long.SIZE];
+        this.attributes = SeatAttributes.defaults(layout);
     }
 
     /**
      * Constructor that initializes the flight seating arrangement from an existing 2D array of {@link Seat} objects.
      * <p>
      * This constructor allows creating a seating arrangement from a provided 2D array of seats.
+     * Every row is dirty, since none of them was saved yet: saving the chart over an existing
+     * seating file writes all of them.
      *
      * @param inputSeats A 2D array of {@link Seat} objects representing the seating arrangement.
      * @throws IllegalArgumentException If the input array is invalid.
@@ -41,7 +96,6 @@ public class FlightSeats {
             throw new IllegalArgumentException("Input seats array cannot be null or empty.");
         }
 
-        int rows = inputSeats.length;
         int cols = inputSeats[0].length;
 
         // Validate uniform column sizes for all rows
@@ -50,18 +104,33 @@ public class FlightSeats {
                 throw new IllegalArgumentException("All rows in the input must have the same number of columns.");
             }
         }
+        if (cols == 0 || cols > MAX_COL_LENGTH) {
+            throw new IllegalArgumentException("Number of columns must be in the range of [1, " + MAX_COL_LENGTH + "]");
+        }
+        this.layout = new CabinLayout(inputSeats.length, cols);
 
-        // Deep copy the input seats array
-        seats = new Seat[rows][cols];
-        for (int i = 0; i < rows; i++) {
+        // Pack the seat states into row masks
+        this.rows = new long[inputSeats.length];
+        this.colLength = cols;
+        this.freeBlocks = new FreeBlockIndex(rows.length, cols);
+        this.dirtyRows = new long[(rows.length + Long.SIZE - 1) / Long.SIZE];
+        this.attributes = SeatAttributes.defaults(layout);
+        for (int i = 0; i < rows.length; i++) {
             for (int j = 0; j < cols; j++) {
-                seats[i][j] = new Seat(inputSeats[i][j]); // Create a new Seat instance
+                if (inputSeats[i][j].isReserved()) {
+                    rows[i] |= 1L << j;
+                }
             }
+            freeBlocks.update(i, rows[i]);
+            dirtyRows[i / Long.SIZE] |= 1L << i;
         }
     }
 
     /**
      * Retrieves the seat at the specified row and column.
+     * <p>
+     * The returned {@link Seat} is a view backed by this seating chart: reserving or canceling
+     * it updates the chart.
      *
      * @param row The row number of the seat.
      * @param col The column number of the seat.
@@ -70,19 +139,399 @@ public class FlightSeats {
      */
     public Seat getSeat(int row, int col) {
         if (isValidSeat(row, col)) {
-            return seats[row][col];
+            return new SeatView(row, col);
         } else {
             throw new IllegalArgumentException("Invalid seat selection.");
         }
     }
 
+    /**
+     * Checks whether the seat at the specified row and column is reserved.
+     *
+     * @param row The row number of the seat.
+     * @param col The column number of the seat.
+     * @return true if the seat is reserved, false otherwise.
+     * @throws IllegalArgumentException If the specified seat coordinates are invalid.
+     */
+    public boolean isReserved(int row, int col) {
+        if (!isValidSeat(row, col)) {
+            throw new IllegalArgumentException("Invalid seat selection.");
+        }
+        return (getRowMask(row) & (1L << col)) != 0;
+    }
+
+    /**
+     * Gets the reservation bitmask of a row. Bit {@code col} is set when that seat is reserved.
+     *
+     * @param row The row number.
+     * @return The reservation bitmask of the row.
+     */
+    public long getRowMask(int row) {
+        return (long) ROWS.getAcquire(rows, row);
+    }
+
+    /**
+     * Gets the reservation bitmask of a row as snapshots and the journal persist it: without the
+     * seats a reservation manager only holds, since holds live in memory and end with the process.
+     *
+     * @param row The row number.
+     * @return The reservation bitmask of the row, without held seats.
+     */
+    public long getDurableRowMask(int row) {
+        IntToLongFunction durable = durableRowMasks;
+        return durable == null ? getRowMask(row) : durable.applyAsLong(row);
+    }
+
+    /**
+     * Sets how {@link #getDurableRowMask} reads a row, e.g. leaving out held seats.
+     *
+     * @param durableRowMasks The durable mask of a row.
+     */
+    void setDurableRowMasks(IntToLongFunction durableRowMasks) {
+        this.durableRowMasks = durableRowMasks;
+    }
+
+    /**
+     * Replaces the reservation bitmask of a row.
+     *
+     * @param row  The row number.
+     * @param mask The new reservation bitmask; bits beyond the last column are ignored.
+     */
+    void setRowMask(int row, long mask) {
+        mask &= getFullRowMask();
+        long before = getRowMask(row); // Callers serialize the writers of the row
+        ROWS.setRelease(rows, row, mask);
+        refreshIndex(row, before, mask);
+    }
+
+    /**
+     * Atomically replaces the reservation bitmask of a row if it still equals {@code expected}.
+     *
+     * @param row      The row number.
+     * @param expected The mask the row is expected to hold.
+     * @param mask     The new reservation bitmask; bits beyond the last column are ignored.
+     * @return true if the row was updated, false if another update got there first.
+     */
+    boolean compareAndSetRowMask(int row, long expected, long mask) {
+        mask &= getFullRowMask();
+        if (!ROWS.compareAndSet(rows, row, expected, mask)) {
+            return false;
+        }
+        refreshIndex(row, expected, mask);
+        return true;
+    }
+
+    /**
+     * Gets the version of the chart: the number of row mask changes so far.
+     *
+     * @return The version.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Gets an immutable copy of the reservation state, without blocking writers.
+     * <p>
+     * The rows are copied between two reads of the version, and copied again until no change was
+     * counted in between, so the copy is always a consistent cut of the chart. It contains at least
+     * the changes counted in its version, so a later {@link #getSnapshotIfChanged} never misses one.
+     * Under constant writes the reader yields between attempts rather than spinning.
+     *
+     * @return The snapshot, shared by every reader until the chart changes.
+     */
+    public SeatMapSnapshot getSnapshot() {
+        SeatMapSnapshot cached = snapshot;
+        long before = version.get();
+        if (cached != null && cached.getVersion() == before) {
+            return cached;
+        }
+        long[] copy = new long[rows.length];
+        for (int attempt = 1; ; attempt++) {
+            for (int row = 0; row < copy.length; row++) {
+                copy[row] = getRowMask(row);
+            }
+            long after = version.get();
+            if (after == before) break;
+            before = after;
+            if (attempt >= SNAPSHOT_SPINS) {
+                Thread.yield(); // Let the writers finish a burst instead of racing them
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+        SeatMapSnapshot taken = new SeatMapSnapshot(before, layout, copy);
+        if (cached == null || cached.getVersion() < before) {
+            snapshot = taken; // A racing reader may overwrite it with an equally valid one
+        }
+        return taken;
+    }
+
+    /**
+     * Gets a snapshot only if the chart changed since a client's snapshot.
+     *
+     * @param sinceVersion The version of the snapshot the client holds.
+     * @return A new snapshot, or null if the chart is unchanged since {@code sinceVersion}.
+     */
+    public SeatMapSnapshot getSnapshotIfChanged(long sinceVersion) {
+        return version.get() == sinceVersion ? null : getSnapshot();
+    }
+
+    /**
+     * Tells whether any row changed since it was last saved.
+     *
+     * @return true if some rows are dirty.
+     */
+    public boolean isDirty() {
+        for (int word = 0; word < dirtyRows.length; word++) {
+            if ((long) ROWS.getAcquire(dirtyRows, word) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of words of the dirty-row bitset, i.e. {@code ceil(rows / 64)}.
+     *
+     * @return The number of words.
+     */
+    int getDirtyWordCount() {
+        return dirtyRows.length;
+    }
+
+    /**
+     * Clears and returns the dirty rows of one word of the dirty-row bitset. A row that changes
+     * afterwards is marked dirty again, so the caller reads the row masks after taking them.
+     *
+     * @param word The index of the word, covering rows {@code word * 64} to {@code word * 64 + 63}.
+     * @return The rows that were dirty: bit {@code i} for row {@code word * 64 + i}.
+     */
+    long takeDirtyRows(int word) {
+        return (long) ROWS.getAndSet(dirtyRows, word, 0L);
+    }
+
+    /**
+     * Marks rows as dirty again, e.g. when saving them failed.
+     *
+     * @param word The index of the word of the dirty-row bitset.
+     * @param rows The rows to mark: bit {@code i} for row {@code word * 64 + i}.
+     */
+    void markDirtyRows(int word, long rows) {
+        ROWS.getAndBitwiseOr(dirtyRows, word, rows);
+    }
+
+    /**
+     * Registers a listener told about every change of a row mask.
+     *
+     * @param listener The listener.
+     */
+    synchronized void addRowListener(RowListener listener) {
+        RowListener[] listeners = Arrays.copyOf(rowListeners, rowListeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+        rowListeners = listeners;
+    }
+
+    /**
+     * @param listener A listener registered with {@link #addRowListener}.
+     */
+    synchronized void removeRowListener(RowListener listener) {
+        rowListeners = Arrays.stream(rowListeners).filter(l -> l != listener).toArray(RowListener[]::new);
+    }
+
+    /**
+     * Gets the mask with one bit set for every column of a row.
+     *
+     * @return The mask covering all columns.
+     */
+    public long getFullRowMask() {
+        return colLength == Long.SIZE ? -1L : (1L << colLength) - 1;
+    }
+
+    /**
+     * Gets the number of available seats in a row.
+     *
+     * @param row The row number.
+     * @return The number of seats that are not reserved.
+     */
+    public int getAvailableCount(int row) {
+        return colLength - Long.bitCount(getRowMask(row));
+    }
+
+    /**
+     * Gets the size of the largest block of adjacent free seats in a row.
+     *
+     * @param row The row number.
+     * @return The number of seats of the largest free block.
+     */
+    public int getLongestFreeBlock(int row) {
+        return FreeBlockIndex.longestFreeBlock(~getRowMask(row) & getSellableMask(row));
+    }
+
+    /**
+     * @return The attributes of the seats.
+     */
+    public SeatAttributes getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * Replaces the attributes of the seats, e.g. to block a seat. Reservations are kept, including
+     * those of seats blocked now; the free-block index stops offering newly blocked seats. Rows
+     * whose blocked seats changed are marked dirty, so the next save persists them.
+     *
+     * @param attributes The new attributes.
+     * @throws IllegalArgumentException If the attributes are for another cabin layout.
+     */
+    public void setAttributes(SeatAttributes attributes) {
+        if (attributes.getLayout().getRowLength() != rows.length || attributes.getLayout().getColLength() != colLength) {
+            throw new IllegalArgumentException("Seat attributes don't match the cabin layout.");
+        }
+        SeatAttributes before = this.attributes;
+        this.attributes = attributes;
+        for (int row = 0; row < rows.length; row++) {
+            reindex(row, getRowMask(row));
+            if (before.getBlockedMask(row) != attributes.getBlockedMask(row)) {
+                markDirtyRows(row / Long.SIZE, 1L << row);
+            }
+        }
+    }
+
+    /**
+     * Gets the seats of a row that can be reserved: every seat but the {@link SeatAttributes#getBlockedMask
+     * blocked} ones, whether they are reserved or not.
+     *
+     * @param row The row number.
+     * @return The bitmask of the sellable seats.
+     */
+    public long getSellableMask(int row) {
+        return getFullRowMask() & ~attributes.getBlockedMask(row);
+    }
+
+    /**
+     * Gets the free seats of a row that a filter accepts.
+     *
+     * @param row    The row number.
+     * @param filter The filter.
+     * @return The bitmask of the free, accepted seats.
+     */
+    public long getAvailableMask(int row, SeatFilter filter) {
+        return attributes.getEligibleMask(row, filter) & ~getRowMask(row);
+    }
+
+    /**
+     * Gets the number of free seats of the whole cabin that a filter accepts.
+     *
+     * @param filter The filter.
+     * @return The number of seats.
+     */
+    public int getAvailableCount(SeatFilter filter) {
+        SeatAttributes current = attributes;
+        int count = 0;
+        for (int row = 0; row < rows.length; row++) {
+            count += Long.bitCount(current.getEligibleMask(row, filter) & ~getRowMask(row));
+        }
+        return count;
+    }
+
+    /**
+     * Finds the cheapest block of {@code totalSeats} adjacent free seats that a filter accepts, e.g.
+     * "2 adjacent aisle or middle seats in economy". A block costs the sum of the price tiers of its
+     * seats; among blocks of the same cost, the first one in row order wins.
+     * <p>
+     * Every row is one pass of mask operations: the starts of the blocks are the bits that remain
+     * set after ANDing the accepted free seats with themselves shifted by 1 to
+     * {@code totalSeats - 1} columns. Only those starts are priced.
+     * <p>
+     * Like {@link #findRowWithFreeBlock}, the answer is a hint under concurrent updates.
+     *
+     * @param filter     The filter.
+     * @param totalSeats The size of the block.
+     * @return The seat index ({@code row * colLength + col}) of the first seat of the block, or -1
+     *         if no row has such a block.
+     * @throws IllegalArgumentException If {@code totalSeats} is out of range.
+     */
+    public int findCheapestBlock(SeatFilter filter, int totalSeats) {
+        if (totalSeats < 1 || totalSeats > colLength) {
+            throw new IllegalArgumentException("Invalid seat selection.");
+        }
+        SeatAttributes current = attributes;
+        int best = -1;
+        int bestCost = Integer.MAX_VALUE;
+        for (int row = 0; row < rows.length; row++) {
+            long free = current.getEligibleMask(row, filter) & ~getRowMask(row);
+            long starts = free;
+            for (int i = 1; i < totalSeats && starts != 0; i++) {
+                starts &= free >>> i;
+            }
+            for (; starts != 0; starts &= starts - 1) {
+                int col = Long.numberOfTrailingZeros(starts);
+                int cost = current.sumPriceTiers(row, col, totalSeats);
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    best = row * colLength + col;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Finds the first row with at least {@code totalSeats} adjacent free seats, without scanning
+     * the rows.
+     * <p>
+     * The answer is a hint under concurrent updates: the block may be taken by the time the caller
+     * reserves it, so callers re-check the row mask when reserving.
+     *
+     * @param totalSeats The size of the block.
+     * @return The row number, or -1 if no row has such a block.
+     */
+    public int findRowWithFreeBlock(int totalSeats) {
+        return freeBlocks.findRow(totalSeats);
+    }
+
+    /**
+     * Builds the mask covering the seats {@code startCol} to {@code endCol} (inclusive) of a row.
+     *
+     * @param row      The row number.
+     * @param startCol The first column.
+     * @param endCol   The last column.
+     * @return The mask with the bits of the column range set.
+     * @throws IllegalArgumentException If any seat of the range is invalid.
+     */
+    long getSeatRangeMask(int row, int startCol, int endCol) {
+        if (startCol > endCol || !isValidSeat(row, startCol) || !isValidSeat(row, endCol)) {
+            throw new IllegalArgumentException("Invalid seat selection.");
+        }
+        return rangeMask(startCol, endCol);
+    }
+
+    /**
+     * Builds the mask covering the columns {@code startCol} to {@code endCol} (inclusive).
+     *
+     * @param startCol The first column.
+     * @param endCol   The last column.
+     * @return The mask with the bits of the column range set.
+     */
+    static long rangeMask(int startCol, int endCol) {
+        long upTo = endCol == Long.SIZE - 1 ? -1L : (1L << (endCol + 1)) - 1;
+        return upTo & (-1L << startCol);
+    }
+
+    /**
+     * @return The dimensions of the cabin.
+     */
+    public CabinLayout getLayout() {
+        return layout;
+    }
+
     /**
      * Gets the total number of rows in the seating arrangement.
      *
      * @return The number of rows.
      */
     public int getRowLength() {
-        return seats.length;
+        return rows.length;
     }
 
     /**
@@ -91,10 +540,86 @@ public class FlightSeats {
      * @return The number of columns.
      */
     public int getColLength() {
-        return seats[0].length;
+        return colLength;
     }
 
     private boolean isValidSeat(int row, int col) {
-        return row >= 0 && row < seats.length && col >= 0 && col < seats[row].length;
+        return row >= 0 && row < rows.length && col >= 0 && col < colLength;
+    }
+
+    // Marks the row dirty and counts the change, then re-indexes the row until the index matches a
+    // mask that is still current, so that an update computed from an older mask by a concurrent
+    // writer never stays in the index. Listeners are told last, about the change from `before` to `mask`.
+    private void refreshIndex(int row, long before, long mask) {
+        long changed = before ^ mask;
+        long dirtyBit = 1L << row;
+        if (((long) ROWS.getAcquire(dirtyRows, row / Long.SIZE) & dirtyBit) == 0) { // Spares a write when already dirty
+            ROWS.getAndBitwiseOr(dirtyRows, row / Long.SIZE, dirtyBit);
+        }
+        long changeVersion = version.incrementAndGet();
+        reindex(row, mask);
+        for (RowListener listener : rowListeners) {
+            listener.rowChanged(row, changed, mask, changeVersion);
+        }
+    }
+
+    // Indexes the row as full wherever a seat is reserved or blocked, re-checking both the mask and
+    // the attributes so that neither a concurrent writer nor setAttributes leaves a stale entry
+    private void reindex(int row, long mask) {
+        SeatAttributes current = attributes;
+        while (true) {
+            freeBlocks.update(row, mask | current.getBlockedMask(row));
+            long currentMask = getRowMask(row);
+            SeatAttributes currentAttributes = attributes;
+            if (currentMask == mask && currentAttributes == current) break;
+            mask = currentMask;
+            current = currentAttributes;
+        }
+    }
+
+    /**
+     * Receives the rows whose reservation mask changed.
+     */
+    interface RowListener {
+        /**
+         * Called by the thread that changed the row, after the change, possibly concurrently with
+         * other changes and so not necessarily in version order; must be quick and must not block.
+         *
+         * @param row          The row number.
+         * @param changedSeats The seats whose reservation state flipped.
+         * @param rowMask      The reservation bitmask the change left, i.e. the one it published.
+         * @param version      The {@link #getVersion() version} the change produced.
+         */
+        void rowChanged(int row, long changedSeats, long rowMask, long version);
+    }
+
+    /**
+     * A {@link Seat} that reads and writes its state through the row mask of this chart.
+     */
+    private class SeatView extends Seat {
+        private final int row;
+        private final long bit;
+
+        private SeatView(int row, int col) {
+            this.row = row;
+            this.bit = 1L << col;
+        }
+
+        @Override
+        public boolean isReserved() {
+            return (getRowMask(row) & bit) != 0;
+        }
+
+        @Override
+        public void reserve() {
+            long before = (long) ROWS.getAndBitwiseOr(rows, row, bit);
+            refreshIndex(row, before, before | bit);
+        }
+
+        @Override
+        public void cancel() {
+            long before = (long) ROWS.getAndBitwiseAnd(rows, row, ~bit);
+            refreshIndex(row, before, before & ~bit);
+        }
     }
 }
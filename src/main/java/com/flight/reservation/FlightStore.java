@@ -0,0 +1,127 @@
+package com.flight.reservation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Locates the snapshot of every flight on disk.
+ * <p>
+ * The default flight ({@link Command#DEFAULT_FLIGHT_ID}) lives in its own seating file, which is
+ * imported from the legacy CSV seating chart the first time it's needed. Every other flight has a
+ * {@link MappedSeatStore} file named after its ID in the flight directory. The cabin layout of a
+ * flight is stored in the header of its file, so it's loaded with the seats, like its blocked
+ * seats. A flight without a file starts as an empty cabin with the store's default layout, unless
+ * it's {@link #create created} with its own layout first.
+ * <p>
+ * Files are only opened while a snapshot is read or written, so the number of open files doesn't
+ * grow with the number of flights.
+ */
+public class FlightStore {
+    private final static String STORE_EXTENSION = ".bin";
+
+    private final String defaultFlightFile;
+    private final String legacyCsvFile;
+    private final Path flightDirectory;
+    private final CabinLayout defaultLayout;
+
+    /**
+     * Creates a store where flights without a file have the {@link CabinLayout#DEFAULT default layout}.
+     *
+     * @param defaultFlightFile The seating file of the default flight.
+     * @param legacyCsvFile     The CSV seating chart imported when the default flight has no file yet.
+     * @param flightDirectory   The directory holding the seating files of the other flights.
+     */
+    public FlightStore(String defaultFlightFile, String legacyCsvFile, Path flightDirectory) {
+        this(defaultFlightFile, legacyCsvFile, flightDirectory, CabinLayout.DEFAULT);
+    }
+
+    /**
+     * @param defaultFlightFile The seating file of the default flight.
+     * @param legacyCsvFile     The CSV seating chart imported when the default flight has no file yet.
+     * @param flightDirectory   The directory holding the seating files of the other flights.
+     * @param defaultLayout     The cabin layout of flights without a file.
+     */
+    public FlightStore(String defaultFlightFile, String legacyCsvFile, Path flightDirectory, CabinLayout defaultLayout) {
+        this.defaultFlightFile = defaultFlightFile;
+        this.legacyCsvFile = legacyCsvFile;
+        this.flightDirectory = flightDirectory;
+        this.defaultLayout = defaultLayout;
+    }
+
+    /**
+     * Loads the latest snapshot of a flight.
+     *
+     * @param flightId The flight ID.
+     * @return The seating arrangement of the flight.
+     * @throws RuntimeException If an I/O error occurs while reading the snapshot.
+     */
+    public FlightSeats load(String flightId) {
+        String fileName = fileName(flightId);
+        if (new File(fileName).exists()) {
+            try (MappedSeatStore store = MappedSeatStore.open(fileName)) {
+                return store.load();
+            } catch (IOException e) {
+                throw new RuntimeException("Error loading flight: " + flightId, e);
+            }
+        }
+        if (flightId.equals(Command.DEFAULT_FLIGHT_ID) && new File(legacyCsvFile).exists()) {
+            return new FlightSeats(new FileManager().loadFromFile(legacyCsvFile));
+        }
+        return new FlightSeats(defaultLayout);
+    }
+
+    /**
+     * Creates the file of a new flight with an empty cabin of the given layout.
+     *
+     * @param flightId The flight ID.
+     * @param layout   The cabin layout of the flight.
+     * @return true if the flight was created, false if it already has a file.
+     * @throws RuntimeException If an I/O error occurs while writing the file.
+     */
+    public boolean create(String flightId, CabinLayout layout) {
+        if (new File(fileName(flightId)).exists()) {
+            return false;
+        }
+        save(flightId, new FlightSeats(layout));
+        return true;
+    }
+
+    /**
+     * Writes a snapshot of a flight and syncs it to disk.
+     * <p>
+     * When the flight already has a file of the same layout, only the rows changed since the
+     * seating arrangement was loaded or last saved are written.
+     *
+     * @param flightId    The flight ID.
+     * @param flightSeats The seating arrangement of the flight.
+     * @throws RuntimeException If an I/O error occurs while writing the snapshot.
+     */
+    public void save(String flightId, FlightSeats flightSeats) {
+        String fileName = fileName(flightId);
+        try {
+            if (!flightId.equals(Command.DEFAULT_FLIGHT_ID)) {
+                Files.createDirectories(flightDirectory);
+            }
+            if (new File(fileName).exists()) {
+                try (MappedSeatStore store = MappedSeatStore.open(fileName)) {
+                    if (store.getRowLength() == flightSeats.getRowLength()
+                            && store.getColLength() == flightSeats.getColLength()) {
+                        store.saveDirtyRows(flightSeats);
+                        return;
+                    }
+                }
+            }
+            MappedSeatStore.create(fileName, flightSeats).close();
+        } catch (IOException e) {
+            throw new RuntimeException("Error saving flight: " + flightId, e);
+        }
+    }
+
+    private String fileName(String flightId) {
+        return flightId.equals(Command.DEFAULT_FLIGHT_ID)
+                ? defaultFlightFile
+                : flightDirectory.resolve(flightId + STORE_EXTENSION).toString();
+    }
+}
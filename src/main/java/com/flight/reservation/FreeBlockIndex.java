@@ -0,0 +1,112 @@
+package com.flight.reservation;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Index of the rows that can seat a party of a given size together.
+ * <p>
+ * For every block length {@code n}, a bitset has one bit per row, set when the row has at least
+ * {@code n} adjacent free seats. Finding a row for a party of {@code n} is a scan for the first
+ * non-zero word of that bitset, i.e. one word per 64 rows, independent of the number of columns.
+ * <p>
+ * {@link FlightSeats} updates the index of a row after every change of the row's mask. Updates are
+ * lock-free; concurrent updates of the same row may briefly leave it stale, which
+ * {@link FlightSeats} corrects by re-checking the row mask after each update.
+ */
+class FreeBlockIndex {
+    private final static VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[][] rowsWithBlock; // [n - 1]: bit `row` set when the row has n adjacent free seats
+    private final long fullRowMask;
+
+    /**
+     * Creates the index of a seating chart where every seat is free.
+     *
+     * @param rowLength The number of rows.
+     * @param colLength The number of columns in each row.
+     */
+    FreeBlockIndex(int rowLength, int colLength) {
+        this.rowsWithBlock = new long[colLength][(rowLength + Long.SIZE - 1) / Long.SIZE];
+        this.fullRowMask = colLength == Long.SIZE ? -1L : (1L << colLength) - 1;
+        for (long[] rows : rowsWithBlock) {
+            for (int row = 0; row < rowLength; row++) {
+                rows[row / Long.SIZE] |= 1L << row;
+            }
+        }
+    }
+
+    /**
+     * Updates the index of a row from its reservation mask.
+     *
+     * @param row     The row number.
+     * @param rowMask The reservation bitmask of the row.
+     */
+    void update(int row, long rowMask) {
+        int longest = longestFreeBlock(~rowMask & fullRowMask);
+        int word = row / Long.SIZE;
+        long bit = 1L << row;
+        for (int n = 1; n <= rowsWithBlock.length; n++) {
+            long[] rows = rowsWithBlock[n - 1];
+            boolean indexed = ((long) WORDS.getAcquire(rows, word) & bit) != 0;
+            if (n <= longest && !indexed) {
+                WORDS.getAndBitwiseOr(rows, word, bit);
+            } else if (n > longest && indexed) {
+                WORDS.getAndBitwiseAnd(rows, word, ~bit);
+            }
+        }
+    }
+
+    /**
+     * Finds the first row with at least {@code totalSeats} adjacent free seats.
+     *
+     * @param totalSeats The size of the block.
+     * @return The row number, or -1 if no row has such a block.
+     */
+    int findRow(int totalSeats) {
+        if (totalSeats < 1 || totalSeats > rowsWithBlock.length) {
+            return -1;
+        }
+        long[] rows = rowsWithBlock[totalSeats - 1];
+        for (int word = 0; word < rows.length; word++) {
+            long bits = (long) WORDS.getAcquire(rows, word);
+            if (bits != 0) {
+                return word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the length of the longest run of set bits.
+     *
+     * @param freeMask The free seats of a row.
+     * @return The number of seats of the largest block of adjacent free seats.
+     */
+    static int longestFreeBlock(long freeMask) {
+        int longest = 0;
+        for (long runs = freeMask; runs != 0; runs &= runs >>> 1) {
+            longest++; // Every step shortens each run by one seat
+        }
+        return longest;
+    }
+
+    /**
+     * Finds the leftmost block of {@code totalSeats} adjacent free seats.
+     *
+     * @param freeMask   The free seats of a row.
+     * @param totalSeats The size of the block.
+     * @return The mask of the block, or 0 if the row has no such block.
+     */
+    static long firstFreeBlock(long freeMask, int totalSeats) {
+        long starts = freeMask;
+        for (int i = 1; i < totalSeats && starts != 0; i++) {
+            starts &= freeMask >>> i; // Keep the seats followed by i more free seats
+        }
+        if (starts == 0) {
+            return 0;
+        }
+        int startCol = Long.numberOfTrailingZeros(starts);
+        return FlightSeats.rangeMask(startCol, startCol + totalSeats - 1);
+    }
+}
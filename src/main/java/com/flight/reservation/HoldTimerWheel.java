@@ -0,0 +1,191 @@
+package com.flight.reservation;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A hashed timer wheel for the expiry of seat holds.
+ * <p>
+ * Time is cut into ticks, and a hold expiring at tick {@code t} goes into bucket
+ * {@code t mod wheelSize}. Scheduling is an append to that bucket, and every tick only visits
+ * the one bucket that is due, so the cost doesn't grow with the number of pending holds. Holds more
+ * than a revolution away stay in their bucket until the tick they are due at.
+ * <p>
+ * Buckets are parallel primitive arrays (row, seats mask, hold ID, expiry tick), so a hold costs
+ * no object and no {@code ScheduledFuture}. Confirmed or released holds aren't removed: their entry
+ * expires like the others and the {@link Expiry} ignores it when the seats are no longer held by
+ * that hold.
+ */
+class HoldTimerWheel {
+    private final static int INITIAL_BUCKET_CAPACITY = 8;
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final Bucket[] buckets;
+    private final int mask;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long currentTick; // Last tick whose bucket was expired
+    private int size;
+
+    // Due entries copied out of the lock before they are handed to the Expiry
+    private int[] dueRows = new int[INITIAL_BUCKET_CAPACITY];
+    private long[] dueMasks = new long[INITIAL_BUCKET_CAPACITY];
+    private long[] dueHoldIds = new long[INITIAL_BUCKET_CAPACITY];
+
+    /**
+     * Receives the holds that expired.
+     */
+    interface Expiry {
+        /**
+         * @param row    The row of the hold.
+         * @param mask   The seats of the hold.
+         * @param holdId The ID of the hold.
+         */
+        void expire(int row, long mask, long holdId);
+    }
+
+    /**
+     * @param tickNanos The duration of a tick, i.e. the precision of expiry.
+     * @param wheelSize The number of buckets; a power of two.
+     * @param nowNanos  The current {@link System#nanoTime()}, i.e. the start of tick 0.
+     */
+    HoldTimerWheel(long tickNanos, int wheelSize, long nowNanos) {
+        if (tickNanos <= 0 || wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Invalid timer wheel: " + tickNanos + "ns x " + wheelSize);
+        }
+        this.tickNanos = tickNanos;
+        this.startNanos = nowNanos;
+        this.buckets = new Bucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.mask = wheelSize - 1;
+    }
+
+    /**
+     * Schedules the expiry of a hold. A deadline in a past tick expires on the next advance.
+     *
+     * @param row           The row of the hold.
+     * @param seats         The seats of the hold.
+     * @param holdId        The ID of the hold.
+     * @param deadlineNanos The {@link System#nanoTime()} the hold expires at.
+     */
+    void schedule(int row, long seats, long holdId, long deadlineNanos) {
+        long tick = Math.max(ceilTick(deadlineNanos), 1);
+        lock.lock();
+        try {
+            tick = Math.max(tick, currentTick + 1);
+            buckets[(int) tick & mask].add(row, seats, holdId, tick);
+            size++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Expires every hold due up to the given time.
+     *
+     * @param nowNanos The current {@link System#nanoTime()}.
+     * @param expiry   Receives the expired holds, outside the wheel's lock.
+     * @return The number of expired holds.
+     */
+    int advance(long nowNanos, Expiry expiry) {
+        int due = 0;
+        lock.lock();
+        try {
+            long nowTick = (nowNanos - startNanos) / tickNanos;
+            // Past a full revolution, every bucket is visited once; later entries stay in place
+            long firstTick = Math.max(currentTick + 1, nowTick - mask);
+            for (long tick = firstTick; tick <= nowTick; tick++) {
+                due = buckets[(int) tick & mask].drainDue(nowTick, this, due);
+            }
+            currentTick = Math.max(currentTick, nowTick);
+            size -= due;
+        } finally {
+            lock.unlock();
+        }
+        for (int i = 0; i < due; i++) {
+            expiry.expire(dueRows[i], dueMasks[i], dueHoldIds[i]);
+        }
+        return due;
+    }
+
+    /**
+     * @return The number of scheduled holds that haven't expired yet.
+     */
+    int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The duration of a tick.
+     */
+    long getTickNanos() {
+        return tickNanos;
+    }
+
+    private long ceilTick(long nanos) {
+        long elapsed = nanos - startNanos;
+        return elapsed <= 0 ? 0 : (elapsed + tickNanos - 1) / tickNanos;
+    }
+
+    private int addDue(int due, int row, long seats, long holdId) {
+        if (due == dueRows.length) {
+            dueRows = Arrays.copyOf(dueRows, due * 2);
+            dueMasks = Arrays.copyOf(dueMasks, due * 2);
+            dueHoldIds = Arrays.copyOf(dueHoldIds, due * 2);
+        }
+        dueRows[due] = row;
+        dueMasks[due] = seats;
+        dueHoldIds[due] = holdId;
+        return due + 1;
+    }
+
+    /**
+     * The entries of one slot of the wheel, as parallel arrays.
+     */
+    private static class Bucket {
+        private int[] rows = new int[INITIAL_BUCKET_CAPACITY];
+        private long[] masks = new long[INITIAL_BUCKET_CAPACITY];
+        private long[] holdIds = new long[INITIAL_BUCKET_CAPACITY];
+        private long[] ticks = new long[INITIAL_BUCKET_CAPACITY];
+        private int size;
+
+        private void add(int row, long seats, long holdId, long tick) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+                masks = Arrays.copyOf(masks, size * 2);
+                holdIds = Arrays.copyOf(holdIds, size * 2);
+                ticks = Arrays.copyOf(ticks, size * 2);
+            }
+            rows[size] = row;
+            masks[size] = seats;
+            holdIds[size] = holdId;
+            ticks[size] = tick;
+            size++;
+        }
+
+        // Moves the entries due by `nowTick` to the wheel's due arrays, compacting the others
+        private int drainDue(long nowTick, HoldTimerWheel wheel, int due) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (ticks[i] <= nowTick) {
+                    due = wheel.addDue(due, rows[i], masks[i], holdIds[i]);
+                } else {
+                    rows[kept] = rows[i];
+                    masks[kept] = masks[i];
+                    holdIds[kept] = holdIds[i];
+                    ticks[kept] = ticks[i];
+                    kept++;
+                }
+            }
+            size = kept;
+            return due;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.flight.reservation;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of durations in nanoseconds with power-of-two buckets.
+ * <p>
+ * Bucket {@code i} counts the durations in {@code [2^i, 2^(i+1))} (bucket 0 also holds 0), so
+ * recording is a leading-zero count and a {@link LongAdder} increment: it never allocates and
+ * threads recording concurrently don't contend on a single counter. Percentiles are reported as
+ * the upper bound of their bucket, i.e. within a factor of two.
+ */
+public class LatencyHistogram {
+    private final static int BUCKETS = Long.SIZE;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos The duration in nanoseconds; negative values count as 0.
+     */
+    public void record(long nanos) {
+        buckets[bucket(nanos)].increment();
+    }
+
+    /**
+     * @return A copy of the current bucket counts.
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return new Snapshot(counts);
+    }
+
+    private static int bucket(long nanos) {
+        return nanos <= 0 ? 0 : Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    /**
+     * The bucket counts of a histogram at one point in time.
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+
+        private Snapshot(long[] counts) {
+            this.counts = counts;
+            long total = 0;
+            for (long bucketCount : counts) {
+                total += bucketCount;
+            }
+            this.count = total;
+        }
+
+        /**
+         * @return The number of recorded durations.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets an upper bound of a percentile.
+         *
+         * @param percentile The percentile, in {@code (0, 100]}, e.g. 99 for p99.
+         * @return The upper bound in nanoseconds of the bucket holding the percentile, or 0 if nothing
+         * was recorded.
+         */
+        public long getPercentile(double percentile) {
+            long rank = (long) Math.ceil(count * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0) {
+                    return i == Long.SIZE - 1 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+                }
+            }
+            return 0;
+        }
+    }
+}
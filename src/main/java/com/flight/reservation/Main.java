@@ -1,36 +1,85 @@
 package com.flight.reservation;
 
-import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Entry point of the flight reservation system.
+ * <p>
+ * Besides seat commands (e.g. {@code BOOK A1 2}, or {@code BOOK UA100 A1 2} for a flight other
+ * than the default one), it accepts:
+ * - {@code BATCH <command-file>} executes one command per line of a file in a single run
+ *   and prints one result per line.
+ * - {@code SERVE [port]} runs a {@link ReservationServer} that keeps the flights in memory.
+ *   HOLD, CONFIRM and RELEASE only work there: a hold lives in the server's memory, as does the
+ *   history behind UNDO and RESTORE.
+ * - {@code CREATE <FLIGHT_ID> <LAYOUT>} creates an empty flight with its own cabin layout,
+ *   e.g. {@code CREATE UA100 60x10}. Other new flights get the layout set with
+ *   {@code -Dcabin.layout=<ROWS>x<COLUMNS>}, 20x8 by default.
+ * - {@code IMPORT <csv-file>} replaces the default flight with the content of a CSV file.
+ * - {@code EXPORT <csv-file>} writes the default flight to a CSV file for debugging.
  */
 public class Main {
-    private final static String SEATING_FILE = "seating_chart.txt";
+    private final static String SEATING_FILE = "seating_chart.bin"; // The default flight
+    private final static String LEGACY_SEATING_FILE = "seating_chart.txt"; // CSV, imported on first run
+    private final static String FLIGHT_DIRECTORY = "flights"; // One seating file per other flight
+    private final static String JOURNAL_FILE = "seating_chart.journal"; // Commands since the last snapshot
+    private final static long COMPACTION_THRESHOLD = 10_000; // Journal records before compacting
+    private final static String STRATEGY_PROPERTY = "reservation.strategy"; // e.g. -Dreservation.strategy=CAS
+    private final static String LAYOUT_PROPERTY = "cabin.layout"; // e.g. -Dcabin.layout=60x10
 
     public static void main(String[] args) {
         try {
+            if (args.length >= 1 && args.length <= 2 && args[0].equals("SERVE")) {
+                serve(args.length == 2 ? Integer.parseInt(args[1]) : ReservationServer.DEFAULT_PORT);
+                return;
+            }
+            if (args.length == 2 && args[0].equals("BATCH")) {
+                executeBatch(args[1]);
+                return;
+            }
+            if (args.length == 3 && args[0].equals("CREATE")) {
+                System.out.println(createFlight(args[1], CabinLayout.parse(args[2])) ? "SUCCESS" : "FAIL");
+                return;
+            }
+            if (args.length == 2 && args[0].equals("IMPORT")) {
+                importCsv(args[1]);
+                System.out.println("SUCCESS");
+                return;
+            }
+            if (args.length == 2 && args[0].equals("EXPORT")) {
+                exportCsv(args[1]);
+                System.out.println("SUCCESS");
+                return;
+            }
+
             // Parse and validate inputs
             Command command = CommandParser.parse(args);
-
-            // Load all the seat states from a local file
-            FlightSeats flightSeats = new FlightSeats();
-            FileManager fileManager = new FileManager();
-            if (new File(SEATING_FILE).exists()) {
-                flightSeats = new FlightSeats(fileManager.loadFromFile(SEATING_FILE));
+            if (command.getAction().needsServer()) {
+                throw new IllegalArgumentException("Holds need the server: " + command.getAction());
             }
 
-            // Initialize a reservation manager with the seat states
-            AbstractReservationManager reservationManager = new ReservationManager(flightSeats);
-            // AbstractReservationManager reservationManager = new ReservationManagerWithRowLevelLock(flightSeats);
+            // Restore the flights changed since the latest snapshots from the journal; the flight of
+            // the command is loaded when it executes
+            try (CommandJournal journal = CommandJournal.open(JOURNAL_FILE)) {
+                FlightInventory inventory = createInventory();
+                journal.replay(inventory);
 
-            // Execute the command
-            boolean result = reservationManager.execute(command);
-            System.out.println(result ? "SUCCESS" : "FAIL");
+                // Execute the command, and make it durable before reporting it
+                int row = inventory.executeInRow(command);
+                if (row >= 0) {
+                    journal.awaitDurable(journal.append(command, row, inventory.getFlightSeats(command.getFlightId())));
+                }
+                System.out.println(row >= 0 ? "SUCCESS" : "FAIL");
 
-            // Save the updated seating arrangement
-            fileManager.saveToFile(flightSeats, SEATING_FILE);
-        } catch (RuntimeException e) {
+                if (journal.size() >= COMPACTION_THRESHOLD) {
+                    journal.compact(inventory);
+                }
+            }
+        } catch (RuntimeException | IOException e) {
             // The question specifically asks to only print out "FAIL".
             // In production code, we should treat each exception type differently and
             // create custom exception if necessary.
@@ -38,4 +87,120 @@ public class Main {
         }
     }
 
+    private static void executeBatch(String commandFile) throws IOException {
+        // Parse every line; a line that isn't a valid command just fails
+        List<String> lines = Files.readAllLines(Path.of(commandFile));
+        List<Command> commands = new ArrayList<>(lines.size());
+        int[] commandIndex = new int[lines.size()];
+        CommandDecoder decoder = new CommandDecoder();
+        for (int i = 0; i < lines.size(); i++) {
+            try {
+                decoder.decode(lines.get(i));
+                Command command = decoder.toCommand();
+                if (command.getAction().needsServer()) {
+                    throw new IllegalArgumentException("Holds need the server: " + command.getAction());
+                }
+                commands.add(command);
+                commandIndex[i] = commands.size() - 1;
+            } catch (RuntimeException e) {
+                commandIndex[i] = -1;
+            }
+        }
+
+        boolean[] results;
+        try (CommandJournal journal = CommandJournal.open(JOURNAL_FILE)) {
+            FlightInventory inventory = createInventory();
+            journal.replay(inventory);
+
+            // Execute the whole batch, and make it durable with a single sync. Commands that pick
+            // their own row run afterwards, one by one, so the journal learns their row.
+            List<Command> rowCommands = commands.stream().filter(command -> command.getAction().targetsRow()).toList();
+            boolean[] rowResults = inventory.executeAll(rowCommands);
+            results = new boolean[commands.size()];
+            for (int i = 0, next = 0; i < results.length; i++) {
+                Command command = commands.get(i);
+                int row = command.getAction().targetsRow()
+                        ? (rowResults[next++] ? command.getRowNumber() : -1)
+                        : inventory.executeInRow(command);
+                results[i] = row >= 0;
+                if (results[i]) {
+                    journal.append(command, row, inventory.getFlightSeats(command.getFlightId()));
+                }
+            }
+            journal.flush();
+
+            if (journal.size() >= COMPACTION_THRESHOLD) {
+                journal.compact(inventory);
+            }
+        }
+
+        StringBuilder output = new StringBuilder();
+        for (int index : commandIndex) {
+            output.append(index >= 0 && results[index] ? "SUCCESS" : "FAIL").append(System.lineSeparator());
+        }
+        System.out.print(output);
+    }
+
+    private static void serve(int port) throws IOException {
+        CommandJournal journal = CommandJournal.open(JOURNAL_FILE);
+        FlightInventory inventory = createInventory(CommandHistory.DEFAULT_CAPACITY);
+        journal.replay(inventory);
+        ReservationServer server = new ReservationServer(inventory, journal, port);
+        ReservationMetrics.enableJmx();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+                journal.close();
+            } catch (IOException e) {
+                // Exiting anyway; the journal replays whatever was synced
+            }
+        }));
+        server.start();
+        System.out.println("Listening on port " + server.getPort());
+    }
+
+    private static FlightInventory createInventory() {
+        return createInventory(0);
+    }
+
+    private static FlightInventory createInventory(int historyCapacity) {
+        ReservationStrategy strategy = ReservationStrategy
+                .fromName(System.getProperty(STRATEGY_PROPERTY, ReservationStrategy.SYNCHRONIZED.name()));
+        return new FlightInventory(createFlightStore(), strategy, historyCapacity);
+    }
+
+    private static FlightStore createFlightStore() {
+        CabinLayout defaultLayout = CabinLayout.parse(System.getProperty(LAYOUT_PROPERTY, CabinLayout.DEFAULT.toString()));
+        return new FlightStore(SEATING_FILE, LEGACY_SEATING_FILE, Path.of(FLIGHT_DIRECTORY), defaultLayout);
+    }
+
+    private static boolean createFlight(String flightId, CabinLayout layout) throws IOException {
+        Command.Builder.validateFlightId(flightId);
+        try (CommandJournal journal = CommandJournal.open(JOURNAL_FILE)) {
+            // Snapshot every flight first, so a flight that only exists in the journal has a file
+            FlightInventory inventory = createInventory();
+            journal.replay(inventory);
+            journal.compact(inventory);
+            return createFlightStore().create(flightId, layout);
+        }
+    }
+
+    private static void importCsv(String csvFile) throws IOException {
+        FlightSeats flightSeats = new FlightSeats(new FileManager().loadFromFile(csvFile));
+        try (CommandJournal journal = CommandJournal.open(JOURNAL_FILE)) {
+            // Snapshot every flight first: the journal holds changes to the replaced chart
+            FlightInventory inventory = createInventory();
+            journal.replay(inventory);
+            journal.compact(inventory);
+            createFlightStore().save(Command.DEFAULT_FLIGHT_ID, flightSeats);
+        }
+    }
+
+    private static void exportCsv(String csvFile) throws IOException {
+        try (CommandJournal journal = CommandJournal.open(JOURNAL_FILE)) {
+            FlightInventory inventory = createInventory();
+            journal.replay(inventory);
+            new FileManager().saveToFile(inventory.getFlightSeats(Command.DEFAULT_FLIGHT_ID), csvFile);
+        }
+    }
 }
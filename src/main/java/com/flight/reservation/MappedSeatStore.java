@@ -0,0 +1,284 @@
+package com.flight.reservation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Stores a flight seating arrangement in a fixed-layout binary file mapped into memory.
+ * <p>
+ * The file format is:
+ * - A 16-byte header: magic number, format version, number of rows, number of columns.
+ * - One bit per seat, each row packed into {@code ceil(columns / 8)} little-endian bytes
+ *   (bit {@code col} set when the seat is reserved).
+ * - The {@link SeatAttributes#getBlockedMask blocked seats}, packed the same way.
+ * <p>
+ * Files of format version 1 have no blocked seats; opening one upgrades it in place.
+ * <p>
+ * Because every row sits at a fixed offset, updating a row only touches that row's bytes
+ * instead of rewriting the whole file. {@link #saveDirtyRows} relies on it to write only the rows
+ * of a {@link FlightSeats} changed since its last save.
+ */
+public class MappedSeatStore implements Closeable {
+    private final static int MAGIC = 0x46424B53; // "FBKS"
+    private final static int VERSION = 2;
+    private final static int VERSION_WITHOUT_BLOCKED = 1;
+    private final static int HEADER_SIZE = 16;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int rowLength;
+    private final int colLength;
+    private final int bytesPerRow;
+    private final Object[] rowLocks; // Orders concurrent writes of the same row
+
+    private MappedSeatStore(FileChannel channel, int rowLength, int colLength) throws IOException {
+        this.channel = channel;
+        this.rowLength = rowLength;
+        this.colLength = colLength;
+        this.bytesPerRow = (colLength + Byte.SIZE - 1) / Byte.SIZE;
+        this.rowLocks = new Object[rowLength];
+        for (int i = 0; i < rowLocks.length; i++) {
+            rowLocks[i] = new Object();
+        }
+        // Grows a file of version 1 by the blocked seats, none blocked
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + 2L * rowLength * bytesPerRow);
+        this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Creates (or overwrites) a store file holding the given seating arrangement.
+     *
+     * @param fileName    The name of the store file.
+     * @param flightSeats The seating arrangement to write.
+     * @return The opened store.
+     * @throws RuntimeException If an I/O error occurs while creating the file.
+     */
+    public static MappedSeatStore create(String fileName, FlightSeats flightSeats) {
+        try {
+            FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedSeatStore store = new MappedSeatStore(channel, flightSeats.getRowLength(), flightSeats.getColLength());
+            store.buffer.putInt(0, MAGIC)
+                    .putInt(4, VERSION)
+                    .putInt(8, store.rowLength)
+                    .putInt(12, store.colLength);
+            store.writeAll(flightSeats);
+            return store;
+        } catch (IOException e) {
+            throw new RuntimeException("Error creating seating store: " + fileName, e);
+        }
+    }
+
+    /**
+     * Opens an existing store file.
+     *
+     * @param fileName The name of the store file.
+     * @return The opened store.
+     * @throws RuntimeException If the file cannot be read or is not a valid store file.
+     */
+    public static MappedSeatStore open(String fileName) {
+        try {
+            FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                if (channel.size() < HEADER_SIZE) {
+                    throw new IllegalStateException("Seating store is truncated: " + fileName);
+                }
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+                header.order(ByteOrder.LITTLE_ENDIAN);
+                int version = header.getInt(4);
+                if (header.getInt(0) != MAGIC || (version != VERSION && version != VERSION_WITHOUT_BLOCKED)) {
+                    throw new IllegalStateException("Not a seating store file: " + fileName);
+                }
+                CabinLayout layout = new CabinLayout(header.getInt(8), header.getInt(12)); // Rejects a corrupt header
+                MappedSeatStore store = new MappedSeatStore(channel, layout.getRowLength(), layout.getColLength());
+                store.buffer.putInt(4, VERSION);
+                return store;
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error opening seating store: " + fileName, e);
+        }
+    }
+
+    /**
+     * Reads the whole seating arrangement.
+     *
+     * @return A new {@link FlightSeats} holding the stored seat states and blocked seats, with no
+     * dirty rows.
+     */
+    public FlightSeats load() {
+        FlightSeats flightSeats = new FlightSeats(getLayout());
+        SeatAttributes.Builder attributes = null; // Only built when a seat is blocked
+        for (int row = 0; row < rowLength; row++) {
+            flightSeats.setRowMask(row, readRow(row));
+            for (long blocked = readBlockedRow(row); blocked != 0; blocked &= blocked - 1) {
+                if (attributes == null) {
+                    attributes = flightSeats.getAttributes().toBuilder();
+                }
+                attributes.setBlocked(row, Long.numberOfTrailingZeros(blocked), true);
+            }
+        }
+        if (attributes != null) {
+            flightSeats.setAttributes(attributes.build());
+        }
+        for (int word = 0; word < flightSeats.getDirtyWordCount(); word++) {
+            flightSeats.takeDirtyRows(word); // The rows match the file
+        }
+        return flightSeats;
+    }
+
+    /**
+     * Reads the reservation bitmask of a row.
+     *
+     * @param row The row number.
+     * @return The stored reservation bitmask.
+     */
+    public long readRow(int row) {
+        return readMask(rowOffset(row));
+    }
+
+    /**
+     * Reads the blocked seats of a row.
+     *
+     * @param row The row number.
+     * @return The stored bitmask of the blocked seats.
+     */
+    public long readBlockedRow(int row) {
+        return readMask(rowOffset(row) + rowLength * bytesPerRow);
+    }
+
+    /**
+     * Writes the reservation bitmask of a row, touching only that row's bytes.
+     *
+     * @param row  The row number.
+     * @param mask The reservation bitmask to store.
+     */
+    public void writeRow(int row, long mask) {
+        writeMask(rowOffset(row), mask);
+    }
+
+    /**
+     * Writes the current {@link FlightSeats#getDurableRowMask durable} reservation bitmask and the
+     * blocked seats of a row of the given seating arrangement.
+     * <p>
+     * The masks are read while holding the row's lock, so when several threads save the same
+     * row concurrently, the last write always stores the latest masks.
+     *
+     * @param flightSeats The seating arrangement to read the row from.
+     * @param row         The row number.
+     */
+    public void saveRow(FlightSeats flightSeats, int row) {
+        synchronized (rowLocks[row]) {
+            writeRow(row, flightSeats.getDurableRowMask(row));
+            writeMask(rowOffset(row) + rowLength * bytesPerRow, flightSeats.getAttributes().getBlockedMask(row));
+        }
+    }
+
+    /**
+     * Writes every row of the given seating arrangement, and clears its dirty rows.
+     *
+     * @param flightSeats The seating arrangement; must have the dimensions of this store.
+     * @throws IllegalArgumentException If the dimensions don't match.
+     */
+    public void writeAll(FlightSeats flightSeats) {
+        checkDimensions(flightSeats);
+        for (int word = 0; word < flightSeats.getDirtyWordCount(); word++) {
+            flightSeats.takeDirtyRows(word); // Taken first, so changes made while writing stay dirty
+        }
+        for (int row = 0; row < rowLength; row++) {
+            saveRow(flightSeats, row);
+        }
+    }
+
+    /**
+     * Writes the rows of the given seating arrangement that changed since it was last saved or
+     * loaded, and clears their dirty marks. A row changed many times between two saves is written
+     * once. Rows changing while this runs are either written now or stay dirty for the next save.
+     *
+     * @param flightSeats The seating arrangement; must have the dimensions of this store.
+     * @return The number of rows written.
+     * @throws IllegalArgumentException If the dimensions don't match.
+     */
+    public int saveDirtyRows(FlightSeats flightSeats) {
+        checkDimensions(flightSeats);
+        int written = 0;
+        for (int word = 0; word < flightSeats.getDirtyWordCount(); word++) {
+            long dirty = flightSeats.takeDirtyRows(word);
+            try {
+                for (; dirty != 0; dirty &= dirty - 1) {
+                    saveRow(flightSeats, word * Long.SIZE + Long.numberOfTrailingZeros(dirty));
+                    written++;
+                }
+            } catch (RuntimeException e) {
+                flightSeats.markDirtyRows(word, dirty); // Retried by the next save
+                throw e;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Flushes the written rows to the storage device.
+     */
+    public void force() {
+        buffer.force();
+    }
+
+    /**
+     * @return The dimensions of the stored cabin, as found in the file header.
+     */
+    public CabinLayout getLayout() {
+        return new CabinLayout(rowLength, colLength);
+    }
+
+    public int getRowLength() {
+        return rowLength;
+    }
+
+    public int getColLength() {
+        return colLength;
+    }
+
+    /**
+     * Flushes pending changes and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private void checkDimensions(FlightSeats flightSeats) {
+        if (flightSeats.getRowLength() != rowLength || flightSeats.getColLength() != colLength) {
+            throw new IllegalArgumentException("Seating dimensions don't match the store.");
+        }
+    }
+
+    private long readMask(int offset) {
+        long mask = 0;
+        for (int i = 0; i < bytesPerRow; i++) {
+            mask |= (buffer.get(offset + i) & 0xFFL) << (i * Byte.SIZE);
+        }
+        return mask;
+    }
+
+    private void writeMask(int offset, long mask) {
+        for (int i = 0; i < bytesPerRow; i++) {
+            buffer.put(offset + i, (byte) (mask >>> (i * Byte.SIZE)));
+        }
+    }
+
+    private int rowOffset(int row) {
+        if (row < 0 || row >= rowLength) {
+            throw new IllegalArgumentException("Invalid row: " + row);
+        }
+        return HEADER_SIZE + row * bytesPerRow;
+    }
+}
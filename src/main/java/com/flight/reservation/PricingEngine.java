@@ -0,0 +1,375 @@
+package com.flight.reservation;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Prices the seats of a flight from their {@link SeatAttributes}, the load factor of their cabin
+ * class and the time left until departure.
+ * <p>
+ * Prices are served from a precomputed {@link PriceTable}, so quoting a seat or a whole seat map is
+ * a memory read. The table is kept current incrementally: the engine listens to the row changes
+ * of {@link FlightSeats} (every commit of every reservation manager ends in one), which only marks
+ * the row in a bitset. The next quote recounts the reserved seats of the marked rows, and rebuilds
+ * the prices of a cabin class only when its load factor moves to another step, or of every seat
+ * when departure moves into another time band or the attributes were replaced. The time band is
+ * cached with the {@link System#nanoTime()} at which it may end, so a quote doesn't read the clock
+ * until then.
+ * <p>
+ * The price of a seat, in minor currency units, is the base fare of its cabin class, scaled by
+ * its price tier, the load step of its class and the time band, plus the surcharges of its
+ * features. Blocked seats are priced too but don't count towards the load factor.
+ * <p>
+ * The engine is a library API: the server and the command line don't quote prices.
+ */
+public class PricingEngine implements AutoCloseable {
+    private final static VarHandle PENDING = MethodHandles.arrayElementVarHandle(long[].class);
+    private final static CabinClass[] CABIN_CLASSES = CabinClass.values();
+    private final static SeatFeature[] FEATURES = SeatFeature.values();
+    private final static int PERMILLE = 1000;
+    private final static int LOAD_STEPS = 10; // Load factor steps of 10%
+    private final static int TIER_STEP_PERMILLE = 150; // Each price tier adds 15% to the base fare
+    private final static int LOAD_STEP_PERMILLE = 80; // Each load step adds 8%
+    // Time bands, from the earliest booking to the last days before departure
+    private final static long[] BAND_DAYS = {60, 30, 14, 7, 3, 0};
+    private final static int[] BAND_PERMILLE = {900, 1000, 1100, 1250, 1400, 1600};
+    private final static long MAX_BAND_CHECK_NANOS = TimeUnit.MINUTES.toNanos(1); // Follows clock adjustments
+
+    private final FlightSeats flightSeats;
+    private final long[] baseFares; // By cabin class ordinal
+    private final long[] surcharges; // By feature ordinal
+    private final Instant departure;
+    private final Clock clock;
+    private final LongSupplier nanoTime;
+    private final FlightSeats.RowListener listener = this::rowChanged;
+    private final ReentrantLock lock = new ReentrantLock(); // Guards the counts; quotes only read `table`
+
+    private final long[] pendingRows; // Bit `row % 64` of word `row / 64` set when the row changed since counted
+    private final long[] countedMasks; // The reservation mask of every row, as last counted
+    private final int[] reservedByClass = new int[CABIN_CLASSES.length];
+    private final int[] capacityByClass = new int[CABIN_CLASSES.length];
+    private final int[] loadStepByClass = new int[CABIN_CLASSES.length];
+    private SeatAttributes pricedAttributes;
+    private int timeBand = -1;
+    private volatile long bandCheckNanos; // The nanoTime from which the time band may have changed
+    private volatile PriceTable table;
+
+    private PricingEngine(Builder builder) {
+        this.flightSeats = builder.flightSeats;
+        this.baseFares = builder.baseFares.clone();
+        this.surcharges = builder.surcharges.clone();
+        this.departure = builder.departure;
+        this.clock = builder.clock;
+        this.nanoTime = builder.nanoTime;
+        this.pendingRows = new long[(flightSeats.getRowLength() + Long.SIZE - 1) / Long.SIZE];
+        this.countedMasks = new long[flightSeats.getRowLength()];
+        flightSeats.addRowListener(listener);
+        lock.lock();
+        try {
+            rebuild();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the current prices of every seat, bringing them up to date with the bookings and the
+     * time left first. Costs a few memory reads, and no clock read or allocation, when nothing
+     * changed.
+     *
+     * @return The price table.
+     */
+    public PriceTable getPriceTable() {
+        PriceTable current = table;
+        if (nanoTime.getAsLong() - bandCheckNanos >= 0 || current.attributes != flightSeats.getAttributes()
+                || hasPendingRows()) {
+            lock.lock();
+            try {
+                refresh();
+                current = table;
+            } finally {
+                lock.unlock();
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Gets the current price of a seat.
+     *
+     * @param row The row number.
+     * @param col The column number.
+     * @return The price, in minor currency units.
+     * @throws IllegalArgumentException If the seat doesn't exist in this cabin.
+     */
+    public long getPrice(int row, int col) {
+        return getPriceTable().getPrice(row, col);
+    }
+
+    /**
+     * Stops following the bookings of the flight.
+     */
+    @Override
+    public void close() {
+        flightSeats.removeRowListener(listener);
+    }
+
+    private void rowChanged(int row, long changedSeats, long rowMask, long version) {
+        PENDING.getAndBitwiseOr(pendingRows, row / Long.SIZE, 1L << row);
+    }
+
+    private boolean hasPendingRows() {
+        for (int word = 0; word < pendingRows.length; word++) {
+            if ((long) PENDING.getAcquire(pendingRows, word) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Recounts the changed rows, and reprices what their counts, the time or the attributes changed
+    private void refresh() {
+        SeatAttributes attributes = flightSeats.getAttributes();
+        int band = currentTimeBand();
+        if (attributes != pricedAttributes || band != timeBand) {
+            rebuild();
+            return;
+        }
+        for (int word = 0; word < pendingRows.length; word++) {
+            // Taken before the masks are read, so a change made meanwhile stays pending
+            for (long pending = (long) PENDING.getAndSet(pendingRows, word, 0L); pending != 0; pending &= pending - 1) {
+                count(attributes, word * Long.SIZE + Long.numberOfTrailingZeros(pending));
+            }
+        }
+        long[] prices = null;
+        for (CabinClass cabinClass : CABIN_CLASSES) {
+            int step = loadStep(cabinClass);
+            if (step != loadStepByClass[cabinClass.ordinal()]) {
+                loadStepByClass[cabinClass.ordinal()] = step;
+                if (prices == null) {
+                    prices = table.prices.clone();
+                }
+                price(attributes, cabinClass, prices);
+            }
+        }
+        if (prices != null) {
+            table = new PriceTable(flightSeats.getColLength(), prices, attributes);
+        }
+    }
+
+    // Counts every row and prices every seat from scratch
+    private void rebuild() {
+        SeatAttributes attributes = flightSeats.getAttributes();
+        for (int word = 0; word < pendingRows.length; word++) {
+            PENDING.getAndSet(pendingRows, word, 0L);
+        }
+        Arrays.fill(reservedByClass, 0);
+        Arrays.fill(capacityByClass, 0);
+        for (CabinClass cabinClass : CABIN_CLASSES) {
+            for (int row = 0; row < countedMasks.length; row++) {
+                capacityByClass[cabinClass.ordinal()] += Long.bitCount(sellableSeats(attributes, row, cabinClass));
+            }
+        }
+        for (int row = 0; row < countedMasks.length; row++) {
+            countedMasks[row] = 0;
+            count(attributes, row);
+        }
+        pricedAttributes = attributes;
+        timeBand = currentTimeBand();
+        long[] prices = new long[countedMasks.length * flightSeats.getColLength()];
+        for (CabinClass cabinClass : CABIN_CLASSES) {
+            loadStepByClass[cabinClass.ordinal()] = loadStep(cabinClass);
+            price(attributes, cabinClass, prices);
+        }
+        table = new PriceTable(flightSeats.getColLength(), prices, attributes);
+    }
+
+    // Moves the reserved seats of a row from its last counted mask to its current one
+    private void count(SeatAttributes attributes, int row) {
+        long mask = flightSeats.getRowMask(row);
+        long before = countedMasks[row];
+        countedMasks[row] = mask;
+        for (CabinClass cabinClass : CABIN_CLASSES) {
+            long seats = sellableSeats(attributes, row, cabinClass);
+            reservedByClass[cabinClass.ordinal()] += Long.bitCount(mask & seats) - Long.bitCount(before & seats);
+        }
+    }
+
+    private int loadStep(CabinClass cabinClass) {
+        int capacity = capacityByClass[cabinClass.ordinal()];
+        return capacity == 0 ? 0 : reservedByClass[cabinClass.ordinal()] * LOAD_STEPS / capacity;
+    }
+
+    private void price(SeatAttributes attributes, CabinClass cabinClass, long[] prices) {
+        int colLength = flightSeats.getColLength();
+        long classFare = baseFares[cabinClass.ordinal()]
+                * (PERMILLE + (long) LOAD_STEP_PERMILLE * loadStepByClass[cabinClass.ordinal()])
+                * BAND_PERMILLE[timeBand] / PERMILLE;
+        for (int row = 0; row < countedMasks.length; row++) {
+            for (long bits = attributes.getClassMask(row, cabinClass); bits != 0; bits &= bits - 1) {
+                int col = Long.numberOfTrailingZeros(bits);
+                long price = classFare * (PERMILLE + (long) TIER_STEP_PERMILLE * attributes.getPriceTier(row, col))
+                        / ((long) PERMILLE * PERMILLE);
+                for (SeatFeature feature : FEATURES) {
+                    if ((attributes.getFeatureMask(row, feature) & (1L << col)) != 0) {
+                        price += surcharges[feature.ordinal()];
+                    }
+                }
+                prices[row * colLength + col] = price;
+            }
+        }
+    }
+
+    private static long sellableSeats(SeatAttributes attributes, int row, CabinClass cabinClass) {
+        return attributes.getClassMask(row, cabinClass) & ~attributes.getBlockedMask(row);
+    }
+
+    // Reads the clock and sets the nanoTime until which the band it finds holds
+    private int currentTimeBand() {
+        long nowNanos = nanoTime.getAsLong();
+        Instant now = clock.instant();
+        int band = timeBand(now);
+        long untilChangeNanos = MAX_BAND_CHECK_NANOS;
+        if (BAND_DAYS[band] > 0) { // The last band never ends
+            // The band holds while at least BAND_DAYS[band] whole days are left
+            long untilEndMillis = Duration.between(now, departure.minus(Duration.ofDays(BAND_DAYS[band]))).toMillis();
+            untilChangeNanos = Math.min(untilChangeNanos, TimeUnit.MILLISECONDS.toNanos(untilEndMillis + 1));
+        }
+        bandCheckNanos = nowNanos + untilChangeNanos;
+        return band;
+    }
+
+    private int timeBand(Instant now) {
+        long days = Math.max(0, Duration.between(now, departure).toDays());
+        int band = 0;
+        while (days < BAND_DAYS[band]) {
+            band++;
+        }
+        return band;
+    }
+
+    /**
+     * The prices of every seat of a flight at one point in time. Immutable.
+     */
+    public static class PriceTable {
+        private final int colLength;
+        private final long[] prices; // [row * colLength + col]
+        private final SeatAttributes attributes; // The attributes the prices were computed from
+
+        private PriceTable(int colLength, long[] prices, SeatAttributes attributes) {
+            this.colLength = colLength;
+            this.prices = prices;
+            this.attributes = attributes;
+        }
+
+        /**
+         * @param row The row number.
+         * @param col The column number.
+         * @return The price of the seat, in minor currency units.
+         * @throws IllegalArgumentException If the seat doesn't exist in this cabin.
+         */
+        public long getPrice(int row, int col) {
+            if (row < 0 || col < 0 || col >= colLength || row >= prices.length / colLength) {
+                throw new IllegalArgumentException("Invalid seat selection.");
+            }
+            return prices[row * colLength + col];
+        }
+    }
+
+    /**
+     * Builder class for constructing a {@link PricingEngine} for a flight.
+     */
+    public static class Builder {
+        private final FlightSeats flightSeats;
+        private final long[] baseFares = new long[CABIN_CLASSES.length];
+        private final long[] surcharges = new long[FEATURES.length];
+        private Instant departure;
+        private Clock clock = Clock.systemUTC();
+        private LongSupplier nanoTime = System::nanoTime;
+
+        /**
+         * @param flightSeats The seating arrangement of the flight.
+         */
+        public Builder(FlightSeats flightSeats) {
+            this.flightSeats = flightSeats;
+        }
+
+        /**
+         * Sets the base fares, i.e. the price of a tier 0 seat with the flight empty, 30 to 59 days
+         * before departure.
+         *
+         * @param baseFares The base fare of every cabin class, in minor currency units.
+         * @return The builder instance for chaining.
+         * @throws IllegalArgumentException If a fare is negative.
+         */
+        public Builder setBaseFares(Map<CabinClass, Long> baseFares) {
+            for (Map.Entry<CabinClass, Long> fare : new EnumMap<>(baseFares).entrySet()) {
+                if (fare.getValue() < 0) {
+                    throw new IllegalArgumentException("Base fare must not be negative: " + fare);
+                }
+                this.baseFares[fare.getKey().ordinal()] = fare.getValue();
+            }
+            return this;
+        }
+
+        /**
+         * @param feature   A seat feature, e.g. {@link SeatFeature#EXIT_ROW} for the extra legroom.
+         * @param surcharge The amount added to the price of seats with the feature.
+         * @return The builder instance for chaining.
+         */
+        public Builder setSurcharge(SeatFeature feature, long surcharge) {
+            this.surcharges[feature.ordinal()] = surcharge;
+            return this;
+        }
+
+        /**
+         * @param departure The departure time of the flight.
+         * @return The builder instance for chaining.
+         */
+        public Builder setDeparture(Instant departure) {
+            this.departure = departure;
+            return this;
+        }
+
+        /**
+         * @param clock The clock the time left until departure is measured with.
+         * @return The builder instance for chaining.
+         */
+        public Builder setClock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * @param nanoTime The source of {@link System#nanoTime()}, replaced by tests that move the clock.
+         * @return The builder instance for chaining.
+         */
+        Builder setNanoTime(LongSupplier nanoTime) {
+            this.nanoTime = nanoTime;
+            return this;
+        }
+
+        /**
+         * Builds the engine and computes the first price table. The engine follows the bookings
+         * of the flight until it's closed.
+         *
+         * @return The engine.
+         * @throws IllegalArgumentException If the departure time isn't set.
+         */
+        public PricingEngine build() {
+            if (departure == null) {
+                throw new IllegalArgumentException("Departure must be set");
+            }
+            return new PricingEngine(this);
+        }
+    }
+}
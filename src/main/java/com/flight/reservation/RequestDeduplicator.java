@@ -0,0 +1,212 @@
+package com.flight.reservation;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The outcomes of the latest commands carrying a {@link Command#getRequestId() request ID}, so that
+ * a command replayed by a client that retried gets the outcome of the original instead of running
+ * again. The outcome of a command that succeeded is the row it changed, so a replayed PLACE tells
+ * the row the original found room in.
+ * <p>
+ * IDs are spread by hash over segments, each an open-addressing table of primitive arrays guarded
+ * by its own lock, so concurrent commands rarely contend and recording an outcome allocates
+ * nothing. A segment keeps two generations: new IDs go into the current one and lookups also check
+ * the previous one. Once the current generation is older than the retention time, or half full,
+ * it becomes the previous one and the older one is cleared for reuse. An ID is thus remembered for
+ * at least the retention time and at most twice as long, unless more IDs than the capacity arrive
+ * within the retention time, in which case the oldest are forgotten early; memory is fixed at
+ * construction either way. Outcomes are kept in memory only.
+ */
+class RequestDeduplicator {
+    final static int DEFAULT_CAPACITY = Integer.getInteger("reservation.dedup.capacity", 1 << 16);
+    final static long DEFAULT_RETENTION_NANOS = TimeUnit.SECONDS.toNanos(Long.getLong("reservation.dedup.seconds", 300));
+
+    // Outcomes of claim(), besides the row a replayed command succeeded in
+    final static int CLAIMED = -1; // The ID is new: the caller executes the command
+    final static int FAILED = -2; // A replay: the original command failed
+
+    private final static int PENDING = -3; // The original command is executing
+    private final static int ABANDONED = -4; // The original command threw; a replay executes again
+    private final static int MAX_SEGMENTS = 64;
+    private final static int MIN_SEGMENT_CAPACITY = 16;
+
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final long retentionNanos;
+
+    /**
+     * @param capacity       The number of IDs remembered per generation.
+     * @param retentionNanos How long an ID is remembered at least, in nanoseconds.
+     * @throws IllegalArgumentException If {@code capacity} or {@code retentionNanos} isn't positive.
+     */
+    RequestDeduplicator(int capacity, long retentionNanos) {
+        if (capacity < 1 || capacity > 1 << 28) {
+            throw new IllegalArgumentException("Deduplication capacity must be in the range of [1, 2^28]: " + capacity);
+        }
+        if (retentionNanos < 1) {
+            throw new IllegalArgumentException("Deduplication retention must be positive: " + retentionNanos);
+        }
+        int segmentCount = Integer.highestOneBit(Math.max(1, Math.min(MAX_SEGMENTS, capacity / MIN_SEGMENT_CAPACITY)));
+        int segmentCapacity = (capacity + segmentCount - 1) / segmentCount;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(segmentCapacity, System.nanoTime());
+        }
+        this.segmentShift = Long.SIZE - Integer.numberOfTrailingZeros(segmentCount);
+        this.retentionNanos = retentionNanos;
+    }
+
+    /**
+     * Claims a request ID before executing its command. If the command of the ID is executing on
+     * another thread, waits until it's done.
+     *
+     * @param requestId The request ID.
+     * @param nowNanos  The current {@link System#nanoTime()}.
+     * @return {@link #CLAIMED} if the caller must execute the command, and then report its outcome
+     * with {@link #complete} or {@link #abandon}; otherwise the outcome of the original command,
+     * the row it changed or {@link #FAILED}.
+     */
+    int claim(long requestId, long nowNanos) {
+        long hash = hash(requestId);
+        Segment segment = segments[segmentShift == Long.SIZE ? 0 : (int) (hash >>> segmentShift)];
+        while (true) {
+            int outcome = segment.claim(requestId, (int) hash, nowNanos, retentionNanos);
+            if (outcome != PENDING) {
+                return outcome;
+            }
+            Thread.yield(); // Commands take microseconds; let the original finish
+        }
+    }
+
+    /**
+     * Records the outcome of a command whose ID was claimed.
+     *
+     * @param requestId The request ID.
+     * @param row       The row the command changed, or -1 if it failed.
+     */
+    void complete(long requestId, int row) {
+        resolve(requestId, row >= 0 ? row : FAILED);
+    }
+
+    /**
+     * Forgets a claimed ID whose command threw, so that a replay executes it again.
+     *
+     * @param requestId The request ID.
+     */
+    void abandon(long requestId) {
+        resolve(requestId, ABANDONED);
+    }
+
+    private void resolve(long requestId, int state) {
+        long hash = hash(requestId);
+        segments[segmentShift == Long.SIZE ? 0 : (int) (hash >>> segmentShift)].resolve(requestId, (int) hash, state);
+    }
+
+    // Segments come from the high bits of the hash, slots from the low bits
+    private static long hash(long requestId) {
+        long hash = requestId * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    /**
+     * Two generations of IDs with their states, in tables with linear probing. An empty slot holds
+     * {@link Command#NO_REQUEST_ID}.
+     */
+    private static class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int maxSize; // The current generation rotates when it reaches this size
+        private final int slotMask;
+        private long[] keys;
+        private int[] states;
+        private long[] previousKeys;
+        private int[] previousStates;
+        private int size;
+        private long generationStart;
+
+        private Segment(int capacity, long nowNanos) {
+            int slots = Integer.highestOneBit(Math.max(2, capacity) - 1) << 2; // At most half full
+            this.maxSize = slots / 2;
+            this.slotMask = slots - 1;
+            this.keys = new long[slots];
+            this.states = new int[slots];
+            this.previousKeys = new long[slots];
+            this.previousStates = new int[slots];
+            this.generationStart = nowNanos;
+        }
+
+        private int claim(long requestId, int hash, long nowNanos, long retentionNanos) {
+            lock.lock();
+            try {
+                int slot = find(keys, requestId, hash);
+                if (keys[slot] == requestId) {
+                    return take(states, slot);
+                }
+                int previousSlot = find(previousKeys, requestId, hash);
+                if (previousKeys[previousSlot] == requestId && previousStates[previousSlot] != ABANDONED) {
+                    return previousStates[previousSlot];
+                }
+                if (size >= maxSize || nowNanos - generationStart >= retentionNanos) {
+                    rotate(nowNanos);
+                    slot = find(keys, requestId, hash);
+                }
+                keys[slot] = requestId;
+                states[slot] = PENDING;
+                size++;
+                return CLAIMED;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void resolve(long requestId, int hash, int state) {
+            lock.lock();
+            try {
+                int slot = find(keys, requestId, hash);
+                if (keys[slot] == requestId) {
+                    states[slot] = state;
+                    return;
+                }
+                slot = find(previousKeys, requestId, hash);
+                if (previousKeys[slot] == requestId) {
+                    previousStates[slot] = state;
+                }
+                // Otherwise forgotten early, under more IDs than the capacity
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Returns the state of a found ID, claiming it again if its command threw
+        private static int take(int[] states, int slot) {
+            if (states[slot] == ABANDONED) {
+                states[slot] = PENDING;
+                return CLAIMED;
+            }
+            return states[slot];
+        }
+
+        // The slot of the ID, or the empty slot where it would go
+        private int find(long[] table, long requestId, int hash) {
+            int slot = hash & slotMask;
+            while (table[slot] != requestId && table[slot] != Command.NO_REQUEST_ID) {
+                slot = (slot + 1) & slotMask;
+            }
+            return slot;
+        }
+
+        private void rotate(long nowNanos) {
+            long[] oldestKeys = previousKeys;
+            int[] oldestStates = previousStates;
+            previousKeys = keys;
+            previousStates = states;
+            Arrays.fill(oldestKeys, Command.NO_REQUEST_ID);
+            Arrays.fill(oldestStates, 0);
+            keys = oldestKeys;
+            states = oldestStates;
+            size = 0;
+            generationStart = nowNanos;
+        }
+    }
+}
@@ -1,11 +1,21 @@
 package com.flight.reservation;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntPredicate;
+
 /**
  * Manages seat reservations and cancellations for a flight.
  * This class extends {@link AbstractReservationManager} and provides a synchronized implementation
  * of the execute method to ensure thread safety while handling seat reservations.
+ * <p>
+ * Commands are serialized by one lock per manager. It is a {@link ReentrantLock} rather than the
+ * instance's monitor, so {@link #tryExecute} can give up after a timeout and virtual threads
+ * waiting for it don't pin their carrier thread.
  */
 public class ReservationManager extends AbstractReservationManager {
+    private final ReentrantLock lock = new ReentrantLock();
 
     /**
      * Constructs a ReservationManager for managing flight seat reservations.
@@ -18,8 +28,8 @@ public class ReservationManager extends AbstractReservationManager {
 
     /**
      * Executes a reservation or cancellation command on the flight seating arrangement.
-     * This method ensures that only one thread can execute a command at a time by synchronizing
-     * on the {@code ReservationManager} instance, preventing race conditions.
+     * This method ensures that only one thread can execute a command at a time by holding
+     * the manager's lock, preventing race conditions.
      *
      * @param command The {@link Command} containing details of the action (BOOK or CANCEL), row,
      *               column, and number of seats to modify.
@@ -27,9 +37,77 @@ public class ReservationManager extends AbstractReservationManager {
      * Note: This method modifies the state of the {@link FlightSeats} object passed during initialization.
      */
     public boolean execute(Command command) {
-        synchronized (this) { // Ensures thread safety when processing commands
-            return command.getAction().execute(this, command);
+        long waitStart = System.nanoTime();
+        lock.lock(); // Ensures thread safety when processing commands
+        try {
+            recordLockWait(waitStart);
+            return apply(command);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Executes a command if the manager's lock can be acquired within the timeout.
+     */
+    @Override
+    public ReservationResult tryExecute(Command command, long timeout, TimeUnit unit) {
+        long waitStart = System.nanoTime();
+        if (!tryLock(lock, timeout, unit)) {
+            return recordTimeout();
+        }
+        try {
+            recordLockWait(waitStart);
+            return applyForResult(command);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Executes a batch of commands while holding the manager's lock once for the whole batch.
+     *
+     * @param commands The commands to execute.
+     * @return The result of every command, in input order.
+     */
+    @Override
+    public boolean[] executeAll(List<Command> commands) {
+        long waitStart = System.nanoTime();
+        lock.lock();
+        try {
+            recordLockWait(waitStart);
+            return super.executeAll(commands);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    protected boolean withRowLock(int row, IntPredicate update) {
+        long waitStart = System.nanoTime();
+        lock.lock();
+        try {
+            recordLockWait(waitStart);
+            return update.test(row);
+        } finally {
+            lock.unlock();
         }
     }
-}
 
+    @Override
+    protected boolean reserveRows(int[] rows, long[] ranges) {
+        long waitStart = System.nanoTime();
+        lock.lock();
+        try {
+            recordLockWait(waitStart);
+            return reserveRowsLocked(rows, ranges);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    protected void executeGroup(int row, List<Command> commands, int[] order, int from, int to, boolean[] results) {
+        applyGroup(commands, order, from, to, results); // The caller holds the manager's lock
+    }
+}
@@ -1,37 +1,38 @@
 package com.flight.reservation;
 
-import java.util.concurrent.atomic.AtomicReference;
-
+/**
+ * ReservationManagerWithCAS is a non-blocking reservation manager.
+ * <p>
+ * Every row of the seating chart is a single bitmask, so a BOOK or CANCEL is one
+ * compare-and-set of the affected row's mask. No locks are taken; an update only
+ * retries when another thread changed the same row in between.
+ */
 public class ReservationManagerWithCAS extends AbstractReservationManager {
-    private final AtomicReference<FlightSeats> flightSeatsRef;
 
+    /**
+     * Constructs a ReservationManagerWithCAS for managing flight seat reservations.
+     *
+     * @param flightSeats The {@link FlightSeats} object representing the seating arrangement.
+     */
     public ReservationManagerWithCAS(FlightSeats flightSeats) {
         super(flightSeats);
-        this.flightSeatsRef = new AtomicReference<>(flightSeats);
     }
 
+    /**
+     * Executes the given command on the flight seating arrangement without locking.
+     *
+     * @param command the Command containing the action, row, column, and seat details.
+     * @return true if the action succeeds, false otherwise.
+     */
     public boolean execute(Command command) {
-        while (true) {
-            FlightSeats currentSeats = flightSeatsRef.get();
-            FlightSeats updatedSeats;
-
-            try {
-                // Try to reserve seats, creating a new immutable instance
-                // TODO: modify `reserveSeats()` in abstract manager to return a defensive copy
-                // updatedSeats = command.getAction().execute(this, command);
-                updatedSeats = null;
-            } catch (IllegalStateException e) {
-                // If seats are already reserved, fail the reservation
-                return false;
-            }
-
-            // Attempt to atomically update the reference to the new state
-            if (flightSeatsRef.compareAndSet(currentSeats, updatedSeats)) {
-                return true; // Update successful
-            }
+        return apply(command);
+    }
 
-            // If compareAndSet fails, another thread modified the state
-            // Retry the operation with the new state
-        }
+    /**
+     * Publishes the new row mask only if the row still holds {@code expected}.
+     */
+    @Override
+    protected boolean commitRow(int row, long expected, long updated) {
+        return getFlightSeats().compareAndSetRowMask(row, expected, updated);
     }
 }
@@ -0,0 +1,364 @@
+package com.flight.reservation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntPredicate;
+
+/**
+ * ReservationManagerWithRingBuffer applies every command on a single writer thread.
+ * <p>
+ * Callers publish commands into a preallocated ring buffer and get a future back; one dedicated
+ * consumer thread per manager (i.e. per flight) takes the commands in publication order and
+ * applies them to the seating chart without any lock or compare-and-set, then completes their
+ * futures. Under load the consumer finds many published commands at once and drains them in a
+ * single pass, so the work batches naturally instead of contending on monitors.
+ * <p>
+ * Producers claim a sequence number with one atomic increment and only wait when the ring is
+ * full. The consumer spins briefly when the ring is empty, then parks until a producer unparks
+ * it. The consumer is a virtual thread started on the first command, so idle flights cost no
+ * platform thread.
+ * <p>
+ * The time a command waits in the ring is recorded as lock wait in the {@link ReservationMetrics}.
+ * Timeouts of {@link #tryExecute} and {@link #executeAsync} bound that wait: the consumer skips a
+ * command that waited longer and completes it with {@link FailureReason#TIMEOUT}.
+ * <p>
+ * A command that throws fails its own future with the exception; the consumer goes on with the
+ * next one.
+ * <p>
+ * Once {@link #close() closed}, commands left in the ring are not executed: their futures complete
+ * exceptionally with an {@link IllegalStateException}, like those of commands racing the close.
+ */
+public class ReservationManagerWithRingBuffer extends AbstractReservationManager implements AutoCloseable {
+    public final static int DEFAULT_CAPACITY = 1024;
+    private final static int SPINS_BEFORE_PARK = 256;
+
+    private final Slot[] ring;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong(-1); // Last sequence claimed by a producer
+    private volatile long consumed = -1; // Last sequence taken by the consumer; frees its slot
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile Thread consumer;
+    private volatile boolean consumerParked;
+    private volatile boolean closed;
+    private final CompletableFuture<Void> stopped = new CompletableFuture<>(); // Done once the ring is drained
+
+    /**
+     * Constructs a ReservationManagerWithRingBuffer with a ring of {@value #DEFAULT_CAPACITY} commands.
+     *
+     * @param flightSeats The {@link FlightSeats} object representing the seating arrangement.
+     */
+    public ReservationManagerWithRingBuffer(FlightSeats flightSeats) {
+        this(flightSeats, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a ReservationManagerWithRingBuffer.
+     *
+     * @param flightSeats The {@link FlightSeats} object representing the seating arrangement.
+     * @param capacity    The number of commands the ring holds; a power of two.
+     * @throws IllegalArgumentException If the capacity is not a positive power of two.
+     */
+    public ReservationManagerWithRingBuffer(FlightSeats flightSeats, int capacity) {
+        super(flightSeats);
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two: " + capacity);
+        }
+        this.ring = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new Slot();
+        }
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Executes the given command on the consumer thread and waits for its result.
+     *
+     * @param command the Command containing the action, row, column, and seat details.
+     * @return true if the action succeeds, false otherwise.
+     * @throws IllegalArgumentException If the seats of the command don't exist in this cabin.
+     * @throws IllegalStateException    If the manager was closed before the command executed.
+     */
+    public boolean execute(Command command) {
+        ReservationResult result = join(publish(command, Long.MAX_VALUE));
+        if (result.getFailureReason() == FailureReason.INVALID_SEATS) {
+            throw new IllegalArgumentException("Invalid seat selection.");
+        }
+        return result.isSuccess();
+    }
+
+    /**
+     * Executes a command on the consumer thread, unless it waited longer than the timeout in the ring.
+     */
+    @Override
+    public ReservationResult tryExecute(Command command, long timeout, TimeUnit unit) {
+        return join(publish(command, unit.toNanos(timeout)));
+    }
+
+    /**
+     * Publishes a command to the ring buffer without waiting for it to execute. Unlike the default,
+     * no executor thread is involved: the consumer thread completes the future.
+     * <p>
+     * Commands are applied in the order they were published. Waits only while the ring is full.
+     *
+     * @throws IllegalStateException If the manager was closed.
+     */
+    @Override
+    public CompletableFuture<ReservationResult> executeAsync(Command command) {
+        return publish(command, getAsyncLockTimeoutNanos());
+    }
+
+    /**
+     * Publishes every command of the batch before waiting for any result, so the consumer drains
+     * the whole batch in one pass.
+     *
+     * @param commands The commands to execute.
+     * @return The result of every command, in input order.
+     */
+    @Override
+    public boolean[] executeAll(List<Command> commands) {
+        List<CompletableFuture<ReservationResult>> futures = new ArrayList<>(commands.size());
+        for (Command command : commands) {
+            futures.add(publish(command, Long.MAX_VALUE));
+        }
+        boolean[] results = new boolean[commands.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = join(futures.get(i)).isSuccess();
+        }
+        return results;
+    }
+
+    /**
+     * Publishes a command to the ring buffer.
+     *
+     * @param command      The command to execute.
+     * @param timeoutNanos The longest time the command may wait in the ring.
+     * @return A future completed with the result of the command.
+     * @throws IllegalStateException If the manager was closed.
+     */
+    private CompletableFuture<ReservationResult> publish(Command command, long timeoutNanos) {
+        return publish(command, null, timeoutNanos);
+    }
+
+    // Publishes either a command, or a task to run on the consumer
+    private CompletableFuture<ReservationResult> publish(Command command, Runnable task, long timeoutNanos) {
+        if (closed) {
+            throw new IllegalStateException("Reservation manager is closed");
+        }
+        if (consumer == null) {
+            startConsumer();
+        }
+        CompletableFuture<ReservationResult> future = new CompletableFuture<>();
+        long sequence = claimed.incrementAndGet();
+        for (int spins = 0; sequence - consumed > ring.length; spins++) {
+            if (stopped.isDone()) {
+                throw closedException(); // Claimed after the drain: no one frees the slot anymore
+            }
+            waitForCapacity(spins); // The slot still holds a command the consumer hasn't taken
+        }
+        Slot slot = ring[(int) sequence & mask];
+        slot.command = command;
+        slot.task = task;
+        slot.future = future;
+        slot.publishedAt = System.nanoTime();
+        slot.timeoutNanos = timeoutNanos;
+        slot.sequence = sequence; // Publishes the fields above to the consumer
+        if (consumerParked) {
+            LockSupport.unpark(consumer);
+        }
+        if (closed) {
+            // Closed meanwhile: the drain may have stopped before this slot. Once it's over, nothing
+            // executes the command anymore, so fail it unless it already ran or was drained.
+            stopped.join();
+            future.completeExceptionally(closedException());
+        }
+        return future;
+    }
+
+    private static IllegalStateException closedException() {
+        return new IllegalStateException("Reservation manager is closed");
+    }
+
+    // Waits for a result, rethrowing the failure of a command dropped by close()
+    private static ReservationResult join(CompletableFuture<ReservationResult> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Runs a row update on the consumer thread, e.g. the release of an expired seat hold, so that
+     * the consumer stays the only writer. Updates made by commands already run there.
+     */
+    @Override
+    protected boolean withRowLock(int row, IntPredicate update) {
+        return onConsumer(() -> update.test(row));
+    }
+
+    /**
+     * Reserves the seats of a group booking on the consumer thread, where no other command can
+     * interleave with it.
+     */
+    @Override
+    protected boolean reserveRows(int[] rows, long[] ranges) {
+        return onConsumer(() -> reserveRowsLocked(rows, ranges));
+    }
+
+    /**
+     * Stops the consumer thread. Commands still in the ring are not executed: their futures complete
+     * exceptionally with an {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Thread thread = consumer;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void startConsumer() {
+        if (started.compareAndSet(false, true)) {
+            Thread thread = Thread.ofVirtual().name("ring-buffer-consumer").unstarted(this::consume);
+            consumer = thread;
+            thread.start();
+        } else {
+            while (consumer == null) {
+                Thread.onSpinWait(); // Another producer is starting it
+            }
+        }
+    }
+
+    private void consume() {
+        try {
+            consumeUntilClosed();
+        } finally {
+            closed = true; // Also on an Error: nothing would consume later commands
+            drain(consumed + 1);
+        }
+    }
+
+    private void consumeUntilClosed() {
+        long next = 0;
+        int idleSpins = 0;
+        while (!closed) {
+            Slot slot = ring[(int) next & mask];
+            if (slot.sequence != next) {
+                idle(slot, next, idleSpins++);
+                continue;
+            }
+            idleSpins = 0;
+            Command command = slot.command;
+            Runnable task = slot.task;
+            CompletableFuture<ReservationResult> future = slot.future;
+            long publishedAt = slot.publishedAt;
+            long timeoutNanos = slot.timeoutNanos;
+            slot.command = null;
+            slot.task = null;
+            slot.future = null;
+            consumed = next++; // Producers may reuse the slot from here on
+
+            recordLockWait(publishedAt);
+            try {
+                if (task != null) {
+                    task.run();
+                    future.complete(ReservationResult.SUCCESS);
+                } else if (System.nanoTime() - publishedAt >= timeoutNanos) {
+                    future.complete(recordTimeout());
+                } else {
+                    future.complete(applyForResult(command));
+                }
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e); // Fails this command only: the consumer goes on
+            }
+        }
+    }
+
+    /**
+     * Fails every command claimed before the close was seen, from {@code next} on. Their producers
+     * publish them even when the ring is full, since draining frees the slots. Producers that claim
+     * later fail their own command once {@link #stopped} is done.
+     */
+    private void drain(long next) {
+        long last = claimed.get();
+        for (; next <= last; next++) {
+            Slot slot = ring[(int) next & mask];
+            while (slot.sequence != next) {
+                Thread.yield(); // Its producer is still writing the slot
+            }
+            CompletableFuture<ReservationResult> future = slot.future;
+            slot.command = null;
+            slot.task = null;
+            slot.future = null;
+            consumed = next;
+            future.completeExceptionally(closedException());
+        }
+        stopped.complete(null);
+    }
+
+    // Runs an update on the consumer thread and waits for its result
+    private boolean onConsumer(BooleanSupplier update) {
+        if (Thread.currentThread() == consumer) {
+            return update.getAsBoolean();
+        }
+        CompletableFuture<Boolean> updated = new CompletableFuture<>();
+        publish(null, () -> runUpdate(update, updated), Long.MAX_VALUE).whenComplete((result, failure) -> {
+            if (failure != null) {
+                updated.completeExceptionally(failure); // Dropped by close()
+            }
+        });
+        try {
+            return updated.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private static void runUpdate(BooleanSupplier update, CompletableFuture<Boolean> updated) {
+        try {
+            updated.complete(update.getAsBoolean());
+        } catch (RuntimeException e) {
+            updated.completeExceptionally(e);
+        }
+    }
+
+    private void idle(Slot slot, long next, int spins) {
+        if (spins < SPINS_BEFORE_PARK) {
+            Thread.onSpinWait();
+            return;
+        }
+        consumerParked = true;
+        if (slot.sequence != next && !closed) { // Re-check after announcing, so a wake-up isn't lost
+            LockSupport.park(this);
+        }
+        consumerParked = false;
+    }
+
+    private void waitForCapacity(int spins) {
+        if (spins < SPINS_BEFORE_PARK) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(1_000);
+        }
+    }
+
+    /**
+     * A preallocated entry of the ring.
+     */
+    private static class Slot {
+        private Command command;
+        private Runnable task; // Set instead of the command for row updates
+        private CompletableFuture<ReservationResult> future;
+        private long publishedAt; // System.nanoTime() when published
+        private long timeoutNanos; // Longest wait in the ring before the command is skipped
+        private volatile long sequence = -1; // Sequence of the command held, set last on publication
+    }
+}
@@ -1,12 +1,20 @@
 package com.flight.reservation;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntPredicate;
+
 /**
  * ReservationManagerWithRowLevelLock row-level locking for more fine-grained
  * concurrency control.
+ * <p>
+ * The row locks are {@link ReentrantLock}s, so {@link #tryExecute} can give up on a busy row after
+ * a timeout instead of blocking behind it indefinitely.
  */
 public class ReservationManagerWithRowLevelLock extends AbstractReservationManager {
     // An array of locks, one per row.
-    private final Object[] rowLocks;
+    private final ReentrantLock[] rowLocks;
 
     /**
      * Constructor for ReservationManagerWithRowLevelLock.
@@ -18,9 +26,9 @@ public class ReservationManagerWithRowLevelLock extends AbstractReservationManag
         super(flightSeats);
 
         // Create a new lock object for each row in the seating arrangement
-        this.rowLocks = new Object[flightSeats.getRowLength()];
+        this.rowLocks = new ReentrantLock[flightSeats.getRowLength()];
         for (int i = 0; i < rowLocks.length; i++) {
-            rowLocks[i] = new Object();
+            rowLocks[i] = new ReentrantLock();
         }
     }
 
@@ -33,10 +41,97 @@ public class ReservationManagerWithRowLevelLock extends AbstractReservationManag
      * @return true if the action succeeds, false otherwise.
      */
     public boolean execute(Command command) {
+        if (!command.getAction().targetsRow()) {
+            return apply(command); // Locks the row it picks via withRowLock
+        }
         // Locking the row-specific lock to ensure only one thread can modify the row's seats at a time
-        synchronized (rowLocks[command.getRowNumber()]) {
-            return command.getAction().execute(this, command);
+        ReentrantLock lock = rowLock(command.getRowNumber());
+        long waitStart = System.nanoTime();
+        lock.lock();
+        try {
+            recordLockWait(waitStart);
+            return apply(command);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Executes a command if its row's lock can be acquired within the timeout. Commands that pick
+     * their own row wait for the lock of the row they pick.
+     */
+    @Override
+    public ReservationResult tryExecute(Command command, long timeout, TimeUnit unit) {
+        if (!command.getAction().targetsRow() || command.getRowNumber() >= rowLocks.length) {
+            return applyForResult(command); // Rows beyond this cabin fail as INVALID_SEATS without touching a row
+        }
+        ReentrantLock lock = rowLocks[command.getRowNumber()];
+        long waitStart = System.nanoTime();
+        if (!tryLock(lock, timeout, unit)) {
+            return recordTimeout();
+        }
+        try {
+            recordLockWait(waitStart);
+            return applyForResult(command);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    protected boolean withRowLock(int row, IntPredicate update) {
+        ReentrantLock lock = rowLocks[row];
+        long waitStart = System.nanoTime();
+        lock.lock();
+        try {
+            recordLockWait(waitStart);
+            return update.test(row);
+        } finally {
+            lock.unlock();
         }
     }
-}
 
+    /**
+     * Reserves the seats of a group booking while holding the locks of all its rows. The locks are
+     * taken in ascending row order, the same for every group, so two groups never deadlock.
+     */
+    @Override
+    protected boolean reserveRows(int[] rows, long[] ranges) {
+        int locked = 0;
+        long waitStart = System.nanoTime();
+        try {
+            for (; locked < rows.length; locked++) {
+                rowLocks[rows[locked]].lock();
+            }
+            recordLockWait(waitStart);
+            return reserveRowsLocked(rows, ranges);
+        } finally {
+            for (int i = 0; i < locked; i++) {
+                rowLocks[rows[i]].unlock();
+            }
+        }
+    }
+
+    /**
+     * Executes the commands of a batch that target the same row while holding the row's lock once.
+     */
+    @Override
+    protected void executeGroup(int row, List<Command> commands, int[] order, int from, int to, boolean[] results) {
+        ReentrantLock lock = rowLocks[row];
+        long waitStart = System.nanoTime();
+        lock.lock();
+        try {
+            recordLockWait(waitStart);
+            applyGroup(commands, order, from, to, results);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock rowLock(int row) {
+        if (row >= rowLocks.length) {
+            throw new IllegalArgumentException("Invalid seat selection."); // The row is beyond this cabin
+        }
+        return rowLocks[row];
+    }
+}
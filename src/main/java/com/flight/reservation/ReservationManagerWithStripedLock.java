@@ -0,0 +1,161 @@
+package com.flight.reservation;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * ReservationManagerWithStripedLock guards groups of adjacent rows with one {@link StampedLock}
+ * per stripe, between the single lock of {@link ReservationManager} and the lock per row of
+ * {@link ReservationManagerWithRowLevelLock}.
+ * <p>
+ * Only mutations take a write stamp. A command reads its row and checks the seats without any
+ * lock and computes the new mask. To publish it, it re-reads the row first: a row that no longer
+ * holds the mask it read is retried without ever locking, like {@link ReservationManagerWithCAS};
+ * otherwise it takes the stripe's write stamp and checks the row once more under it. Commands
+ * that fail, e.g. a BOOK of taken seats, never lock. {@link #areSeatsAvailable} answers
+ * availability queries with an optimistic read.
+ * <p>
+ * {@link #tryExecute} with a finite timeout instead takes the write stamp of the command's stripe
+ * up front, waiting at most the timeout, and runs the whole command under it.
+ * <p>
+ * The number of rows per stripe is set with {@code -Dreservation.stripe.rows}; 1 gives a lock
+ * per row. A row is a single bitmask, so a stripe never covers part of a row.
+ */
+public class ReservationManagerWithStripedLock extends AbstractReservationManager {
+    final static int DEFAULT_ROWS_PER_STRIPE = Integer.getInteger("reservation.stripe.rows", 4);
+
+    private final static ThreadLocal<StampedLock> LOCKED_STRIPE = new ThreadLocal<>(); // Held by tryExecute
+
+    private final StampedLock[] stripes;
+    private final int rowsPerStripe;
+
+    /**
+     * Constructs a manager with {@link #DEFAULT_ROWS_PER_STRIPE} rows per stripe.
+     *
+     * @param flightSeats The {@link FlightSeats} object representing the seating arrangement.
+     */
+    public ReservationManagerWithStripedLock(FlightSeats flightSeats) {
+        this(flightSeats, DEFAULT_ROWS_PER_STRIPE);
+    }
+
+    /**
+     * @param flightSeats   The {@link FlightSeats} object representing the seating arrangement.
+     * @param rowsPerStripe The number of adjacent rows sharing a lock.
+     * @throws IllegalArgumentException If {@code rowsPerStripe} isn't positive.
+     */
+    public ReservationManagerWithStripedLock(FlightSeats flightSeats, int rowsPerStripe) {
+        super(flightSeats);
+        if (rowsPerStripe < 1) {
+            throw new IllegalArgumentException("Rows per stripe must be positive: " + rowsPerStripe);
+        }
+        this.rowsPerStripe = rowsPerStripe;
+        this.stripes = new StampedLock[(flightSeats.getRowLength() + rowsPerStripe - 1) / rowsPerStripe];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new StampedLock();
+        }
+    }
+
+    /**
+     * Executes the given command on the flight seating arrangement. The command takes the write
+     * stamp of its row's stripe only to publish the row's new mask.
+     *
+     * @param command the Command containing the action, row, column, and seat details.
+     * @return true if the action succeeds, false otherwise.
+     */
+    public boolean execute(Command command) {
+        return apply(command);
+    }
+
+    /**
+     * Executes a command if the write stamp of its row's stripe can be acquired within the timeout.
+     * Commands that pick their own row, and commands without a timeout, run like {@link #execute}.
+     */
+    @Override
+    public ReservationResult tryExecute(Command command, long timeout, TimeUnit unit) {
+        if (!command.getAction().targetsRow() || command.getRowNumber() >= getFlightSeats().getRowLength()
+                || unit.toNanos(timeout) == Long.MAX_VALUE) {
+            return applyForResult(command);
+        }
+        StampedLock lock = stripes[command.getRowNumber() / rowsPerStripe];
+        long waitStart = System.nanoTime();
+        long stamp;
+        try {
+            stamp = lock.tryWriteLock(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stamp = 0; // Gives up like a timeout
+        }
+        if (stamp == 0) {
+            return recordTimeout();
+        }
+        LOCKED_STRIPE.set(lock);
+        try {
+            recordLockWait(waitStart);
+            return applyForResult(command);
+        } finally {
+            LOCKED_STRIPE.remove();
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Checks whether seats are free, without blocking writers: the row is read under an optimistic
+     * stamp, and only re-read under a read lock if a write to the stripe happened meanwhile.
+     *
+     * @param row      The row number.
+     * @param startCol The first column (inclusive).
+     * @param endCol   The last column (inclusive).
+     * @return true if none of the seats is reserved or blocked.
+     * @throws IllegalArgumentException If the seats don't exist in this cabin.
+     */
+    public boolean areSeatsAvailable(int row, int startCol, int endCol) {
+        long range = getFlightSeats().getSeatRangeMask(row, startCol, endCol);
+        StampedLock lock = stripes[row / rowsPerStripe];
+        long stamp = lock.tryOptimisticRead();
+        long rowMask = getFlightSeats().getRowMask(row);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                rowMask = getFlightSeats().getRowMask(row);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return (rowMask & range) == 0 && (getFlightSeats().getSellableMask(row) & range) == range;
+    }
+
+    /**
+     * @return The number of adjacent rows sharing a lock.
+     */
+    public int getRowsPerStripe() {
+        return rowsPerStripe;
+    }
+
+    /**
+     * Publishes the new row mask under the stripe's write stamp, if the row still holds
+     * {@code expected}. A stale {@code expected} fails without locking.
+     */
+    @Override
+    protected boolean commitRow(int row, long expected, long updated) {
+        StampedLock lock = stripes[row / rowsPerStripe];
+        if (getFlightSeats().getRowMask(row) != expected) {
+            return false; // Stale whether or not a write is in progress; the caller re-reads
+        }
+        if (LOCKED_STRIPE.get() == lock) { // tryExecute holds the stripe
+            getFlightSeats().setRowMask(row, updated);
+            return true;
+        }
+        long waitStart = System.nanoTime();
+        long stamp = lock.writeLock();
+        try {
+            recordLockWait(waitStart);
+            if (getFlightSeats().getRowMask(row) != expected) {
+                return false;
+            }
+            getFlightSeats().setRowMask(row, updated);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+}
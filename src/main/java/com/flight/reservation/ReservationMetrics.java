@@ -0,0 +1,279 @@
+package com.flight.reservation;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latency histograms of the reservation managers, one set per
+ * {@link AbstractReservationManager} subclass, shared by all its instances (e.g. every flight).
+ * <p>
+ * It records, per {@link Action}, the successes, failures and the time spent executing, the
+ * failures per {@link FailureReason}, the time spent waiting for locks, the retries of lock-free
+ * updates, the seat holds that expired and the replayed requests. Recording only increments
+ * {@link LongAdder}s, so it never allocates or blocks.
+ * <p>
+ * The metrics are read in-process with {@link #snapshot()} or, once {@link #enableJmx()} was
+ * called, as MXBeans named {@code com.flight.reservation:type=ReservationMetrics,manager=<class>}.
+ */
+public class ReservationMetrics implements ReservationMetricsMXBean {
+    private final static ConcurrentHashMap<Class<?>, ReservationMetrics> REGISTRY = new ConcurrentHashMap<>();
+    private final static Action[] ACTIONS = Action.values();
+    private final static FailureReason[] REASONS = FailureReason.values();
+    private static volatile boolean jmxEnabled;
+
+    private final String managerName;
+    private final LongAdder[] successes = newAdders(ACTIONS.length);
+    private final LongAdder[] failures = newAdders(ACTIONS.length);
+    private final LongAdder[] failureReasons = newAdders(REASONS.length);
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder holdExpiries = new LongAdder();
+    private final LongAdder replays = new LongAdder();
+    private final LatencyHistogram[] latencies = new LatencyHistogram[ACTIONS.length];
+    private final LatencyHistogram lockWait = new LatencyHistogram();
+
+    private ReservationMetrics(String managerName) {
+        this.managerName = managerName;
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Gets the metrics of a reservation manager class, creating them on first use.
+     *
+     * @param managerType The reservation manager class.
+     * @return The metrics shared by every instance of the class.
+     */
+    public static ReservationMetrics forManager(Class<? extends AbstractReservationManager> managerType) {
+        ReservationMetrics metrics = REGISTRY.get(managerType);
+        if (metrics == null) {
+            metrics = REGISTRY.computeIfAbsent(managerType, type -> new ReservationMetrics(type.getSimpleName()));
+            if (jmxEnabled) {
+                metrics.registerMBean();
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * @return The metrics of every reservation manager class used so far.
+     */
+    public static Collection<ReservationMetrics> all() {
+        return List.copyOf(REGISTRY.values());
+    }
+
+    /**
+     * Registers the metrics of every reservation manager class, current and future, with the
+     * platform MBean server. Left to long-running processes, so a single command doesn't pay for
+     * starting JMX.
+     */
+    public static void enableJmx() {
+        jmxEnabled = true;
+        REGISTRY.values().forEach(ReservationMetrics::registerMBean);
+    }
+
+    void recordExecution(Action action, boolean success, long nanos) {
+        (success ? successes : failures)[action.ordinal()].increment();
+        latencies[action.ordinal()].record(nanos);
+    }
+
+    void recordFailure(FailureReason reason) {
+        failureReasons[reason.ordinal()].increment();
+    }
+
+    void recordLockWait(long nanos) {
+        lockWait.record(nanos);
+    }
+
+    void recordRetry() {
+        retries.increment();
+    }
+
+    void recordHoldExpiry() {
+        holdExpiries.increment();
+    }
+
+    void recordReplay() {
+        replays.increment();
+    }
+
+    /**
+     * @return A copy of the current metrics.
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    /**
+     * @return The simple name of the reservation manager class.
+     */
+    public String getManagerName() {
+        return managerName;
+    }
+
+    @Override
+    public Map<String, Long> getSuccessCounts() {
+        return byAction(action -> successes[action.ordinal()].sum());
+    }
+
+    @Override
+    public Map<String, Long> getFailureCounts() {
+        return byAction(action -> failures[action.ordinal()].sum());
+    }
+
+    @Override
+    public Map<String, Long> getFailureReasonCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (FailureReason reason : REASONS) {
+            counts.put(reason.name(), failureReasons[reason.ordinal()].sum());
+        }
+        return counts;
+    }
+
+    @Override
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    @Override
+    public long getHoldExpiryCount() {
+        return holdExpiries.sum();
+    }
+
+    @Override
+    public long getReplayCount() {
+        return replays.sum();
+    }
+
+    @Override
+    public Map<String, Long> getLatencyP50Nanos() {
+        return byAction(action -> latencies[action.ordinal()].snapshot().getPercentile(50));
+    }
+
+    @Override
+    public Map<String, Long> getLatencyP99Nanos() {
+        return byAction(action -> latencies[action.ordinal()].snapshot().getPercentile(99));
+    }
+
+    @Override
+    public long getLockWaitP99Nanos() {
+        return lockWait.snapshot().getPercentile(99);
+    }
+
+    private void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                    new ObjectName("com.flight.reservation:type=ReservationMetrics,manager=" + managerName));
+        } catch (JMException e) {
+            // Already registered by a concurrent call; the metrics are exposed either way
+        }
+    }
+
+    private static Map<String, Long> byAction(Function<Action, Long> value) {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (Action action : ACTIONS) {
+            values.put(action.name(), value.apply(action));
+        }
+        return values;
+    }
+
+    private static LongAdder[] newAdders(int length) {
+        LongAdder[] adders = new LongAdder[length];
+        for (int i = 0; i < length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * The metrics of a reservation manager class at one point in time.
+     */
+    public static class Snapshot {
+        private final String managerName;
+        private final long[] successes = new long[ACTIONS.length];
+        private final long[] failures = new long[ACTIONS.length];
+        private final long[] failureReasons = new long[REASONS.length];
+        private final long retries;
+        private final long holdExpiries;
+        private final long replays;
+        private final LatencyHistogram.Snapshot[] latencies = new LatencyHistogram.Snapshot[ACTIONS.length];
+        private final LatencyHistogram.Snapshot lockWait;
+
+        private Snapshot(ReservationMetrics metrics) {
+            this.managerName = metrics.managerName;
+            for (int i = 0; i < ACTIONS.length; i++) {
+                successes[i] = metrics.successes[i].sum();
+                failures[i] = metrics.failures[i].sum();
+                latencies[i] = metrics.latencies[i].snapshot();
+            }
+            for (int i = 0; i < REASONS.length; i++) {
+                failureReasons[i] = metrics.failureReasons[i].sum();
+            }
+            this.retries = metrics.retries.sum();
+            this.holdExpiries = metrics.holdExpiries.sum();
+            this.replays = metrics.replays.sum();
+            this.lockWait = metrics.lockWait.snapshot();
+        }
+
+        public String getManagerName() {
+            return managerName;
+        }
+
+        public long getSuccessCount(Action action) {
+            return successes[action.ordinal()];
+        }
+
+        public long getFailureCount(Action action) {
+            return failures[action.ordinal()];
+        }
+
+        public long getFailureCount(FailureReason reason) {
+            return failureReasons[reason.ordinal()];
+        }
+
+        /**
+         * @return The number of times a lock-free update was retried because its row changed.
+         */
+        public long getRetryCount() {
+            return retries;
+        }
+
+        /**
+         * @return The number of seat holds released because they expired.
+         */
+        public long getHoldExpiryCount() {
+            return holdExpiries;
+        }
+
+        /**
+         * @return The number of commands answered with the outcome of an earlier command with the
+         * same request ID.
+         */
+        public long getReplayCount() {
+            return replays;
+        }
+
+        /**
+         * @param action The action.
+         * @return The execution times of the action's commands, lock waits excluded.
+         */
+        public LatencyHistogram.Snapshot getLatency(Action action) {
+            return latencies[action.ordinal()];
+        }
+
+        /**
+         * @return The times spent waiting to acquire a lock.
+         */
+        public LatencyHistogram.Snapshot getLockWait() {
+            return lockWait;
+        }
+    }
+}
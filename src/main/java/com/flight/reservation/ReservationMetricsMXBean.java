@@ -0,0 +1,29 @@
+package com.flight.reservation;
+
+import java.util.Map;
+
+/**
+ * JMX view of the {@link ReservationMetrics} of one {@link AbstractReservationManager} subclass.
+ * <p>
+ * Maps are keyed by {@link Action} or {@link FailureReason} name, and durations are in nanoseconds.
+ */
+public interface ReservationMetricsMXBean {
+
+    Map<String, Long> getSuccessCounts();
+
+    Map<String, Long> getFailureCounts();
+
+    Map<String, Long> getFailureReasonCounts();
+
+    long getRetryCount();
+
+    long getHoldExpiryCount();
+
+    long getReplayCount();
+
+    Map<String, Long> getLatencyP50Nanos();
+
+    Map<String, Long> getLatencyP99Nanos();
+
+    long getLockWaitP99Nanos();
+}
@@ -0,0 +1,63 @@
+package com.flight.reservation;
+
+/**
+ * The outcome of a reservation command: success, or the {@link FailureReason} it failed for.
+ * <p>
+ * Results are shared constants, one per outcome, so returning one never allocates.
+ */
+public class ReservationResult {
+    public final static ReservationResult SUCCESS = new ReservationResult(null);
+    private final static ReservationResult[] FAILURES = new ReservationResult[FailureReason.values().length];
+
+    static {
+        for (FailureReason reason : FailureReason.values()) {
+            FAILURES[reason.ordinal()] = new ReservationResult(reason);
+        }
+    }
+
+    private final FailureReason failureReason;
+
+    private ReservationResult(FailureReason failureReason) {
+        this.failureReason = failureReason;
+    }
+
+    /**
+     * Gets the result of a command that failed.
+     *
+     * @param reason Why the command failed.
+     * @return The result.
+     */
+    public static ReservationResult failure(FailureReason reason) {
+        return FAILURES[reason.ordinal()];
+    }
+
+    /**
+     * Gets the result of a command from the outcome of its action.
+     *
+     * @param command The command that was executed.
+     * @param success The value returned by the action.
+     * @return {@link #SUCCESS}, or the failure of the action of the command.
+     */
+    public static ReservationResult of(Command command, boolean success) {
+        return success ? SUCCESS : failure(command.getAction().getFailureReason());
+    }
+
+    /**
+     * @return true if the command succeeded.
+     */
+    public boolean isSuccess() {
+        return failureReason == null;
+    }
+
+    /**
+     * @return Why the command failed, or null if it succeeded.
+     */
+    public FailureReason getFailureReason() {
+        return failureReason;
+    }
+
+    @Override
+    public String toString() {
+        return isSuccess() ? "SUCCESS" : "FAIL(" + failureReason + ")";
+    }
+}
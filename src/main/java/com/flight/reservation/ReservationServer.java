@@ -0,0 +1,201 @@
+package com.flight.reservation;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A long-running reservation server that keeps the flights of a {@link FlightInventory}
+ * and their reservation managers resident in memory.
+ * <p>
+ * Clients connect over TCP on the loopback interface and send one command per line,
+ * using the same grammar as the command line (e.g. {@code BOOK A1 2} or
+ * {@code BOOK UA100 A1 2}). The server
+ * answers each line with {@code SUCCESS} or {@code FAIL}. Every connection is
+ * handled on its own virtual thread. A line may end with a request ID, e.g.
+ * {@code BOOK UA100 A1 2 REQ=42}: a client that retries it gets the answer of the
+ * original instead of executing it again.
+ * <p>
+ * A successful command is appended to the {@link CommandJournal} and only reported once
+ * it is durable; concurrent clients share the journal's {@code fsync}. The journal is
+ * periodically compacted into snapshots of the flights changed since the last compaction.
+ * <p>
+ * When the inventory keeps a {@link CommandHistory} per flight, clients can also send:
+ * - {@code UNDO [<FLIGHT_ID>] <CHANGES>} to undo the latest changes made by commands.
+ * - {@code RESTORE [<FLIGHT_ID>] <VERSION>} to bring the flight back to an earlier version.
+ * - {@code VERSION [<FLIGHT_ID>]}, answered with the current version of the flight.
+ * The rows an UNDO or RESTORE changed are journaled like commands before it's reported.
+ */
+public class ReservationServer implements Closeable {
+    public final static int DEFAULT_PORT = 7070;
+    private final static long COMPACTION_INTERVAL_SECONDS = 60;
+    private final static String SUCCESS = "SUCCESS";
+    private final static String FAIL = "FAIL";
+
+    private final FlightInventory inventory;
+    private final CommandJournal journal;
+    private final ServerSocket serverSocket;
+    private final ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService compactor = Executors.newSingleThreadScheduledExecutor(
+            runnable -> Thread.ofPlatform().name("journal-compactor").daemon().unstarted(runnable));
+
+    /**
+     * Binds a server to the given local port. Call {@link #start()} to accept clients.
+     *
+     * @param inventory The flights the commands are executed on.
+     * @param journal   The journal executed commands are appended to.
+     * @param port      The local port, or 0 for any free port.
+     * @throws IOException If the port cannot be bound.
+     */
+    public ReservationServer(FlightInventory inventory, CommandJournal journal, int port) throws IOException {
+        this.inventory = inventory;
+        this.journal = journal;
+        this.serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * Starts accepting clients on a dedicated thread and returns immediately.
+     */
+    public void start() {
+        Thread.ofPlatform().name("reservation-acceptor").start(this::acceptClients);
+        compactor.scheduleWithFixedDelay(this::compact,
+                COMPACTION_INTERVAL_SECONDS, COMPACTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @return The local port the server listens on.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Executes a single command line on the flight it targets and journals it.
+     *
+     * @param line The command line, e.g. "BOOK UA100 A1 2".
+     * @return "SUCCESS" if the command succeeds, "FAIL" otherwise.
+     */
+    String handle(String line) {
+        return handle(line, new CommandDecoder());
+    }
+
+    /**
+     * Executes a single command line, decoding it with the decoder of the connection it came from.
+     *
+     * @param line    The command line.
+     * @param decoder The decoder of the connection.
+     * @return "SUCCESS" if the command succeeds, "FAIL" otherwise; the version for a VERSION line.
+     */
+    String handle(CharSequence line, CommandDecoder decoder) {
+        try {
+            if (startsWith(line, "UNDO ") || startsWith(line, "RESTORE ") || startsWith(line, "VERSION")) {
+                return handleHistory(line.toString().trim().split(" +"));
+            }
+            decoder.decode(line);
+            Command command = decoder.toCommand();
+            int row = inventory.executeInRow(command);
+            if (row >= 0) {
+                journal.awaitDurable(journal.append(command, row, inventory.getFlightSeats(command.getFlightId())));
+            }
+            return row >= 0 ? SUCCESS : FAIL;
+        } catch (RuntimeException e) {
+            return FAIL;
+        }
+    }
+
+    // Handles UNDO, RESTORE and VERSION, whose last argument follows an optional flight ID
+    private String handleHistory(String[] args) {
+        if (!args[0].equals("UNDO") && !args[0].equals("RESTORE") && !args[0].equals("VERSION")) {
+            return FAIL;
+        }
+        int arguments = args[0].equals("VERSION") ? 0 : 1;
+        if (args.length != 1 + arguments && args.length != 2 + arguments) {
+            return FAIL;
+        }
+        String flightId = Command.DEFAULT_FLIGHT_ID;
+        if (args.length == 2 + arguments) {
+            flightId = args[1];
+            Command.Builder.validateFlightId(flightId);
+        }
+        if (args[0].equals("VERSION")) {
+            return Long.toString(inventory.getFlightSeats(flightId).getVersion());
+        }
+        long[] restored = args[0].equals("UNDO")
+                ? inventory.undo(flightId, Integer.parseInt(args[args.length - 1]))
+                : inventory.restore(flightId, Long.parseLong(args[args.length - 1]));
+        FlightSeats flightSeats = inventory.getFlightSeats(flightId);
+        long sequence = 0;
+        for (int row = 0; row < restored.length; row++) {
+            if (restored[row] != 0) {
+                sequence = journal.appendRestore(flightId, row, flightSeats);
+            }
+        }
+        if (sequence > 0) {
+            journal.awaitDurable(sequence);
+        }
+        return SUCCESS;
+    }
+
+    private static boolean startsWith(CharSequence line, String prefix) {
+        if (line.length() < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (line.charAt(i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops accepting clients and closes the open connections.
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        compactor.shutdownNow();
+        clientExecutor.shutdownNow();
+    }
+
+    private void compact() {
+        if (journal.size() > 0) {
+            journal.compact(inventory);
+        }
+    }
+
+    private void acceptClients() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                clientExecutor.execute(() -> serve(socket));
+            } catch (IOException e) {
+                // The server socket was closed, or the client went away during the handshake
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             PrintWriter writer = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII)) {
+            CommandDecoder decoder = new CommandDecoder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                writer.println(handle(line, decoder));
+            }
+        } catch (IOException e) {
+            // The client disconnected; nothing to clean up beyond the socket
+        }
+    }
+}
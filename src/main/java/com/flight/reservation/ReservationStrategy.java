@@ -0,0 +1,48 @@
+package com.flight.reservation;
+
+import java.util.function.Function;
+
+/**
+ * Enum of the available {@link AbstractReservationManager} implementations.
+ * <p>
+ * Lets callers (the command line, benchmarks) pick a concurrency strategy by name.
+ */
+public enum ReservationStrategy {
+    SYNCHRONIZED(ReservationManager::new),
+    ROW_LOCK(ReservationManagerWithRowLevelLock::new),
+    CAS(ReservationManagerWithCAS::new),
+    RING_BUFFER(ReservationManagerWithRingBuffer::new),
+    STRIPED(ReservationManagerWithStripedLock::new);
+
+    private final Function<FlightSeats, AbstractReservationManager> factory;
+
+    ReservationStrategy(Function<FlightSeats, AbstractReservationManager> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Creates a reservation manager of this strategy.
+     *
+     * @param flightSeats The seating arrangement the manager operates on.
+     * @return A new reservation manager.
+     */
+    public AbstractReservationManager create(FlightSeats flightSeats) {
+        return factory.apply(flightSeats);
+    }
+
+    /**
+     * Looks up a strategy by its name, ignoring case.
+     *
+     * @param name The strategy name, e.g. "ROW_LOCK".
+     * @return The matching strategy.
+     * @throws IllegalArgumentException If no strategy has this name.
+     */
+    public static ReservationStrategy fromName(String name) {
+        for (ReservationStrategy strategy : values()) {
+            if (strategy.name().equalsIgnoreCase(name)) {
+                return strategy;
+            }
+        }
+        throw new IllegalArgumentException("Invalid reservation strategy: " + name);
+    }
+}
@@ -13,7 +13,7 @@ public class Seat {
 
     // Copy constructor
     public Seat(Seat other) {
-        this.reserved = other.reserved;
+        this.reserved = other.isReserved();
     }
 
     /**
@@ -0,0 +1,373 @@
+package com.flight.reservation;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The fixed attributes of the seats of a flight: cabin class, position features, blocked seats
+ * and price tier.
+ * <p>
+ * Attributes are stored by column rather than by seat: every attribute is a bitmask per row, laid
+ * out like the reservation masks of {@link FlightSeats}, so a filtered availability query is a few
+ * ANDs of masks per row and never touches a per-seat object. Price tiers are also kept as one byte
+ * per seat, to price a block of seats.
+ * <p>
+ * Attributes are immutable; they are built with a {@link Builder} and changed by building new ones
+ * with {@link #toBuilder()}, e.g. to block a seat.
+ */
+public class SeatAttributes {
+    public final static int MAX_PRICE_TIER = 7;
+
+    private final static CabinClass[] CABIN_CLASSES = CabinClass.values();
+    private final static SeatFeature[] FEATURES = SeatFeature.values();
+    private final static Map<CabinLayout, SeatAttributes> DEFAULTS = new ConcurrentHashMap<>(); // One per layout in use
+
+    private final CabinLayout layout;
+    private final long fullRowMask;
+    private final long[][] classMasks; // [class][row]: the seats of each cabin class
+    private final long[] windowMasks;
+    private final long[] aisleMasks;
+    private final long[] exitRowMasks; // Every seat of an exit row, no seat of the others
+    private final long[] blockedMasks; // Seats that aren't sold
+    private final long[][] tierAtMostMasks; // [tier][row]: the seats of that price tier or cheaper
+    private final byte[] priceTiers; // [row * colLength + col]
+
+    private SeatAttributes(Builder builder) {
+        this.layout = builder.layout;
+        this.fullRowMask = builder.fullRowMask;
+        this.classMasks = new long[CABIN_CLASSES.length][builder.rowLength()];
+        for (int row = 0; row < builder.rowLength(); row++) {
+            for (int col = 0; col < layout.getColLength(); col++) {
+                classMasks[builder.cabinClasses[row * layout.getColLength() + col]][row] |= 1L << col;
+            }
+        }
+        this.windowMasks = builder.windowMasks.clone();
+        this.aisleMasks = builder.aisleMasks.clone();
+        this.exitRowMasks = builder.exitRowMasks.clone();
+        this.blockedMasks = builder.blockedMasks.clone();
+        this.priceTiers = builder.priceTiers.clone();
+        this.tierAtMostMasks = new long[MAX_PRICE_TIER + 1][builder.rowLength()];
+        for (int row = 0; row < builder.rowLength(); row++) {
+            for (int col = 0; col < layout.getColLength(); col++) {
+                for (int tier = priceTiers[row * layout.getColLength() + col]; tier <= MAX_PRICE_TIER; tier++) {
+                    tierAtMostMasks[tier][row] |= 1L << col;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the default attributes of a cabin: every seat in economy, at price tier 0, with a window
+     * seat at both ends of every row and no aisle, exit row or blocked seat.
+     * <p>
+     * Attributes are immutable, so every flight of a layout shares the same defaults.
+     *
+     * @param layout The dimensions of the cabin.
+     * @return The attributes.
+     */
+    public static SeatAttributes defaults(CabinLayout layout) {
+        return DEFAULTS.computeIfAbsent(layout, l -> new Builder(l).build());
+    }
+
+    /**
+     * Gets the seats of a row that a filter accepts, whether they are reserved or not. Blocked seats
+     * are never accepted.
+     *
+     * @param row    The row number.
+     * @param filter The filter.
+     * @return The bitmask of the accepted seats.
+     */
+    public long getEligibleMask(int row, SeatFilter filter) {
+        long mask = fullRowMask & ~blockedMasks[row];
+        if (filter.getCabinClass() != null) {
+            mask &= classMasks[filter.getCabinClass().ordinal()][row];
+        }
+        for (SeatFeature feature : FEATURES) {
+            if (filter.requires(feature)) {
+                mask &= getFeatureMask(row, feature);
+            } else if (filter.excludes(feature)) {
+                mask &= ~getFeatureMask(row, feature);
+            }
+        }
+        if (filter.getMaxPriceTier() < MAX_PRICE_TIER) {
+            mask &= tierAtMostMasks[filter.getMaxPriceTier()][row];
+        }
+        return mask;
+    }
+
+    /**
+     * Gets the seats of a row that have a feature.
+     *
+     * @param row     The row number.
+     * @param feature The feature.
+     * @return The bitmask of the seats with the feature.
+     */
+    public long getFeatureMask(int row, SeatFeature feature) {
+        return switch (feature) {
+            case WINDOW -> windowMasks[row];
+            case AISLE -> aisleMasks[row];
+            case MIDDLE -> fullRowMask & ~(windowMasks[row] | aisleMasks[row]);
+            case EXIT_ROW -> exitRowMasks[row];
+        };
+    }
+
+    /**
+     * Gets the seats of a row in a cabin class, including blocked ones.
+     *
+     * @param row        The row number.
+     * @param cabinClass The cabin class.
+     * @return The bitmask of the seats in the class.
+     */
+    public long getClassMask(int row, CabinClass cabinClass) {
+        return classMasks[cabinClass.ordinal()][row];
+    }
+
+    /**
+     * @param row The row number.
+     * @return The bitmask of the blocked seats of the row.
+     */
+    public long getBlockedMask(int row) {
+        return blockedMasks[row];
+    }
+
+    /**
+     * @param row The row number.
+     * @param col The column number.
+     * @return The cabin class of the seat.
+     */
+    public CabinClass getCabinClass(int row, int col) {
+        checkSeat(row, col);
+        for (CabinClass cabinClass : CABIN_CLASSES) {
+            if ((classMasks[cabinClass.ordinal()][row] & (1L << col)) != 0) {
+                return cabinClass;
+            }
+        }
+        throw new IllegalStateException("Seat without a cabin class: " + row + ", " + col);
+    }
+
+    /**
+     * @param row The row number.
+     * @param col The column number.
+     * @return true if the seat isn't sold.
+     */
+    public boolean isBlocked(int row, int col) {
+        checkSeat(row, col);
+        return (blockedMasks[row] & (1L << col)) != 0;
+    }
+
+    /**
+     * @param row The row number.
+     * @param col The column number.
+     * @return The price tier of the seat, from 0 to {@value #MAX_PRICE_TIER}.
+     */
+    public int getPriceTier(int row, int col) {
+        checkSeat(row, col);
+        return priceTiers[row * layout.getColLength() + col];
+    }
+
+    /**
+     * Sums the price tiers of adjacent seats, without checking the seats.
+     *
+     * @param row      The row number.
+     * @param startCol The first column.
+     * @param seats    The number of seats.
+     * @return The sum of their price tiers.
+     */
+    int sumPriceTiers(int row, int startCol, int seats) {
+        int sum = 0;
+        for (int i = row * layout.getColLength() + startCol, end = i + seats; i < end; i++) {
+            sum += priceTiers[i];
+        }
+        return sum;
+    }
+
+    /**
+     * @return The dimensions of the cabin.
+     */
+    public CabinLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * @return A builder starting from these attributes.
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder(layout);
+        for (int row = 0; row < layout.getRowLength(); row++) {
+            for (int col = 0; col < layout.getColLength(); col++) {
+                builder.cabinClasses[row * layout.getColLength() + col] = (byte) getCabinClass(row, col).ordinal();
+            }
+        }
+        System.arraycopy(windowMasks, 0, builder.windowMasks, 0, windowMasks.length);
+        System.arraycopy(aisleMasks, 0, builder.aisleMasks, 0, aisleMasks.length);
+        System.arraycopy(exitRowMasks, 0, builder.exitRowMasks, 0, exitRowMasks.length);
+        System.arraycopy(blockedMasks, 0, builder.blockedMasks, 0, blockedMasks.length);
+        System.arraycopy(priceTiers, 0, builder.priceTiers, 0, priceTiers.length);
+        return builder;
+    }
+
+    private void checkSeat(int row, int col) {
+        if (row < 0 || row >= layout.getRowLength() || col < 0 || col >= layout.getColLength()) {
+            throw new IllegalArgumentException("Invalid seat selection.");
+        }
+    }
+
+    /**
+     * Builder class for constructing {@link SeatAttributes}.
+     * <p>
+     * Starts from the {@link #defaults default attributes}. Row and column ranges are inclusive.
+     */
+    public static class Builder {
+        private final CabinLayout layout;
+        private final long fullRowMask;
+        private final byte[] cabinClasses; // [row * colLength + col]: the ordinal of the cabin class
+        private final long[] windowMasks;
+        private final long[] aisleMasks;
+        private final long[] exitRowMasks;
+        private final long[] blockedMasks;
+        private final byte[] priceTiers;
+
+        /**
+         * @param layout The dimensions of the cabin.
+         */
+        public Builder(CabinLayout layout) {
+            this.layout = layout;
+            this.fullRowMask = FlightSeats.rangeMask(0, layout.getColLength() - 1);
+            this.cabinClasses = new byte[layout.getRowLength() * layout.getColLength()];
+            Arrays.fill(cabinClasses, (byte) CabinClass.ECONOMY.ordinal());
+            this.windowMasks = new long[layout.getRowLength()];
+            Arrays.fill(windowMasks, 1L | 1L << (layout.getColLength() - 1));
+            this.aisleMasks = new long[layout.getRowLength()];
+            this.exitRowMasks = new long[layout.getRowLength()];
+            this.blockedMasks = new long[layout.getRowLength()];
+            this.priceTiers = new byte[layout.getRowLength() * layout.getColLength()];
+        }
+
+        /**
+         * Sets the cabin class of a range of rows.
+         *
+         * @param fromRow    The first row.
+         * @param toRow      The last row.
+         * @param cabinClass The cabin class.
+         * @return The builder instance for chaining.
+         * @throws IllegalArgumentException If the rows are invalid or the class is null.
+         */
+        public Builder setCabinClass(int fromRow, int toRow, CabinClass cabinClass) {
+            checkRows(fromRow, toRow);
+            if (cabinClass == null) {
+                throw new IllegalArgumentException("Cabin class cannot be null");
+            }
+            Arrays.fill(cabinClasses, fromRow * layout.getColLength(), (toRow + 1) * layout.getColLength(),
+                    (byte) cabinClass.ordinal());
+            return this;
+        }
+
+        /**
+         * Sets the window seats of every row, replacing the default ones.
+         *
+         * @param cols The columns of the window seats.
+         * @return The builder instance for chaining.
+         * @throws IllegalArgumentException If a column is invalid.
+         */
+        public Builder setWindowColumns(int... cols) {
+            Arrays.fill(windowMasks, columnsMask(cols));
+            return this;
+        }
+
+        /**
+         * Sets the aisle seats of every row.
+         *
+         * @param cols The columns of the aisle seats.
+         * @return The builder instance for chaining.
+         * @throws IllegalArgumentException If a column is invalid.
+         */
+        public Builder setAisleColumns(int... cols) {
+            Arrays.fill(aisleMasks, columnsMask(cols));
+            return this;
+        }
+
+        /**
+         * Marks a row as an exit row.
+         *
+         * @param row The row number.
+         * @return The builder instance for chaining.
+         * @throws IllegalArgumentException If the row is invalid.
+         */
+        public Builder setExitRow(int row) {
+            checkRows(row, row);
+            exitRowMasks[row] = fullRowMask;
+            return this;
+        }
+
+        /**
+         * Blocks or unblocks a seat, e.g. a broken seat or one kept for crew.
+         *
+         * @param row     The row number.
+         * @param col     The column number.
+         * @param blocked Whether the seat is blocked.
+         * @return The builder instance for chaining.
+         * @throws IllegalArgumentException If the seat is invalid.
+         */
+        public Builder setBlocked(int row, int col, boolean blocked) {
+            checkRows(row, row);
+            long seat = columnsMask(col);
+            blockedMasks[row] = blocked ? blockedMasks[row] | seat : blockedMasks[row] & ~seat;
+            return this;
+        }
+
+        /**
+         * Sets the price tier of a range of seats of a range of rows.
+         *
+         * @param fromRow  The first row.
+         * @param toRow    The last row.
+         * @param startCol The first column.
+         * @param endCol   The last column.
+         * @param tier     The price tier, from 0 (cheapest) to {@value #MAX_PRICE_TIER}.
+         * @return The builder instance for chaining.
+         * @throws IllegalArgumentException If the seats or the tier are invalid.
+         */
+        public Builder setPriceTier(int fromRow, int toRow, int startCol, int endCol, int tier) {
+            checkRows(fromRow, toRow);
+            if (startCol < 0 || startCol > endCol || endCol >= layout.getColLength()) {
+                throw new IllegalArgumentException("Invalid seat selection.");
+            }
+            if (tier < 0 || tier > MAX_PRICE_TIER) {
+                throw new IllegalArgumentException("Price tier must be in the range of [0, " + MAX_PRICE_TIER + "]");
+            }
+            for (int row = fromRow; row <= toRow; row++) {
+                Arrays.fill(priceTiers, row * layout.getColLength() + startCol, row * layout.getColLength() + endCol + 1,
+                        (byte) tier);
+            }
+            return this;
+        }
+
+        /**
+         * @return The attributes.
+         */
+        public SeatAttributes build() {
+            return new SeatAttributes(this);
+        }
+
+        private int rowLength() {
+            return layout.getRowLength();
+        }
+
+        private void checkRows(int fromRow, int toRow) {
+            if (fromRow < 0 || fromRow > toRow || toRow >= layout.getRowLength()) {
+                throw new IllegalArgumentException("Invalid seat selection.");
+            }
+        }
+
+        private long columnsMask(int... cols) {
+            long mask = 0;
+            for (int col : cols) {
+                if (col < 0 || col >= layout.getColLength()) {
+                    throw new IllegalArgumentException("Invalid seat selection.");
+                }
+                mask |= 1L << col;
+            }
+            return mask;
+        }
+    }
+}
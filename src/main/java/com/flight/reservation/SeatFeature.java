@@ -0,0 +1,11 @@
+package com.flight.reservation;
+
+/**
+ * Enum of the position features of a seat, used to filter availability queries.
+ */
+public enum SeatFeature {
+    WINDOW,
+    AISLE,
+    MIDDLE,  // Neither window nor aisle
+    EXIT_ROW // Every seat of an exit row
+}
@@ -0,0 +1,115 @@
+package com.flight.reservation;
+
+/**
+ * The criteria of a filtered availability query, e.g. "economy, not a window seat".
+ * <p>
+ * A filter is immutable and built with a {@link Builder}; features are kept as bitsets of their
+ * ordinals, so applying a filter allocates nothing.
+ *
+ * @see FlightSeats#getAvailableMask(int, SeatFilter)
+ */
+public class SeatFilter {
+    public final static SeatFilter ANY = new Builder().build();
+
+    private final CabinClass cabinClass;
+    private final int requiredFeatures; // Bit `ordinal` set for every required feature
+    private final int excludedFeatures;
+    private final int maxPriceTier;
+
+    private SeatFilter(Builder builder) {
+        this.cabinClass = builder.cabinClass;
+        this.requiredFeatures = builder.requiredFeatures;
+        this.excludedFeatures = builder.excludedFeatures;
+        this.maxPriceTier = builder.maxPriceTier;
+    }
+
+    /**
+     * @return The cabin class seats must be in, or null for any class.
+     */
+    public CabinClass getCabinClass() {
+        return cabinClass;
+    }
+
+    /**
+     * @param feature A seat feature.
+     * @return true if seats must have the feature.
+     */
+    public boolean requires(SeatFeature feature) {
+        return (requiredFeatures & (1 << feature.ordinal())) != 0;
+    }
+
+    /**
+     * @param feature A seat feature.
+     * @return true if seats must not have the feature.
+     */
+    public boolean excludes(SeatFeature feature) {
+        return (excludedFeatures & (1 << feature.ordinal())) != 0;
+    }
+
+    /**
+     * @return The highest price tier of the seats.
+     */
+    public int getMaxPriceTier() {
+        return maxPriceTier;
+    }
+
+    /**
+     * Builder class for constructing {@link SeatFilter} objects. A new builder accepts every seat.
+     */
+    public static class Builder {
+        private CabinClass cabinClass;
+        private int requiredFeatures;
+        private int excludedFeatures;
+        private int maxPriceTier = SeatAttributes.MAX_PRICE_TIER;
+
+        /**
+         * @param cabinClass The cabin class seats must be in, or null for any class.
+         * @return The builder instance for chaining.
+         */
+        public Builder setCabinClass(CabinClass cabinClass) {
+            this.cabinClass = cabinClass;
+            return this;
+        }
+
+        /**
+         * @param feature A feature seats must have.
+         * @return The builder instance for chaining.
+         */
+        public Builder require(SeatFeature feature) {
+            requiredFeatures |= 1 << feature.ordinal();
+            excludedFeatures &= ~(1 << feature.ordinal());
+            return this;
+        }
+
+        /**
+         * @param feature A feature seats must not have, e.g. {@link SeatFeature#WINDOW} for aisle
+         *                and middle seats.
+         * @return The builder instance for chaining.
+         */
+        public Builder exclude(SeatFeature feature) {
+            excludedFeatures |= 1 << feature.ordinal();
+            requiredFeatures &= ~(1 << feature.ordinal());
+            return this;
+        }
+
+        /**
+         * @param maxPriceTier The highest price tier of the seats.
+         * @return The builder instance for chaining.
+         * @throws IllegalArgumentException If the tier is out of range.
+         */
+        public Builder setMaxPriceTier(int maxPriceTier) {
+            if (maxPriceTier < 0 || maxPriceTier > SeatAttributes.MAX_PRICE_TIER) {
+                throw new IllegalArgumentException("Price tier must be in the range of [0, " + SeatAttributes.MAX_PRICE_TIER + "]");
+            }
+            this.maxPriceTier = maxPriceTier;
+            return this;
+        }
+
+        /**
+         * @return The filter.
+         */
+        public SeatFilter build() {
+            return new SeatFilter(this);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.flight.reservation;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The seats held by a reservation manager while their payment runs.
+ * <p>
+ * Held seats are reserved in the row masks of {@link FlightSeats}, so bookings never take them;
+ * this class tracks which of the reserved seats are only held, by a bitmask per row, and the ID
+ * of the hold of every held seat. Holds are ordered per row by a lock taken by every hold
+ * operation, including expiry, so they need no compare-and-set among themselves.
+ * <p>
+ * Expiry runs on a {@link HoldTimerWheel} advanced by one virtual thread per manager while a hold
+ * is pending. The thread ends once the wheel is empty and the next hold starts a new one, so a
+ * manager that is dropped without being closed leaves no thread behind. Holds are kept in memory
+ * only.
+ */
+class SeatHolds {
+    final static long DEFAULT_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(Long.getLong("reservation.hold.seconds", 600));
+    private final static VarHandle HELD = MethodHandles.arrayElementVarHandle(long[].class);
+    private final static int WHEEL_SIZE = 512;
+    private final static long MIN_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final long[] heldRows; // Bit `col` set when the seat is held rather than booked
+    private final long[] holdIds; // [row * colLength + col]: the hold of each held seat
+    private final int colLength;
+    private final ReentrantLock[] rowLocks;
+    private final long timeoutNanos;
+    private final HoldTimerWheel wheel;
+    private final HoldTimerWheel.Expiry expiry;
+    private final AtomicBoolean ticking = new AtomicBoolean(); // Set while an expiry thread runs
+    private final AtomicLong lastHoldId = new AtomicLong();
+
+    /**
+     * @param layout       The dimensions of the cabin.
+     * @param timeoutNanos How long a hold lasts.
+     * @param expiry       Releases the seats of expired holds.
+     */
+    SeatHolds(CabinLayout layout, long timeoutNanos, HoldTimerWheel.Expiry expiry) {
+        this.heldRows = new long[layout.getRowLength()];
+        this.holdIds = new long[layout.getRowLength() * layout.getColLength()];
+        this.colLength = layout.getColLength();
+        this.rowLocks = new ReentrantLock[layout.getRowLength()];
+        for (int i = 0; i < rowLocks.length; i++) {
+            rowLocks[i] = new ReentrantLock();
+        }
+        this.timeoutNanos = timeoutNanos;
+        // Every hold lands within half a revolution, so a bucket rarely keeps entries for later
+        this.wheel = new HoldTimerWheel(Math.max(MIN_TICK_NANOS, timeoutNanos / (WHEEL_SIZE / 2)), WHEEL_SIZE, System.nanoTime());
+        this.expiry = expiry;
+    }
+
+    /**
+     * Gets the held seats of a row.
+     *
+     * @param row The row number.
+     * @return The bitmask of the held seats.
+     */
+    long getHeldMask(int row) {
+        return (long) HELD.getAcquire(heldRows, row);
+    }
+
+    /**
+     * Locks a row against other hold operations.
+     *
+     * @param row The row number.
+     */
+    void lock(int row) {
+        rowLocks[row].lock();
+    }
+
+    /**
+     * @param row The row number.
+     */
+    void unlock(int row) {
+        rowLocks[row].unlock();
+    }
+
+    /**
+     * Marks seats as held. The caller holds the row's lock.
+     *
+     * @param row   The row number.
+     * @param seats The seats to mark.
+     */
+    void markHeld(int row, long seats) {
+        HELD.setRelease(heldRows, row, getHeldMask(row) | seats);
+    }
+
+    /**
+     * Clears the held mark of seats. The caller holds the row's lock.
+     *
+     * @param row   The row number.
+     * @param seats The seats to clear.
+     */
+    void clearHeld(int row, long seats) {
+        HELD.setRelease(heldRows, row, getHeldMask(row) & ~seats);
+    }
+
+    /**
+     * Assigns a new hold to held seats and schedules its expiry. The caller holds the row's lock.
+     *
+     * @param row   The row number.
+     * @param seats The seats of the hold.
+     */
+    void startHold(int row, long seats) {
+        long holdId = lastHoldId.incrementAndGet();
+        for (long bits = seats; bits != 0; bits &= bits - 1) {
+            holdIds[row * colLength + Long.numberOfTrailingZeros(bits)] = holdId;
+        }
+        wheel.schedule(row, seats, holdId, System.nanoTime() + timeoutNanos);
+        if (!ticking.get() && ticking.compareAndSet(false, true)) {
+            startTicker();
+        }
+    }
+
+    /**
+     * Gets the seats that are still held by a hold. The caller holds the row's lock.
+     *
+     * @param row    The row number.
+     * @param seats  The seats of the hold.
+     * @param holdId The ID of the hold.
+     * @return The seats of {@code seats} held by that hold, and not by a later one.
+     */
+    long getSeatsOfHold(int row, long seats, long holdId) {
+        long stillHeld = 0;
+        for (long bits = seats & getHeldMask(row); bits != 0; bits &= bits - 1) {
+            int col = Long.numberOfTrailingZeros(bits);
+            if (holdIds[row * colLength + col] == holdId) {
+                stillHeld |= 1L << col;
+            }
+        }
+        return stillHeld;
+    }
+
+    /**
+     * @return The number of holds whose expiry is pending, including confirmed or released ones.
+     */
+    int getPendingExpiries() {
+        return wheel.size();
+    }
+
+    /**
+     * @return Whether an expiry thread is running.
+     */
+    boolean isTicking() {
+        return ticking.get();
+    }
+
+    private void startTicker() {
+        Thread thread = Thread.ofVirtual().name("hold-expiry").unstarted(this::tick);
+        thread.start();
+    }
+
+    private void tick() {
+        long tickNanos = wheel.getTickNanos();
+        while (true) {
+            LockSupport.parkNanos(this, tickNanos);
+            try {
+                wheel.advance(System.nanoTime(), expiry);
+            } catch (IllegalStateException e) {
+                return; // The manager was closed: no hold starts anymore
+            }
+            if (wheel.size() == 0) {
+                ticking.set(false);
+                // A hold scheduled before the flag was cleared saw this thread running: go on
+                // with it, unless that hold already started a new thread
+                if (wheel.size() == 0 || !ticking.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+    }
+}
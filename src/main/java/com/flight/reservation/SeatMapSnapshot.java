@@ -0,0 +1,75 @@
+package com.flight.reservation;
+
+/**
+ * An immutable copy of the reservation state of a flight, for seat-map queries.
+ * <p>
+ * Snapshots are taken by {@link FlightSeats#getSnapshot()} without taking any lock. Every
+ * snapshot carries the {@link FlightSeats#getVersion() version} of the chart it was copied from,
+ * so clients holding one can ask whether the chart changed since.
+ */
+public class SeatMapSnapshot {
+    private final long version;
+    private final CabinLayout layout;
+    private final long[] rows; // Reservation bitmask of each row
+
+    SeatMapSnapshot(long version, CabinLayout layout, long[] rows) {
+        this.version = version;
+        this.layout = layout;
+        this.rows = rows;
+    }
+
+    /**
+     * Gets the version of the chart this snapshot was taken at. The snapshot contains at least
+     * every change counted in that version.
+     *
+     * @return The version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return The dimensions of the cabin.
+     */
+    public CabinLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Gets the reservation bitmask of a row. Bit {@code col} is set when that seat is reserved.
+     *
+     * @param row The row number.
+     * @return The reservation bitmask of the row.
+     */
+    public long getRowMask(int row) {
+        return rows[row];
+    }
+
+    /**
+     * Checks whether the seat at the specified row and column is reserved.
+     *
+     * @param row The row number of the seat.
+     * @param col The column number of the seat.
+     * @return true if the seat is reserved, false otherwise.
+     * @throws IllegalArgumentException If the specified seat coordinates are invalid.
+     */
+    public boolean isReserved(int row, int col) {
+        if (row < 0 || row >= rows.length || col < 0 || col >= layout.getColLength()) {
+            throw new IllegalArgumentException("Invalid seat selection.");
+        }
+        return (rows[row] & (1L << col)) != 0;
+    }
+
+    /**
+     * Gets the number of available seats in the whole cabin.
+     *
+     * @return The number of seats that are not reserved.
+     */
+    public int getAvailableCount() {
+        int reserved = 0;
+        for (long row : rows) {
+            reserved += Long.bitCount(row);
+        }
+        return rows.length * layout.getColLength() - reserved;
+    }
+}
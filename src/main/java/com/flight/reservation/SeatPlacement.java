@@ -0,0 +1,122 @@
+package com.flight.reservation;
+
+/**
+ * Picks the seats of a BOOK within its row.
+ * <p>
+ * A party is seated together whenever the row has room: the block of adjacent free seats whose
+ * first seat is nearest to the requested column wins, the lower column on a tie. Only when no
+ * block is free, and splitting is allowed, the party is split over the fewest columns possible:
+ * the free seats spanning the narrowest range, again nearest to the requested column.
+ * <p>
+ * Everything is computed on the free-seat mask of the row: the starts of the free blocks with
+ * about log2(n) shifts and ANDs, and the nearest one on either side of the requested column with
+ * one leading/trailing zero count each. The split is one pass over the free seats. Nothing here
+ * allocates or depends on the number of rows.
+ */
+class SeatPlacement {
+    private SeatPlacement() {
+    }
+
+    /**
+     * Picks the seats of a party.
+     *
+     * @param freeMask   The free seats of the row.
+     * @param targetCol  The requested first column.
+     * @param totalSeats The size of the party.
+     * @param allowSplit Whether the party may be split when no block of adjacent seats is free.
+     * @return The mask of the picked seats, or 0 if the row has no room for the party.
+     */
+    static long place(long freeMask, int targetCol, int totalSeats, boolean allowSplit) {
+        if (Long.bitCount(freeMask) < totalSeats) {
+            return 0; // Most BOOKs of a nearly full row stop here
+        }
+        long block = nearestBlock(freeMask, targetCol, totalSeats);
+        if (block != 0 || !allowSplit) {
+            return block;
+        }
+        return narrowestGroup(freeMask, targetCol, totalSeats);
+    }
+
+    /**
+     * Finds the block of {@code totalSeats} adjacent free seats whose first seat is nearest to
+     * {@code targetCol}, the lower one on a tie.
+     *
+     * @param freeMask   The free seats of the row.
+     * @param targetCol  The requested first column.
+     * @param totalSeats The size of the block.
+     * @return The mask of the block, or 0 if the row has no such block.
+     */
+    static long nearestBlock(long freeMask, int targetCol, int totalSeats) {
+        long starts = blockStarts(freeMask, totalSeats);
+        if (starts == 0) {
+            return 0;
+        }
+        long atOrAfter = starts & (-1L << targetCol);
+        long before = starts & ~(-1L << targetCol);
+        int right = atOrAfter == 0 ? Integer.MAX_VALUE : Long.numberOfTrailingZeros(atOrAfter);
+        int left = before == 0 ? Integer.MIN_VALUE / 2 : Long.SIZE - 1 - Long.numberOfLeadingZeros(before);
+        int startCol = targetCol - left <= right - targetCol ? left : right;
+        return FlightSeats.rangeMask(startCol, startCol + totalSeats - 1);
+    }
+
+    /**
+     * Finds the {@code totalSeats} free seats spanning the fewest columns, and among those the
+     * group whose first seat is nearest to {@code targetCol}, the lower one on a tie.
+     *
+     * @param freeMask   The free seats of the row.
+     * @param targetCol  The requested first column.
+     * @param totalSeats The number of seats.
+     * @return The mask of the seats, or 0 if the row has fewer free seats.
+     */
+    static long narrowestGroup(long freeMask, int targetCol, int totalSeats) {
+        if (totalSeats < 1 || Long.bitCount(freeMask) < totalSeats) {
+            return 0;
+        }
+        // Slide a window of totalSeats free seats: `first` holds its first seat, `last` its last one
+        long first = freeMask;
+        long last = freeMask;
+        for (int i = 1; i < totalSeats; i++) {
+            last &= last - 1;
+        }
+        int bestStart = 0;
+        int bestEnd = Long.SIZE;
+        int bestDistance = Integer.MAX_VALUE;
+        for (; last != 0; first &= first - 1, last &= last - 1) {
+            int start = Long.numberOfTrailingZeros(first);
+            int end = Long.numberOfTrailingZeros(last);
+            int distance = Math.abs(start - targetCol);
+            if (end - start < bestEnd - bestStart || (end - start == bestEnd - bestStart && distance < bestDistance)) {
+                bestStart = start;
+                bestEnd = end;
+                bestDistance = distance;
+            }
+        }
+        return freeMask & FlightSeats.rangeMask(bestStart, bestEnd);
+    }
+
+    /**
+     * Gets the seats that start a block of {@code totalSeats} free seats. The starts of blocks of
+     * 1, 2, 4, ... seats each come from the previous ones with one shift and AND, and those of the
+     * binary digits of {@code totalSeats} are combined, each shifted past the ones before it.
+     *
+     * @param freeMask   The free seats of the row.
+     * @param totalSeats The size of the blocks.
+     * @return Bit {@code col} set when the seats {@code col} to {@code col + totalSeats - 1} are free.
+     */
+    static long blockStarts(long freeMask, int totalSeats) {
+        if (totalSeats < 1 || totalSeats > Long.SIZE) {
+            return 0;
+        }
+        long starts = -1L;
+        long runs = freeMask; // Starts of blocks of `length` free seats
+        int offset = 0; // The seats already covered by `starts`
+        for (int length = 1; length <= totalSeats && starts != 0; length <<= 1) {
+            if ((totalSeats & length) != 0) {
+                starts &= runs >>> offset;
+                offset += length;
+            }
+            runs &= runs >>> length; // A no-op past 32: shifts are taken modulo 64
+        }
+        return starts;
+    }
+}
@@ -0,0 +1,75 @@
+package com.flight.reservation;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandDecoderTest {
+
+    @Test
+    void decode_matchesCommandParser() {
+        CommandDecoder decoder = new CommandDecoder();
+        String[] lines = {"BOOK A3 2", "CANCEL UA100 B5 3", "  PLACE LH400 4 ", "HOLD BH12 3", "BOOK ZZ0 +64",
+                "BOOK UA100 A1 2 REQ=42", "PLACE 4 REQ=9223372036854775807"};
+        for (String line : lines) {
+            Command expected = CommandParser.parse(line.trim().split("\\s+"));
+
+            long packed = decoder.decode(line);
+
+            assertEquals(expected.getAction(), CommandDecoder.unpackAction(packed));
+            assertEquals(expected.getRowNumber(), CommandDecoder.unpackRowNumber(packed));
+            assertEquals(expected.getColumnNumber(), CommandDecoder.unpackColumnNumber(packed));
+            assertEquals(expected.getConsecutiveSeats(), CommandDecoder.unpackConsecutiveSeats(packed));
+            assertEquals(expected.getFlightId(), decoder.getFlightId());
+            Command command = decoder.toCommand();
+            assertEquals(expected.getAction(), command.getAction());
+            assertEquals(expected.getRowNumber(), command.getRowNumber());
+            assertEquals(expected.getColumnNumber(), command.getColumnNumber());
+            assertEquals(expected.getConsecutiveSeats(), command.getConsecutiveSeats());
+            assertEquals(expected.getFlightId(), command.getFlightId());
+            assertEquals(expected.getRequestId(), decoder.getRequestId());
+            assertEquals(expected.getRequestId(), command.getRequestId());
+        }
+    }
+
+    @Test
+    void decode_sameFlight_reusesFlightId() {
+        CommandDecoder decoder = new CommandDecoder();
+        decoder.decode("BOOK UA100 A1 1");
+        String flightId = decoder.getFlightId();
+
+        decoder.decode("CANCEL UA100 A1 1");
+
+        assertSame(flightId, decoder.getFlightId());
+    }
+
+    @Test
+    void decode_invalidLines_throwException() {
+        CommandDecoder decoder = new CommandDecoder();
+        String[] lines = {"", "RESERVE C2 2", "BOOK C123 2", "BOOK ua-100 C2 2", "BOOK A1", "BOOK A1 2 3 4",
+                "BOOK A1 0", "BOOK A1 x", "BOOK A60 8", "BOOK A63 2", "BOOK A1 99999999999", "PLACE A1 4 1",
+                "BOOK A1 2 REQ=0", "BOOK A1 2 REQ=-1", "BOOK A1 2 REQ=", "BOOK A1 2 REQ=9223372036854775808",
+                "BOOK A1 REQ=1", "BOOK UA100 A1 2 3 REQ=1"};
+        for (String line : lines) {
+            assertThrows(IllegalArgumentException.class, () -> decoder.decode(line));
+        }
+    }
+
+    @Test
+    void decode_byteBuffer_decodesEveryLine() {
+        CommandDecoder decoder = new CommandDecoder();
+        ByteBuffer buffer = ByteBuffer.wrap("BOOK A1 2\r\nBOGUS\nCANCEL UA100 B2 1".getBytes(StandardCharsets.US_ASCII));
+
+        long first = decoder.decode(buffer);
+        assertThrows(IllegalArgumentException.class, () -> decoder.decode(buffer));
+        long third = decoder.decode(buffer);
+
+        assertEquals(CommandDecoder.pack(Action.BOOK, 0, 1, 2), first);
+        assertEquals(CommandDecoder.pack(Action.CANCEL, 1, 2, 1), third);
+        assertEquals("UA100", decoder.getFlightId());
+        assertEquals(CommandDecoder.NO_LINE, decoder.decode(buffer));
+    }
+}
@@ -0,0 +1,166 @@
+package com.flight.reservation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandHistoryTest {
+    @Test
+    void undo_revertsLatestChangesWithEveryStrategy() throws Exception {
+        for (ReservationStrategy strategy : ReservationStrategy.values()) {
+            FlightSeats flightSeats = new FlightSeats(3, 8);
+            AbstractReservationManager manager = strategy.create(flightSeats);
+            try (CommandHistory history = new CommandHistory(manager, 16)) {
+                assertTrue(manager.execute(command(Action.BOOK, 0, 0, 2)));
+                assertTrue(manager.execute(command(Action.BOOK, 1, 4, 3)));
+                assertTrue(manager.execute(command(Action.CANCEL, 0, 1, 1)));
+
+                history.undo(1);
+                assertEquals(0b11L, flightSeats.getRowMask(0), strategy.name());
+
+                history.undo(1);
+                assertEquals(0L, flightSeats.getRowMask(1), strategy.name() + ": successive undos step back");
+                assertEquals(0b11L, flightSeats.getRowMask(0), strategy.name());
+            } finally {
+                close(manager);
+            }
+        }
+    }
+
+    @Test
+    void undo_restartsAfterNewCommand() {
+        FlightSeats flightSeats = new FlightSeats(3, 8);
+        AbstractReservationManager manager = new ReservationManager(flightSeats);
+        CommandHistory history = new CommandHistory(manager, 16);
+        manager.execute(command(Action.BOOK, 0, 0, 2));
+        manager.execute(command(Action.BOOK, 1, 0, 2));
+        history.undo(1);
+
+        manager.execute(command(Action.BOOK, 2, 0, 1));
+        history.undo(2);
+
+        assertEquals(0b11L, flightSeats.getRowMask(0));
+        assertEquals(0L, flightSeats.getRowMask(1));
+        assertEquals(0L, flightSeats.getRowMask(2));
+        assertThrows(IllegalArgumentException.class, () -> history.undo(5));
+    }
+
+    @Test
+    void restore_earlierVersionAndBackAgain() {
+        FlightSeats flightSeats = new FlightSeats(3, 8);
+        AbstractReservationManager manager = new ReservationManager(flightSeats);
+        CommandHistory history = new CommandHistory(manager, 16);
+        manager.execute(command(Action.BOOK, 0, 0, 2));
+        long booked = flightSeats.getVersion();
+        manager.execute(command(Action.BOOK, 0, 4, 1));
+        manager.execute(command(Action.BOOK, 2, 7, 1));
+        long latest = flightSeats.getVersion();
+
+        history.restore(booked);
+        assertEquals(0b11L, flightSeats.getRowMask(0));
+        assertEquals(0L, flightSeats.getRowMask(2));
+
+        history.restore(latest);
+        assertEquals(0b10011L, flightSeats.getRowMask(0));
+        assertEquals(0b10000000L, flightSeats.getRowMask(2));
+    }
+
+    @Test
+    void restore_leavesHeldSeats() {
+        FlightSeats flightSeats = new FlightSeats(1, 8);
+        AbstractReservationManager manager = new ReservationManager(flightSeats);
+        CommandHistory history = new CommandHistory(manager, 16);
+        long start = flightSeats.getVersion();
+        manager.execute(command(Action.BOOK, 0, 0, 2));
+        manager.execute(command(Action.HOLD, 0, 4, 2));
+
+        history.restore(start);
+
+        assertEquals(0b110000L, flightSeats.getRowMask(0));
+        assertEquals(0b110000L, manager.getHeldMask(0));
+    }
+
+    @Test
+    void restore_racingCommandOnSameSeats_notInverted() {
+        FlightSeats flightSeats = new FlightSeats(1, 8);
+        Command cancel = command(Action.CANCEL, 0, 0, 1);
+        boolean[] racing = {true};
+        // Cancels the seat the restore is about to free, right before the restore locks the row
+        AbstractReservationManager manager = new ReservationManagerWithCAS(flightSeats) {
+            @Override
+            protected boolean withRowLock(int row, IntPredicate update) {
+                if (racing[0]) {
+                    racing[0] = false;
+                    assertTrue(execute(cancel));
+                }
+                return super.withRowLock(row, update);
+            }
+        };
+        CommandHistory history = new CommandHistory(manager, 16);
+        long start = flightSeats.getVersion();
+        manager.execute(command(Action.BOOK, 0, 0, 2));
+
+        history.restore(start);
+
+        assertEquals(0L, flightSeats.getRowMask(0), "The canceled seat isn't booked again");
+        assertFalse(racing[0]);
+    }
+
+    @Test
+    void diff_seatsChangedBetweenVersions() {
+        FlightSeats flightSeats = new FlightSeats(3, 8);
+        AbstractReservationManager manager = new ReservationManager(flightSeats);
+        CommandHistory history = new CommandHistory(manager, 16);
+        long start = flightSeats.getVersion();
+        manager.execute(command(Action.BOOK, 0, 0, 3));
+        long middle = flightSeats.getVersion();
+        manager.execute(command(Action.CANCEL, 0, 0, 1));
+        manager.execute(command(Action.BOOK, 2, 5, 1));
+        long end = flightSeats.getVersion();
+
+        assertArrayEquals(new long[]{0b110L, 0, 0b100000L}, history.diff(start, end));
+        assertArrayEquals(new long[]{0b1L, 0, 0b100000L}, history.diff(end, middle));
+        assertArrayEquals(new long[3], history.diff(end, end));
+    }
+
+    @Test
+    void capacity_boundsRestorableVersions() {
+        FlightSeats flightSeats = new FlightSeats(1, 8);
+        AbstractReservationManager manager = new ReservationManager(flightSeats);
+        CommandHistory history = new CommandHistory(manager, 3);
+        long start = flightSeats.getVersion();
+        for (int col = 0; col < 6; col++) {
+            manager.execute(command(Action.BOOK, 0, col, 1));
+        }
+
+        assertEquals(4, history.getCapacity());
+        assertEquals(start + 2, history.getOldestVersion());
+        assertThrows(IllegalArgumentException.class, () -> history.restore(start));
+        history.restore(start + 2);
+        assertEquals(0b11L, flightSeats.getRowMask(0));
+    }
+
+    @Test
+    void constructor_invalidCapacity_throwsException() {
+        AbstractReservationManager manager = new ReservationManager(new FlightSeats(1, 8));
+
+        assertThrows(IllegalArgumentException.class, () -> new CommandHistory(manager, 0));
+    }
+
+    private static void close(AbstractReservationManager manager) throws Exception {
+        if (manager instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private static Command command(Action action, int row, int col, int seats) {
+        return new Command.Builder()
+                .setAction(action)
+                .setRowNumber(row)
+                .setColumnNumber(col)
+                .setConsecutiveSeats(seats)
+                .build();
+    }
+}
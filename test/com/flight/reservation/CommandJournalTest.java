@@ -0,0 +1,173 @@
+package com.flight.reservation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void replay_restoresRowsOfDurableCommands() throws IOException {
+        String fileName = tempDir.resolve("seats.journal").toString();
+        FlightSeats flightSeats = new FlightSeats();
+        ReservationManager reservationManager = new ReservationManager(flightSeats);
+        try (CommandJournal journal = CommandJournal.open(fileName)) {
+            Command book = command(Action.BOOK, 2, 1, 3);
+            Command cancel = command(Action.CANCEL, 2, 1, 1);
+            reservationManager.execute(book);
+            journal.awaitDurable(journal.append(book, flightSeats));
+            reservationManager.execute(cancel);
+            journal.awaitDurable(journal.append(cancel, flightSeats));
+        }
+
+        FlightSeats restored = new FlightSeats();
+        try (CommandJournal journal = CommandJournal.open(fileName)) {
+            assertEquals(2, journal.replay(restored));
+        }
+
+        assertEquals(flightSeats.getRowMask(2), restored.getRowMask(2));
+        assertEquals(0L, restored.getRowMask(1));
+    }
+
+    @Test
+    void replay_restoresEveryFlightIntoInventory() throws IOException {
+        String fileName = tempDir.resolve("seats.journal").toString();
+        FlightSeats defaultFlight = new FlightSeats();
+        FlightSeats otherFlight = new FlightSeats();
+        try (CommandJournal journal = CommandJournal.open(fileName)) {
+            defaultFlight.getSeat(1, 1).reserve();
+            journal.append(command(Action.BOOK, 1, 1, 1), defaultFlight);
+            otherFlight.getSeat(3, 0).reserve();
+            journal.append(new Command.Builder().setFlightId("UA100").setAction(Action.BOOK)
+                    .setRowNumber(3).setColumnNumber(0).setConsecutiveSeats(1).build(), otherFlight);
+        }
+
+        FlightInventory inventory = new FlightInventory(new FlightStore(tempDir.resolve("seats.bin").toString(),
+                tempDir.resolve("seats.txt").toString(), tempDir.resolve("flights")), ReservationStrategy.CAS);
+        FlightSeats restoredDefault = new FlightSeats();
+        try (CommandJournal journal = CommandJournal.open(fileName)) {
+            assertEquals(2, journal.replay(inventory));
+            assertEquals(2, journal.replay(restoredDefault));
+        }
+
+        assertEquals(2, inventory.size());
+        assertEquals(defaultFlight.getRowMask(1), inventory.getFlightSeats(Command.DEFAULT_FLIGHT_ID).getRowMask(1));
+        assertEquals(otherFlight.getRowMask(3), inventory.getFlightSeats("UA100").getRowMask(3));
+        assertEquals(0L, restoredDefault.getRowMask(3)); // Records of other flights are skipped
+    }
+
+    @Test
+    void open_dropsTornRecord() throws IOException {
+        Path path = tempDir.resolve("seats.journal");
+        FlightSeats flightSeats = new FlightSeats();
+        flightSeats.getSeat(4, 4).reserve();
+        try (CommandJournal journal = CommandJournal.open(path.toString())) {
+            journal.append(command(Action.BOOK, 4, 4, 1), flightSeats);
+        }
+        Files.write(path, new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+
+        FlightSeats restored = new FlightSeats();
+        try (CommandJournal journal = CommandJournal.open(path.toString())) {
+            assertEquals(1, journal.replay(restored));
+        }
+
+        assertEquals(flightSeats.getRowMask(4), restored.getRowMask(4));
+    }
+
+    @Test
+    void compact_movesStateIntoSnapshot() throws IOException {
+        FlightSeats flightSeats = new FlightSeats();
+        ReservationManager reservationManager = new ReservationManager(flightSeats);
+        try (MappedSeatStore store = MappedSeatStore.create(tempDir.resolve("seats.bin").toString(), new FlightSeats());
+             CommandJournal journal = CommandJournal.open(tempDir.resolve("seats.journal").toString())) {
+            Command book = command(Action.BOOK, 7, 0, 2);
+            reservationManager.execute(book);
+            journal.awaitDurable(journal.append(book, flightSeats));
+
+            journal.compact(flightSeats, store);
+
+            assertEquals(0, journal.size());
+            assertEquals(flightSeats.getRowMask(7), store.readRow(7));
+            assertEquals(0, journal.replay(new FlightSeats()));
+        }
+    }
+
+    @Test
+    void appendAndCompact_heldSeatsNotPersisted() throws IOException {
+        FlightSeats flightSeats = new FlightSeats();
+        ReservationManager reservationManager = new ReservationManager(flightSeats);
+        try (MappedSeatStore store = MappedSeatStore.create(tempDir.resolve("seats.bin").toString(), new FlightSeats());
+             CommandJournal journal = CommandJournal.open(tempDir.resolve("seats.journal").toString())) {
+            Command hold = command(Action.HOLD, 3, 0, 2);
+            Command confirm = command(Action.CONFIRM, 3, 0, 1);
+            assertTrue(reservationManager.execute(hold));
+            journal.awaitDurable(journal.append(hold, flightSeats));
+            assertTrue(reservationManager.execute(confirm));
+            journal.awaitDurable(journal.append(confirm, flightSeats));
+
+            FlightSeats restored = new FlightSeats();
+            journal.replay(restored);
+            assertEquals(0b01L, restored.getRowMask(3), "Only the confirmed seat survives a restart");
+
+            journal.compact(flightSeats, store);
+            assertEquals(0b01L, store.readRow(3));
+            assertEquals(0b11L, flightSeats.getRowMask(3), "The open hold still reserves its seat in memory");
+        }
+    }
+
+    @Test
+    void awaitDurable_concurrentCallers_allRecordsReplayed() throws Exception {
+        String fileName = tempDir.resolve("seats.journal").toString();
+        FlightSeats flightSeats = new FlightSeats();
+        ReservationManagerWithCAS reservationManager = new ReservationManagerWithCAS(flightSeats);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try (CommandJournal journal = CommandJournal.open(fileName)) {
+            List<Future<?>> results = new ArrayList<>();
+            for (int row = 0; row < flightSeats.getRowLength(); row++) {
+                for (int col = 0; col < flightSeats.getColLength(); col++) {
+                    int r = row, c = col;
+                    results.add(executor.submit(() -> {
+                        assertTrue(reservationManager.reserveSeats(r, c, c));
+                        journal.awaitDurable(journal.append(command(Action.BOOK, r, c, 1), flightSeats));
+                    }));
+                }
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        FlightSeats restored = new FlightSeats();
+        try (CommandJournal journal = CommandJournal.open(fileName)) {
+            assertEquals(flightSeats.getRowLength() * flightSeats.getColLength(), journal.replay(restored));
+        }
+        for (int row = 0; row < restored.getRowLength(); row++) {
+            assertEquals(restored.getFullRowMask(), restored.getRowMask(row));
+        }
+    }
+
+    private static Command command(Action action, int row, int col, int seats) {
+        return new Command.Builder()
+                .setAction(action)
+                .setRowNumber(row)
+                .setColumnNumber(col)
+                .setConsecutiveSeats(seats)
+                .build();
+    }
+}
@@ -29,6 +29,72 @@ class CommandParserTest {
         assertEquals(3, command.getConsecutiveSeats());
     }
 
+    @Test
+    void parseCommandWithFlightId() {
+        String[] args = {"BOOK", "UA100", "C2", "2"};
+
+        Command command = CommandParser.parse(args);
+
+        assertEquals("UA100", command.getFlightId());
+        assertEquals(2, command.getRowNumber());
+        assertEquals(2, command.getColumnNumber());
+    }
+
+    @Test
+    void parseCommandWithoutFlightId_defaultFlight() {
+        Command command = CommandParser.parse(new String[]{"BOOK", "A3", "2"});
+
+        assertEquals(Command.DEFAULT_FLIGHT_ID, command.getFlightId());
+    }
+
+    @Test
+    void parseInvalidFlightId_throwsException() {
+        String[] args = {"BOOK", "ua-100", "C2", "2"};
+
+        assertThrows(IllegalArgumentException.class, () -> CommandParser.parse(args));
+    }
+
+    @Test
+    void parseWidebodyPosition() {
+        Command command = CommandParser.parse(new String[]{"BOOK", "BH12", "3"});
+
+        assertEquals(59, command.getRowNumber()); // A-Z, then AA-AZ, then BA-BH
+        assertEquals(12, command.getColumnNumber());
+        assertThrows(IllegalArgumentException.class, () -> CommandParser.parse(new String[]{"BOOK", "ABC1", "3"}));
+        assertThrows(IllegalArgumentException.class, () -> CommandParser.parse(new String[]{"BOOK", "A1B", "3"}));
+    }
+
+    @Test
+    void parsePlaceCommand() {
+        Command command = CommandParser.parse(new String[]{"PLACE", "UA100", "4"});
+
+        assertEquals(Action.PLACE, command.getAction());
+        assertEquals("UA100", command.getFlightId());
+        assertEquals(4, command.getConsecutiveSeats());
+        assertThrows(IllegalArgumentException.class, () -> CommandParser.parse(new String[]{"PLACE", "A1", "4", "1"}));
+    }
+
+    @Test
+    void parseCommandWithRequestId() {
+        Command command = CommandParser.parse(new String[]{"BOOK", "UA100", "C2", "2", "REQ=42"});
+
+        assertEquals("UA100", command.getFlightId());
+        assertEquals(2, command.getConsecutiveSeats());
+        assertEquals(42, command.getRequestId());
+        assertEquals(42, CommandParser.parse(new String[]{"PLACE", "4", "REQ=42"}).getRequestId());
+        assertEquals(Command.NO_REQUEST_ID, CommandParser.parse(new String[]{"BOOK", "C2", "2"}).getRequestId());
+        assertThrows(IllegalArgumentException.class, () -> CommandParser.parse(new String[]{"BOOK", "C2", "2", "REQ=0"}));
+        assertThrows(IllegalArgumentException.class, () -> CommandParser.parse(new String[]{"BOOK", "C2", "2", "REQ=x"}));
+        assertThrows(IllegalArgumentException.class, () -> CommandParser.parse(new String[]{"BOOK", "C2", "REQ=42"}));
+    }
+
+    @Test
+    void parseHoldCommands() {
+        assertEquals(Action.HOLD, CommandParser.parse(new String[]{"HOLD", "UA100", "B2", "2"}).getAction());
+        assertEquals(Action.CONFIRM, CommandParser.parse(new String[]{"CONFIRM", "B2", "2"}).getAction());
+        assertEquals(Action.RELEASE, CommandParser.parse(new String[]{"RELEASE", "B2", "2"}).getAction());
+    }
+
     @Test
     void parseInvalidAction_throwsException() {
         String[] args = {"RESERVE", "C2", "2"};
@@ -38,7 +104,7 @@ class CommandParserTest {
 
     @Test
     void parseInvalidPositionFormat_throwsException() {
-        String[] args = {"BOOK", "C22", "2"};
+        String[] args = {"BOOK", "C123", "2"};
 
         assertThrows(IllegalArgumentException.class, () -> CommandParser.parse(args));
     }
@@ -40,7 +40,7 @@ class CommandTest {
             new Command.Builder()
                     .setAction(Action.BOOK)
                     .setRowNumber(5)
-                    .setColumnNumber(10)  // Invalid column
+                    .setColumnNumber(FlightSeats.MAX_COL_LENGTH)  // Invalid column
                     .setConsecutiveSeats(3)
                     .build();
         });
@@ -55,7 +55,7 @@ class CommandTest {
                     .setAction(Action.BOOK)
                     .setRowNumber(5)
                     .setColumnNumber(2)
-                    .setConsecutiveSeats(10)  // Too many seats
+                    .setConsecutiveSeats(FlightSeats.MAX_COL_LENGTH + 1)  // Too many seats
                     .build();
         });
 
@@ -82,11 +82,38 @@ class CommandTest {
             new Command.Builder()
                     .setAction(Action.BOOK)
                     .setRowNumber(5)
-                    .setColumnNumber(6)  // Column 6 + 3 seats → Exceeds limit of 7
+                    .setColumnNumber(62)  // Column 62 + 3 seats → Exceeds limit of 63
                     .setConsecutiveSeats(3)
                     .build();
         });
 
-        assertTrue(exception.getMessage().contains("The end column number must be smaller than or equal to 7"));
+        assertTrue(exception.getMessage().contains("The end column number must be smaller than or equal to 63"));
+    }
+
+    @Test
+    void testCommandBuilder_widebodyPosition_createsValidCommand() {
+        Command command = new Command.Builder()
+                .setAction(Action.BOOK)
+                .setRowNumber(59)
+                .setColumnNumber(9)
+                .setConsecutiveSeats(10)
+                .build();
+
+        assertEquals(59, command.getRowNumber());
+        assertEquals(9, command.getColumnNumber());
+        assertEquals(10, command.getConsecutiveSeats());
+    }
+
+    @Test
+    void testCommandBuilder_requestId_optional() {
+        Command.Builder builder = new Command.Builder()
+                .setAction(Action.BOOK)
+                .setRowNumber(1)
+                .setColumnNumber(2)
+                .setConsecutiveSeats(2);
+
+        assertEquals(Command.NO_REQUEST_ID, builder.build().getRequestId());
+        assertEquals(42L, builder.setRequestId(42).build().getRequestId());
+        assertThrows(IllegalArgumentException.class, () -> builder.setRequestId(0));
     }
 }
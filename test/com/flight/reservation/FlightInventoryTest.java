@@ -0,0 +1,122 @@
+package com.flight.reservation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightInventoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void execute_loadsFlightOnFirstTouch() {
+        FlightInventory inventory = new FlightInventory(createFlightStore(), ReservationStrategy.ROW_LOCK);
+        assertEquals(0, inventory.size());
+
+        assertTrue(inventory.execute(command("UA100", Action.BOOK, 0, 0, 2)));
+
+        assertEquals(1, inventory.size());
+        assertEquals(0b11L, inventory.getFlightSeats("UA100").getRowMask(0));
+    }
+
+    @Test
+    void execute_differentFlights_independent() {
+        FlightInventory inventory = new FlightInventory(createFlightStore(), ReservationStrategy.CAS);
+
+        assertTrue(inventory.execute(command("UA100", Action.BOOK, 2, 3, 1)));
+        assertFalse(inventory.execute(command("LH400", Action.CANCEL, 2, 3, 1)));
+
+        assertNotSame(inventory.getReservationManager("UA100"), inventory.getReservationManager("LH400"));
+        assertEquals(0L, inventory.getFlightSeats("LH400").getRowMask(2));
+    }
+
+    @Test
+    void executeAll_resultsInInputOrder() {
+        FlightInventory inventory = new FlightInventory(createFlightStore(), ReservationStrategy.SYNCHRONIZED);
+
+        boolean[] results = inventory.executeAll(List.of(
+                command("UA100", Action.BOOK, 1, 0, 1),
+                command("LH400", Action.CANCEL, 1, 0, 1),
+                command("UA100", Action.CANCEL, 1, 0, 1)));
+
+        assertArrayEquals(new boolean[]{true, false, true}, results);
+    }
+
+    @Test
+    void executeInRow_placeCommand_returnsRowFoundWithRoom() {
+        FlightInventory inventory = new FlightInventory(createFlightStore(), ReservationStrategy.CAS);
+        inventory.getFlightSeats("UA100").setRowMask(0, 0b1L);
+
+        int row = inventory.executeInRow(new Command.Builder().setFlightId("UA100").setAction(Action.PLACE)
+                .setConsecutiveSeats(8).build());
+
+        assertEquals(1, row);
+        assertEquals(0xFFL, inventory.getFlightSeats("UA100").getRowMask(1));
+    }
+
+    @Test
+    void execute_flightCreatedWithOwnLayout() {
+        FlightStore flightStore = createFlightStore();
+        assertTrue(flightStore.create("UA100", new CabinLayout(60, 10)));
+        assertFalse(flightStore.create("UA100", new CabinLayout(30, 6)));
+        FlightInventory inventory = new FlightInventory(flightStore, ReservationStrategy.ROW_LOCK);
+
+        assertTrue(inventory.execute(command("UA100", Action.BOOK, 59, 9, 1)));
+        assertThrows(IllegalArgumentException.class, // Default 20x8 cabin
+                () -> inventory.execute(command("LH400", Action.BOOK, 59, 9, 1)));
+        assertEquals(new CabinLayout(60, 10), inventory.getFlightSeats("UA100").getLayout());
+    }
+
+    @Test
+    void saveDirty_onlyWritesChangedFlights() {
+        FlightInventory inventory = new FlightInventory(createFlightStore(), ReservationStrategy.ROW_LOCK);
+        inventory.execute(command("UA100", Action.BOOK, 4, 2, 3));
+        inventory.getFlightSeats("LH400");
+
+        inventory.saveDirty();
+
+        assertTrue(Files.exists(tempDir.resolve("flights").resolve("UA100.bin")));
+        assertFalse(Files.exists(tempDir.resolve("flights").resolve("LH400.bin")));
+        FlightInventory reloaded = new FlightInventory(createFlightStore(), ReservationStrategy.ROW_LOCK);
+        assertEquals(inventory.getFlightSeats("UA100").getRowMask(4), reloaded.getFlightSeats("UA100").getRowMask(4));
+    }
+
+    @Test
+    void save_importedChartOverExistingFile_writesEveryRow() {
+        FlightStore flightStore = createFlightStore();
+        flightStore.save(Command.DEFAULT_FLIGHT_ID, new FlightSeats()); // An existing, empty chart
+        FlightSeats exported = new FlightSeats();
+        exported.getSeat(0, 0).reserve();
+        exported.getSeat(19, 7).reserve();
+        String csvFile = tempDir.resolve("import.txt").toString();
+        new FileManager().saveToFile(exported, csvFile);
+
+        flightStore.save(Command.DEFAULT_FLIGHT_ID, new FlightSeats(new FileManager().loadFromFile(csvFile)));
+
+        FlightSeats imported = flightStore.load(Command.DEFAULT_FLIGHT_ID);
+        for (int row = 0; row < exported.getRowLength(); row++) {
+            assertEquals(exported.getRowMask(row), imported.getRowMask(row), "Row " + row);
+        }
+    }
+
+    private FlightStore createFlightStore() {
+        return new FlightStore(tempDir.resolve("seats.bin").toString(),
+                tempDir.resolve("seats.txt").toString(), tempDir.resolve("flights"));
+    }
+
+    private static Command command(String flightId, Action action, int row, int col, int seats) {
+        return new Command.Builder()
+                .setFlightId(flightId)
+                .setAction(action)
+                .setRowNumber(row)
+                .setColumnNumber(col)
+                .setConsecutiveSeats(seats)
+                .build();
+    }
+}
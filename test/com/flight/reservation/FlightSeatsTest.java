@@ -51,4 +51,115 @@ class FlightSeatsTest {
         assertThrows(IllegalArgumentException.class, () -> flightSeats.getSeat(21, 0)); // Invalid row
         assertThrows(IllegalArgumentException.class, () -> flightSeats.getSeat(0, 8));  // Invalid column
     }
+
+    @Test
+    void testSeatViewUpdatesRowMask() {
+        FlightSeats flightSeats = new FlightSeats();
+
+        flightSeats.getSeat(3, 0).reserve();
+        flightSeats.getSeat(3, 5).reserve();
+
+        assertEquals(0b100001L, flightSeats.getRowMask(3));
+        assertTrue(flightSeats.isReserved(3, 5));
+        assertEquals(6, flightSeats.getAvailableCount(3));
+
+        flightSeats.getSeat(3, 5).cancel();
+
+        assertEquals(0b1L, flightSeats.getRowMask(3));
+        assertEquals(7, flightSeats.getAvailableCount(3));
+    }
+
+    @Test
+    void testRowMaskIgnoresBitsBeyondLastColumn() {
+        FlightSeats flightSeats = new FlightSeats();
+
+        flightSeats.setRowMask(0, -1L);
+
+        assertEquals(0xFFL, flightSeats.getRowMask(0));
+        assertEquals(0, flightSeats.getAvailableCount(0));
+    }
+
+    @Test
+    void testFindRowWithFreeBlockFollowsRowUpdates() {
+        FlightSeats flightSeats = new FlightSeats(3, 8);
+
+        flightSeats.setRowMask(0, 0b10001000L); // Longest free block: 3 seats
+        flightSeats.setRowMask(1, 0b00010000L); // Longest free block: 4 seats
+
+        assertEquals(3, flightSeats.getLongestFreeBlock(0));
+        assertEquals(0, flightSeats.findRowWithFreeBlock(3));
+        assertEquals(1, flightSeats.findRowWithFreeBlock(4));
+        assertEquals(2, flightSeats.findRowWithFreeBlock(5));
+
+        flightSeats.getSeat(2, 4).reserve();
+
+        assertEquals(-1, flightSeats.findRowWithFreeBlock(5));
+        assertEquals(-1, flightSeats.findRowWithFreeBlock(9));
+
+        flightSeats.getSeat(2, 4).cancel();
+
+        assertEquals(2, flightSeats.findRowWithFreeBlock(8));
+    }
+
+    @Test
+    void testInvalidDimensions() {
+        assertThrows(IllegalArgumentException.class, () -> new FlightSeats(0, 8));
+        assertThrows(IllegalArgumentException.class, () -> new FlightSeats(20, FlightSeats.MAX_COL_LENGTH + 1));
+        assertThrows(IllegalArgumentException.class, () -> new FlightSeats(CabinLayout.MAX_ROW_LENGTH + 1, 8));
+    }
+
+    @Test
+    void testCabinLayout() {
+        FlightSeats flightSeats = new FlightSeats(CabinLayout.parse("60x10"));
+
+        assertEquals(60, flightSeats.getRowLength());
+        assertEquals(10, flightSeats.getColLength());
+        assertEquals(new CabinLayout(60, 10), flightSeats.getLayout());
+        assertEquals("20x8", new FlightSeats().getLayout().toString());
+        assertThrows(IllegalArgumentException.class, () -> CabinLayout.parse("60"));
+        assertThrows(IllegalArgumentException.class, () -> CabinLayout.parse("60xA"));
+    }
+
+    @Test
+    void testSnapshot() {
+        FlightSeats flightSeats = new FlightSeats();
+        SeatMapSnapshot empty = flightSeats.getSnapshot();
+
+        assertSame(empty, flightSeats.getSnapshot()); // Cached until the chart changes
+        assertNull(flightSeats.getSnapshotIfChanged(empty.getVersion()));
+
+        flightSeats.getSeat(3, 1).reserve();
+        SeatMapSnapshot changed = flightSeats.getSnapshotIfChanged(empty.getVersion());
+
+        assertNotNull(changed);
+        assertTrue(changed.getVersion() > empty.getVersion());
+        assertTrue(changed.isReserved(3, 1));
+        assertFalse(empty.isReserved(3, 1)); // Earlier snapshots don't change
+        assertEquals(20 * 8 - 1, changed.getAvailableCount());
+        assertThrows(IllegalArgumentException.class, () -> changed.isReserved(3, 8));
+    }
+
+    @Test
+    void testSnapshot_concurrentWriter_consistentCut() throws InterruptedException {
+        FlightSeats flightSeats = new FlightSeats();
+        Thread writer = new Thread(() -> {
+            // Row 1 is only ever reserved while row 0 is
+            while (!Thread.currentThread().isInterrupted()) {
+                flightSeats.setRowMask(0, 1L);
+                flightSeats.setRowMask(1, 1L);
+                flightSeats.setRowMask(1, 0L);
+                flightSeats.setRowMask(0, 0L);
+            }
+        });
+        writer.start();
+        try {
+            for (int i = 0; i < 20_000; i++) {
+                SeatMapSnapshot snapshot = flightSeats.getSnapshot();
+                assertFalse(snapshot.isReserved(1, 0) && !snapshot.isReserved(0, 0));
+            }
+        } finally {
+            writer.interrupt();
+            writer.join();
+        }
+    }
 }
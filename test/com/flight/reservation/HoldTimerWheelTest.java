@@ -0,0 +1,53 @@
+package com.flight.reservation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HoldTimerWheelTest {
+
+    @Test
+    void advance_expiresOnlyDueHolds() {
+        HoldTimerWheel wheel = new HoldTimerWheel(10, 8, 0);
+        wheel.schedule(1, 0b11L, 1, 25);  // Tick 3
+        wheel.schedule(2, 0b100L, 2, 95); // Tick 10, a revolution later in the same bucket as tick 2
+        List<Long> expired = new ArrayList<>();
+
+        assertEquals(0, wheel.advance(29, (row, mask, holdId) -> expired.add(holdId)));
+        assertEquals(1, wheel.advance(30, (row, mask, holdId) -> expired.add(holdId)));
+        assertEquals(List.of(1L), expired);
+        assertEquals(1, wheel.size());
+
+        assertEquals(1, wheel.advance(100, (row, mask, holdId) -> expired.add(holdId)));
+        assertEquals(List.of(1L, 2L), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_afterSeveralRevolutions_expiresEverything() {
+        HoldTimerWheel wheel = new HoldTimerWheel(10, 4, 0);
+        for (int i = 0; i < 100; i++) {
+            wheel.schedule(i % 20, 1L << (i % 8), i, i * 7L);
+        }
+
+        assertEquals(100, wheel.advance(10_000, (row, mask, holdId) -> { }));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void schedule_pastDeadline_expiresOnNextAdvance() {
+        HoldTimerWheel wheel = new HoldTimerWheel(10, 8, 0);
+        wheel.advance(50, (row, mask, holdId) -> { });
+
+        wheel.schedule(3, 0b1L, 7, 20);
+
+        assertEquals(1, wheel.advance(60, (row, mask, holdId) -> {
+            assertEquals(3, row);
+            assertEquals(0b1L, mask);
+            assertEquals(7, holdId);
+        }));
+    }
+}
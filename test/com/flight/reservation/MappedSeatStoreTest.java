@@ -0,0 +1,132 @@
+package com.flight.reservation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedSeatStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void createAndOpen_roundTripsSeatStates() throws IOException {
+        String fileName = tempDir.resolve("seats.bin").toString();
+        FlightSeats flightSeats = new FlightSeats(12, 10);
+        flightSeats.getSeat(0, 0).reserve();
+        flightSeats.getSeat(11, 9).reserve();
+        MappedSeatStore.create(fileName, flightSeats).close();
+
+        try (MappedSeatStore store = MappedSeatStore.open(fileName)) {
+            FlightSeats loaded = store.load();
+
+            assertEquals(12, loaded.getRowLength());
+            assertEquals(10, loaded.getColLength());
+            for (int row = 0; row < 12; row++) {
+                assertEquals(flightSeats.getRowMask(row), loaded.getRowMask(row));
+            }
+        }
+    }
+
+    @Test
+    void writeRow_onlyChangesThatRow() throws IOException {
+        String fileName = tempDir.resolve("seats.bin").toString();
+        try (MappedSeatStore store = MappedSeatStore.create(fileName, new FlightSeats())) {
+            store.writeRow(3, 0b1011L);
+
+            assertEquals(0b1011L, store.readRow(3));
+            assertEquals(0L, store.readRow(2));
+            assertEquals(0L, store.readRow(4));
+        }
+    }
+
+    @Test
+    void saveDirtyRows_writesOnlyRowsChangedSinceLastSave() throws IOException {
+        String fileName = tempDir.resolve("seats.bin").toString();
+        FlightSeats flightSeats = new FlightSeats(70, 4); // Dirty rows span two bitset words
+        try (MappedSeatStore store = MappedSeatStore.create(fileName, flightSeats)) {
+            assertFalse(flightSeats.isDirty());
+            store.writeRow(5, 0b1111L); // Not rewritten unless row 5 changes
+            flightSeats.getSeat(1, 0).reserve();
+            flightSeats.getSeat(1, 2).reserve();
+            flightSeats.getSeat(65, 3).reserve();
+
+            assertTrue(flightSeats.isDirty());
+            assertEquals(2, store.saveDirtyRows(flightSeats));
+            assertEquals(0b0101L, store.readRow(1));
+            assertEquals(0b1000L, store.readRow(65));
+            assertEquals(0b1111L, store.readRow(5));
+            assertFalse(flightSeats.isDirty());
+            assertEquals(0, store.saveDirtyRows(flightSeats));
+        }
+    }
+
+    @Test
+    void load_leavesNoDirtyRows() throws IOException {
+        String fileName = tempDir.resolve("seats.bin").toString();
+        FlightSeats flightSeats = new FlightSeats();
+        flightSeats.getSeat(3, 3).reserve();
+        MappedSeatStore.create(fileName, flightSeats).close();
+
+        try (MappedSeatStore store = MappedSeatStore.open(fileName)) {
+            assertFalse(store.load().isDirty());
+        }
+    }
+
+    @Test
+    void saveDirtyRows_blockedSeats_roundTrip() throws IOException {
+        String fileName = tempDir.resolve("seats.bin").toString();
+        FlightSeats flightSeats = new FlightSeats();
+        try (MappedSeatStore store = MappedSeatStore.create(fileName, flightSeats)) {
+            flightSeats.setAttributes(flightSeats.getAttributes().toBuilder().setBlocked(4, 2, true).build());
+
+            assertTrue(flightSeats.isDirty());
+            assertEquals(1, store.saveDirtyRows(flightSeats));
+            assertEquals(0b100L, store.readBlockedRow(4));
+            assertEquals(0L, store.readRow(4), "Blocked seats aren't reserved");
+        }
+
+        try (MappedSeatStore store = MappedSeatStore.open(fileName)) {
+            FlightSeats loaded = store.load();
+
+            assertTrue(loaded.getAttributes().isBlocked(4, 2));
+            assertFalse(loaded.getAttributes().isBlocked(4, 3));
+            assertFalse(loaded.isDirty());
+        }
+    }
+
+    @Test
+    void open_versionWithoutBlockedSeats_upgraded() throws IOException {
+        Path file = tempDir.resolve("seats.bin");
+        ByteBuffer legacy = ByteBuffer.allocate(16 + 3).order(ByteOrder.LITTLE_ENDIAN);
+        legacy.putInt(0x46424B53).putInt(1).putInt(3).putInt(8).put((byte) 0b11).put((byte) 0).put((byte) 0x80);
+        Files.write(file, legacy.array());
+
+        try (MappedSeatStore store = MappedSeatStore.open(file.toString())) {
+            FlightSeats loaded = store.load();
+
+            assertEquals(0b11L, loaded.getRowMask(0));
+            assertEquals(0x80L, loaded.getRowMask(2));
+            assertEquals(0L, store.readBlockedRow(2));
+            store.saveRow(loaded, 1);
+        }
+        try (MappedSeatStore store = MappedSeatStore.open(file.toString())) {
+            assertEquals(0x80L, store.readRow(2));
+        }
+    }
+
+    @Test
+    void open_csvFile_throwsException() throws IOException {
+        Path csv = tempDir.resolve("seats.txt");
+        Files.writeString(csv, "R,E,E,E,E,E,E,E\nE,E,E,E,E,E,E,E\n");
+
+        assertThrows(RuntimeException.class, () -> MappedSeatStore.open(csv.toString()));
+    }
+}
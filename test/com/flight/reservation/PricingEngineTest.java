@@ -0,0 +1,170 @@
+package com.flight.reservation;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PricingEngineTest {
+    private final static Instant DEPARTURE = Instant.parse("2030-06-01T10:00:00Z");
+    private final static long ECONOMY_FARE = 10_000;
+    private final static long WINDOW_SURCHARGE = 500;
+
+    @Test
+    void getPrice_baseFareTierAndSurcharge() {
+        FlightSeats flightSeats = new FlightSeats(10, 4);
+        flightSeats.setAttributes(SeatAttributes.defaults(flightSeats.getLayout()).toBuilder()
+                .setPriceTier(0, 0, 0, 3, 2)
+                .build());
+
+        try (PricingEngine engine = engine(flightSeats, new MutableClock(DEPARTURE.minus(Duration.ofDays(45))))) {
+            assertEquals(ECONOMY_FARE, engine.getPrice(5, 1));
+            assertEquals(ECONOMY_FARE + WINDOW_SURCHARGE, engine.getPrice(5, 0));
+            assertEquals(ECONOMY_FARE * 130 / 100, engine.getPrice(0, 1), "Tier 2 adds 30%");
+            assertThrows(IllegalArgumentException.class, () -> engine.getPrice(10, 0));
+        }
+    }
+
+    @Test
+    void getPrice_bookingsRaiseLoadStep() {
+        FlightSeats flightSeats = new FlightSeats(10, 4);
+        AbstractReservationManager manager = new ReservationManager(flightSeats);
+
+        try (PricingEngine engine = engine(flightSeats, new MutableClock(DEPARTURE.minus(Duration.ofDays(45))))) {
+            PricingEngine.PriceTable before = engine.getPriceTable();
+            assertTrue(manager.execute(command(Action.BOOK, 2, 0, 3)));
+            assertSame(before, engine.getPriceTable(), "3 of 40 seats don't reach the next 10% step");
+
+            assertTrue(manager.execute(command(Action.BOOK, 3, 0, 1)));
+            assertEquals(ECONOMY_FARE * 108 / 100, engine.getPrice(5, 1), "4 of 40 seats add one 8% step");
+            assertEquals(ECONOMY_FARE, before.getPrice(5, 1), "Older tables don't change");
+
+            assertTrue(manager.execute(command(Action.CANCEL, 3, 0, 1)));
+            assertEquals(ECONOMY_FARE, engine.getPrice(5, 1));
+        }
+    }
+
+    @Test
+    void getPrice_closerToDepartureCostsMore() {
+        FlightSeats flightSeats = new FlightSeats(10, 4);
+        MutableClock clock = new MutableClock(DEPARTURE.minus(Duration.ofDays(45)));
+
+        try (PricingEngine engine = engine(flightSeats, clock)) {
+            PricingEngine.PriceTable before = engine.getPriceTable();
+            clock.now = DEPARTURE.minus(Duration.ofDays(31));
+            assertSame(before, engine.getPriceTable(), "Still 30 to 59 days before departure");
+
+            clock.now = DEPARTURE.minus(Duration.ofDays(10));
+            assertEquals(ECONOMY_FARE * 125 / 100, engine.getPrice(5, 1));
+
+            clock.now = DEPARTURE.plus(Duration.ofHours(1));
+            assertEquals(ECONOMY_FARE * 160 / 100, engine.getPrice(5, 1));
+        }
+    }
+
+    @Test
+    void getPriceTable_sameTimeBand_clockNotRead() {
+        MutableClock clock = new MutableClock(DEPARTURE.minus(Duration.ofDays(45)));
+        long[] nanos = {0};
+        PricingEngine engine = new PricingEngine.Builder(new FlightSeats(10, 4))
+                .setDeparture(DEPARTURE)
+                .setClock(clock)
+                .setNanoTime(() -> nanos[0])
+                .build();
+        int reads = clock.reads;
+
+        for (int i = 0; i < 100; i++) {
+            engine.getPriceTable();
+        }
+        assertEquals(reads, clock.reads);
+
+        nanos[0] = TimeUnit.MINUTES.toNanos(1); // The band is checked again at least every minute
+        engine.getPriceTable();
+        assertEquals(reads + 1, clock.reads);
+        engine.close();
+    }
+
+    @Test
+    void getPrice_replacedAttributesRepriced() {
+        FlightSeats flightSeats = new FlightSeats(10, 4);
+
+        try (PricingEngine engine = engine(flightSeats, new MutableClock(DEPARTURE.minus(Duration.ofDays(45))))) {
+            assertEquals(ECONOMY_FARE, engine.getPrice(0, 1));
+
+            flightSeats.setAttributes(flightSeats.getAttributes().toBuilder()
+                    .setCabinClass(0, 0, CabinClass.BUSINESS)
+                    .build());
+            assertEquals(30_000, engine.getPrice(0, 1));
+        }
+    }
+
+    @Test
+    void close_stopsFollowingBookings() {
+        FlightSeats flightSeats = new FlightSeats(1, 4);
+        AbstractReservationManager manager = new ReservationManager(flightSeats);
+        PricingEngine engine = engine(flightSeats, new MutableClock(DEPARTURE.minus(Duration.ofDays(45))));
+        engine.close();
+
+        assertTrue(manager.execute(command(Action.BOOK, 0, 0, 4)));
+        assertEquals(ECONOMY_FARE, engine.getPrice(0, 1));
+    }
+
+    @Test
+    void build_withoutDeparture_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> new PricingEngine.Builder(new FlightSeats(1, 4)).build());
+    }
+
+    private static PricingEngine engine(FlightSeats flightSeats, Clock clock) {
+        return new PricingEngine.Builder(flightSeats)
+                .setBaseFares(Map.of(CabinClass.ECONOMY, ECONOMY_FARE, CabinClass.BUSINESS, 3 * ECONOMY_FARE))
+                .setSurcharge(SeatFeature.WINDOW, WINDOW_SURCHARGE)
+                .setDeparture(DEPARTURE)
+                .setClock(clock)
+                .setNanoTime(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()))
+                .build();
+    }
+
+    private static Command command(Action action, int row, int col, int seats) {
+        return new Command.Builder()
+                .setAction(action)
+                .setRowNumber(row)
+                .setColumnNumber(col)
+                .setConsecutiveSeats(seats)
+                .build();
+    }
+
+    /**
+     * A clock the tests move by hand.
+     */
+    private static class MutableClock extends Clock {
+        private Instant now;
+        private int reads;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            reads++;
+            return now;
+        }
+    }
+}
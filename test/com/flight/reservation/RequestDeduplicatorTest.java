@@ -0,0 +1,172 @@
+package com.flight.reservation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestDeduplicatorTest {
+    private final static long LONG_RETENTION = Long.MAX_VALUE / 2;
+
+    @Test
+    void claim_replayGetsOriginalOutcome() {
+        RequestDeduplicator deduplicator = new RequestDeduplicator(1024, LONG_RETENTION);
+        long now = System.nanoTime();
+
+        assertEquals(RequestDeduplicator.CLAIMED, deduplicator.claim(7, now));
+        deduplicator.complete(7, 3);
+        assertEquals(RequestDeduplicator.CLAIMED, deduplicator.claim(8, now));
+        deduplicator.complete(8, -1);
+
+        assertEquals(3, deduplicator.claim(7, now), "The row of the original");
+        assertEquals(RequestDeduplicator.FAILED, deduplicator.claim(8, now));
+    }
+
+    @Test
+    void abandon_replayExecutesAgain() {
+        RequestDeduplicator deduplicator = new RequestDeduplicator(1024, LONG_RETENTION);
+        long now = System.nanoTime();
+        deduplicator.claim(7, now);
+
+        deduplicator.abandon(7);
+
+        assertEquals(RequestDeduplicator.CLAIMED, deduplicator.claim(7, now));
+    }
+
+    @Test
+    void claim_idsExpireAfterOneToTwoRetentions() {
+        RequestDeduplicator deduplicator = new RequestDeduplicator(16, 100); // A single segment
+        long start = System.nanoTime();
+        deduplicator.claim(1, start);
+        deduplicator.complete(1, 0);
+
+        deduplicator.claim(2, start + 150); // Starts a new generation
+        assertEquals(0, deduplicator.claim(1, start + 150));
+
+        deduplicator.claim(3, start + 300); // Drops the generation of ID 1
+        assertEquals(RequestDeduplicator.CLAIMED, deduplicator.claim(1, start + 300));
+    }
+
+    @Test
+    void claim_overCapacity_forgetsOldestIds() {
+        RequestDeduplicator deduplicator = new RequestDeduplicator(16, LONG_RETENTION);
+        long now = System.nanoTime();
+        for (long id = 1; id <= 33; id++) {
+            assertEquals(RequestDeduplicator.CLAIMED, deduplicator.claim(id, now));
+            deduplicator.complete(id, 0);
+        }
+
+        assertEquals(0, deduplicator.claim(20, now));
+        assertEquals(RequestDeduplicator.CLAIMED, deduplicator.claim(1, now));
+    }
+
+    @Test
+    void execute_replayedBookDoesNotBookTwice() throws Exception {
+        for (ReservationStrategy strategy : ReservationStrategy.values()) {
+            FlightSeats flightSeats = new FlightSeats(2, 8);
+            AbstractReservationManager manager = strategy.create(flightSeats);
+            try {
+                long replaysBefore = manager.getMetrics().snapshot().getReplayCount();
+                Command book = command(Action.BOOK, 0, 2, 2, 11);
+
+                assertTrue(manager.execute(book), strategy.name());
+                assertTrue(manager.execute(book), strategy.name() + ": a replay succeeds like the original");
+                assertEquals(2, Long.bitCount(flightSeats.getRowMask(0)), strategy.name() + ": booked once");
+
+                Command cancel = command(Action.CANCEL, 1, 0, 1, 12);
+                assertFalse(manager.execute(cancel), strategy.name());
+                assertTrue(manager.execute(command(Action.BOOK, 1, 0, 1, 13)), strategy.name());
+                assertFalse(manager.execute(cancel), strategy.name() + ": a replay fails like the original");
+                assertEquals(0b1L, flightSeats.getRowMask(1), strategy.name());
+
+                assertEquals(2, manager.getMetrics().snapshot().getReplayCount() - replaysBefore, strategy.name());
+            } finally {
+                if (manager instanceof AutoCloseable closeable) {
+                    closeable.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    void executeInRow_replayedPlace_getsRowOfOriginal() throws Exception {
+        for (ReservationStrategy strategy : ReservationStrategy.values()) {
+            FlightSeats flightSeats = new FlightSeats(3, 4);
+            AbstractReservationManager manager = strategy.create(flightSeats);
+            try {
+                flightSeats.setRowMask(0, 0b1L);
+                long replaysBefore = manager.getMetrics().snapshot().getReplayCount();
+                Command place = new Command.Builder().setAction(Action.PLACE).setConsecutiveSeats(4).setRequestId(21).build();
+
+                assertEquals(1, manager.executeInRow(place), strategy.name());
+                assertEquals(1, manager.executeInRow(place), strategy.name() + ": a replay reports the original row");
+                assertTrue(manager.execute(place), strategy.name());
+                assertEquals(0L, flightSeats.getRowMask(2), strategy.name() + ": placed once");
+
+                assertEquals(2, manager.getMetrics().snapshot().getReplayCount() - replaysBefore, strategy.name());
+            } finally {
+                if (manager instanceof AutoCloseable closeable) {
+                    closeable.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    void execute_concurrentReplays_executeOnce() throws Exception {
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (ReservationStrategy strategy : ReservationStrategy.values()) {
+                FlightSeats flightSeats = new FlightSeats(1, 8);
+                AbstractReservationManager manager = strategy.create(flightSeats);
+                try {
+                    for (int round = 1; round <= 50; round++) {
+                        manager.execute(command(Action.CANCEL, 0, 0, 1, Long.MAX_VALUE - round)); // Frees the seat, if booked
+                        Command book = command(Action.BOOK, 0, 0, 1, round);
+                        CyclicBarrier barrier = new CyclicBarrier(threads);
+                        List<Future<Boolean>> results = new ArrayList<>();
+                        for (int t = 0; t < threads; t++) {
+                            results.add(executor.submit(() -> {
+                                barrier.await();
+                                return manager.execute(book);
+                            }));
+                        }
+                        for (Future<Boolean> result : results) {
+                            assertTrue(result.get(), strategy.name());
+                        }
+                        assertEquals(1, Long.bitCount(flightSeats.getRowMask(0)), strategy.name() + ": booked once");
+                    }
+                } finally {
+                    if (manager instanceof AutoCloseable closeable) {
+                        closeable.close();
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void constructor_invalidValues_throwException() {
+        assertThrows(IllegalArgumentException.class, () -> new RequestDeduplicator(0, 100));
+        assertThrows(IllegalArgumentException.class, () -> new RequestDeduplicator(16, 0));
+    }
+
+    private static Command command(Action action, int row, int col, int seats, long requestId) {
+        return new Command.Builder()
+                .setAction(action)
+                .setRowNumber(row)
+                .setColumnNumber(col)
+                .setConsecutiveSeats(seats)
+                .setRequestId(requestId)
+                .build();
+    }
+}
@@ -0,0 +1,289 @@
+package com.flight.reservation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrency tests run against every {@link ReservationStrategy}.
+ * <p>
+ * The stress tests run random concurrent BOOK/CANCEL workloads, record when every command
+ * started and returned, and check that the history is linearizable against a sequential model
+ * of a row: some order of the commands, respecting real time, gives every command its observed
+ * result and ends in the observed row masks. Commands on different rows don't interact, so each
+ * row is checked on its own.
+ * <p>
+ * The race tests run two commands on overlapping seats at the same moment many times, and
+ * check every outcome against the outcomes of the two sequential orders.
+ */
+class ReservationManagerConcurrencyTest {
+    private final static int THREADS = 4;
+    private final static int ROUNDS = 60;
+    private final static int COMMANDS_PER_THREAD = 16;
+    private final static int ROWS = 3; // Few rows, so the threads keep colliding
+    private final static int COLS = 8;
+    private final static int RACES = 200;
+
+    @Test
+    void randomBookAndCancel_historyIsLinearizable() throws Exception {
+        for (ReservationStrategy strategy : ReservationStrategy.values()) {
+            SplittableRandom random = new SplittableRandom(strategy.ordinal());
+            for (int round = 0; round < ROUNDS; round++) {
+                FlightSeats flightSeats = new FlightSeats(ROWS, COLS);
+                AbstractReservationManager manager = strategy.create(flightSeats);
+                try {
+                    List<Operation> history = runWorkload(manager, random.split());
+                    for (int row = 0; row < ROWS; row++) {
+                        int r = row;
+                        List<Operation> rowHistory = history.stream().filter(op -> op.command.getRowNumber() == r).toList();
+                        assertTrue(RowModel.isLinearizable(rowHistory, flightSeats.getRowMask(row)),
+                                strategy.name() + ": history of row " + row + " isn't linearizable: " + rowHistory);
+                    }
+                } finally {
+                    close(manager);
+                }
+            }
+        }
+    }
+
+    @Test
+    void linearizabilityCheck_rejectsDoubleBooking() {
+        // Two BOOKs of the whole row that overlap in time can't both succeed
+        Command book = command(Action.BOOK, 0, 0, COLS);
+        List<Operation> history = List.of(new Operation(book, 0, 10, true), new Operation(book, 5, 15, true));
+
+        assertFalse(RowModel.isLinearizable(history, 0xFFL));
+        assertTrue(RowModel.isLinearizable(List.of(history.get(0), new Operation(book, 5, 15, false)), 0xFFL));
+    }
+
+    @Test
+    void race_overlappingBooks_onlyOneFits() throws Exception {
+        // 5 + 5 seats don't fit into a row of 8, whatever seats each BOOK picks
+        race(manager -> { },
+                manager -> manager.execute(command(Action.BOOK, 0, 0, 5)),
+                manager -> manager.execute(command(Action.BOOK, 0, 3, 5)),
+                (a, b, mask) -> a != b && Long.bitCount(mask) == 5);
+    }
+
+    @Test
+    void race_overlappingCancels_onlyOneSucceeds() throws Exception {
+        race(manager -> manager.execute(command(Action.BOOK, 0, 0, 6)),
+                manager -> manager.execute(command(Action.CANCEL, 0, 0, 4)),
+                manager -> manager.execute(command(Action.CANCEL, 0, 2, 3)),
+                (a, b, mask) -> (a && !b && mask == 0b110000L) || (!a && b && mask == 0b100011L));
+    }
+
+    @Test
+    void race_cancelAndBookWholeRow_sequentialOutcomes() throws Exception {
+        // Cancel first: the BOOK finds the whole row free. Book first: it fails, then the cancel frees the row.
+        race(manager -> manager.execute(command(Action.BOOK, 0, 0, 3)),
+                manager -> manager.execute(command(Action.CANCEL, 0, 0, 3)),
+                manager -> manager.execute(command(Action.BOOK, 0, 0, COLS)),
+                (a, b, mask) -> a && (b ? mask == 0xFFL : mask == 0L));
+    }
+
+    @Test
+    void race_holdAndCancelOverlapping_neverBothChangeTheSeats() throws Exception {
+        // Seats 0-1 are booked; the HOLD wants 1-2 and the CANCEL frees 0-1
+        race(manager -> manager.execute(command(Action.BOOK, 0, 0, 2)),
+                manager -> manager.execute(command(Action.HOLD, 0, 1, 2)),
+                manager -> manager.execute(command(Action.CANCEL, 0, 0, 2)),
+                (a, b, mask) -> b && (a ? mask == 0b110L : mask == 0L));
+    }
+
+    @Test
+    void race_confirmAndReleaseSameHold_onlyOneSucceeds() throws Exception {
+        race(manager -> manager.execute(command(Action.HOLD, 0, 2, 3)),
+                manager -> manager.execute(command(Action.CONFIRM, 0, 2, 3)),
+                manager -> manager.execute(command(Action.RELEASE, 0, 2, 3)),
+                (a, b, mask) -> (a && !b && mask == 0b11100L) || (!a && b && mask == 0L));
+    }
+
+    // Runs the workload and returns the history of every thread, in no particular order
+    private static List<Operation> runWorkload(AbstractReservationManager manager, SplittableRandom random) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Operation>>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Command[] commands = new Command[COMMANDS_PER_THREAD];
+            for (int i = 0; i < commands.length; i++) {
+                int seats = 1 + random.nextInt(3);
+                commands[i] = command(random.nextInt(3) == 0 ? Action.CANCEL : Action.BOOK,
+                        random.nextInt(ROWS), random.nextInt(COLS - seats + 1), seats);
+            }
+            results.add(executor.submit(() -> {
+                List<Operation> history = new ArrayList<>(commands.length);
+                start.await();
+                for (Command command : commands) {
+                    long invoked = System.nanoTime();
+                    boolean result = manager.execute(command);
+                    history.add(new Operation(command, invoked, System.nanoTime(), result));
+                }
+                return history;
+            }));
+        }
+        start.countDown();
+        List<Operation> history = new ArrayList<>();
+        for (Future<List<Operation>> result : results) {
+            history.addAll(result.get());
+        }
+        executor.shutdown();
+        return history;
+    }
+
+    // Runs `a` and `b` at the same time on a fresh manager of every strategy, RACES times each
+    private static void race(Consumer<AbstractReservationManager> setUp, Predicate<AbstractReservationManager> a,
+                             Predicate<AbstractReservationManager> b, Outcome allowed) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (ReservationStrategy strategy : ReservationStrategy.values()) {
+                for (int i = 0; i < RACES; i++) {
+                    FlightSeats flightSeats = new FlightSeats(1, COLS);
+                    AbstractReservationManager manager = strategy.create(flightSeats);
+                    try {
+                        setUp.accept(manager);
+                        CyclicBarrier barrier = new CyclicBarrier(2);
+                        Future<Boolean> first = executor.submit(() -> {
+                            barrier.await();
+                            return a.test(manager);
+                        });
+                        Future<Boolean> second = executor.submit(() -> {
+                            barrier.await();
+                            return b.test(manager);
+                        });
+                        boolean resultA = first.get();
+                        boolean resultB = second.get();
+                        long mask = flightSeats.getRowMask(0);
+                        assertTrue(allowed.test(resultA, resultB, mask), strategy.name() + ": forbidden outcome "
+                                + resultA + ", " + resultB + ", mask " + Long.toBinaryString(mask));
+                        assertEquals(0L, manager.getHeldMask(0) & ~mask, strategy.name() + ": held seats aren't reserved");
+                    } finally {
+                        close(manager);
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void close(AbstractReservationManager manager) throws Exception {
+        if (manager instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private static Command command(Action action, int row, int col, int seats) {
+        return new Command.Builder()
+                .setAction(action)
+                .setRowNumber(row)
+                .setColumnNumber(col)
+                .setConsecutiveSeats(seats)
+                .build();
+    }
+
+    /**
+     * The allowed outcomes of a race: the results of both commands and the final row mask.
+     */
+    private interface Outcome {
+        boolean test(boolean resultA, boolean resultB, long mask);
+    }
+
+    /**
+     * A command of a history: when it was invoked, when it returned, and its result.
+     */
+    private record Operation(Command command, long invoked, long returned, boolean result) {
+        @Override
+        public String toString() {
+            return command.getAction() + " " + command.getColumnNumber() + "+" + command.getConsecutiveSeats()
+                    + " [" + invoked + ", " + returned + "] " + result;
+        }
+    }
+
+    /**
+     * The sequential model of a row, and a linearizability check of histories against it.
+     */
+    private static class RowModel {
+        private final static long FULL_ROW = (1L << COLS) - 1;
+
+        /**
+         * Checks whether some order of the operations, in which an operation that returned before
+         * another was invoked comes first, gives every operation its result and ends in
+         * {@code finalMask}. A depth-first search over the operations that may come next, skipping
+         * states (done operations, row mask) already explored.
+         */
+        static boolean isLinearizable(List<Operation> history, long finalMask) {
+            Operation[] ops = history.toArray(new Operation[0]);
+            Arrays.sort(ops, (x, y) -> Long.compare(x.invoked, y.invoked));
+            if (ops.length > Long.SIZE) {
+                throw new IllegalArgumentException("History too long to check: " + ops.length);
+            }
+            return search(ops, 0L, 0L, finalMask, new HashSet<>());
+        }
+
+        private static boolean search(Operation[] ops, long done, long mask, long finalMask, Set<List<Long>> explored) {
+            if (Long.bitCount(done) == ops.length) {
+                return mask == finalMask;
+            }
+            if (!explored.add(List.of(done, mask))) {
+                return false;
+            }
+            // An operation may come next unless a pending one returned before it was invoked
+            long earliestReturn = Long.MAX_VALUE;
+            for (int i = 0; i < ops.length; i++) {
+                if ((done & (1L << i)) == 0) {
+                    earliestReturn = Math.min(earliestReturn, ops[i].returned);
+                }
+            }
+            for (int i = 0; i < ops.length && ops[i].invoked <= earliestReturn; i++) {
+                if ((done & (1L << i)) != 0) {
+                    continue;
+                }
+                long next = apply(ops[i], mask);
+                if (next >= 0 && search(ops, done | (1L << i), next, finalMask, explored)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Returns the mask after the operation, or -1 if the model's result differs from the observed one
+        private static long apply(Operation op, long mask) {
+            Command command = op.command;
+            long range = ((1L << command.getConsecutiveSeats()) - 1) << command.getColumnNumber();
+            boolean success;
+            long next = mask;
+            if (command.getAction() == Action.CANCEL) {
+                success = (mask & range) == range;
+                if (success) {
+                    next = mask & ~range;
+                }
+            } else {
+                success = Long.bitCount(~mask & FULL_ROW) >= command.getConsecutiveSeats();
+                if (success) {
+                    next = mask | pickSeats(mask, command.getColumnNumber(), command.getConsecutiveSeats());
+                }
+            }
+            return success == op.result ? next : -1;
+        }
+
+        // A BOOK takes the nearest block of free seats, else the narrowest split (see SeatPlacementTest)
+        private static long pickSeats(long mask, int col, int seats) {
+            return SeatPlacement.place(~mask & FULL_ROW, col, seats, true);
+        }
+    }
+}
@@ -2,6 +2,14 @@ package com.flight.reservation;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class ReservationManagerTest {
@@ -120,4 +128,334 @@ class ReservationManagerTest {
 
         assertFalse(result, "Cancellation should fail when trying to cancel seats that were never reserved.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void executeAll_resultsInInputOrder() {
+        ReservationManager reservationManager = new ReservationManager(new FlightSeats());
+        List<Command> commands = List.of(
+                command(Action.CANCEL, 3, 0, 1),  // nothing to cancel
+                command(Action.BOOK, 5, 0, 8),    // fills row 5
+                command(Action.BOOK, 3, 0, 1),
+                command(Action.BOOK, 5, 0, 1),    // row 5 is full
+                command(Action.CANCEL, 3, 0, 1)); // cancels the booking above
+
+        boolean[] results = reservationManager.executeAll(commands);
+
+        assertArrayEquals(new boolean[]{false, true, true, false, true}, results);
+    }
+
+    @Test
+    void executeAll_sameStateAsSequentialExecution() {
+        FlightSeats batchSeats = new FlightSeats();
+        FlightSeats sequentialSeats = new FlightSeats();
+        ReservationManagerWithRowLevelLock batchManager = new ReservationManagerWithRowLevelLock(batchSeats);
+        ReservationManagerWithRowLevelLock sequentialManager = new ReservationManagerWithRowLevelLock(sequentialSeats);
+        List<Command> commands = List.of(
+                command(Action.BOOK, 2, 3, 2),
+                command(Action.BOOK, 7, 1, 3),
+                command(Action.CANCEL, 2, 3, 1),
+                command(Action.BOOK, 2, 3, 3),
+                command(Action.CANCEL, 7, 0, 2));
+
+        boolean[] results = batchManager.executeAll(commands);
+
+        for (int i = 0; i < commands.size(); i++) {
+            assertEquals(sequentialManager.execute(commands.get(i)), results[i]);
+        }
+        for (int row = 0; row < batchSeats.getRowLength(); row++) {
+            assertEquals(sequentialSeats.getRowMask(row), batchSeats.getRowMask(row));
+        }
+    }
+
+    @Test
+    void executeAll_invalidCommand_failsOnlyThatCommand() {
+        ReservationManager reservationManager = new ReservationManager(new FlightSeats());
+        List<Command> commands = List.of(
+                command(Action.BOOK, 20, 0, 1),  // no such row in the default chart
+                command(Action.CANCEL, 1, 6, 3), // runs past the last column
+                command(Action.BOOK, 1, 0, 1));
+
+        boolean[] results = reservationManager.executeAll(commands);
+
+        assertArrayEquals(new boolean[]{false, false, true}, results);
+    }
+
+    @Test
+    void placeSeats_reservesLeftmostBlockOfFirstRowWithRoom() {
+        FlightSeats flightSeats = new FlightSeats();
+        ReservationManagerWithRowLevelLock reservationManager = new ReservationManagerWithRowLevelLock(flightSeats);
+        flightSeats.setRowMask(0, 0b00100100L);
+
+        assertEquals(0, reservationManager.placeSeats(2));
+        assertEquals(0b00100111L, flightSeats.getRowMask(0));
+        assertEquals(1, reservationManager.placeSeats(3)); // Row 0 has only 2 adjacent free seats left
+        assertEquals(0b111L, flightSeats.getRowMask(1));
+    }
+
+    @Test
+    void placeSeats_noRowWithRoom_fail() {
+        FlightSeats flightSeats = new FlightSeats(2, 8);
+        ReservationManager reservationManager = new ReservationManager(flightSeats);
+        flightSeats.setRowMask(0, 0b00010000L);
+        flightSeats.setRowMask(1, 0b00001000L);
+
+        assertEquals(-1, reservationManager.placeSeats(5));
+        assertFalse(reservationManager.execute(new Command.Builder().setAction(Action.PLACE).setConsecutiveSeats(5).build()));
+        assertTrue(reservationManager.execute(new Command.Builder().setAction(Action.PLACE).setConsecutiveSeats(4).build()));
+        assertEquals(0b00011111L, flightSeats.getRowMask(0));
+    }
+
+    @Test
+    void executeAll_placeCommandsRunAfterRowCommands() {
+        FlightSeats flightSeats = new FlightSeats(1, 8);
+        ReservationManagerWithRowLevelLock reservationManager = new ReservationManagerWithRowLevelLock(flightSeats);
+        List<Command> commands = List.of(
+                new Command.Builder().setAction(Action.PLACE).setConsecutiveSeats(4).build(),
+                command(Action.BOOK, 0, 0, 4));
+
+        boolean[] results = reservationManager.executeAll(commands);
+
+        assertArrayEquals(new boolean[]{true, true}, results);
+        assertEquals(0xFFL, flightSeats.getRowMask(0));
+    }
+
+    @Test
+    void executeAsync_reportsFailureReasons() {
+        ReservationManager reservationManager = new ReservationManager(new FlightSeats());
+
+        assertSame(ReservationResult.SUCCESS, reservationManager.executeAsync(command(Action.BOOK, 1, 0, 8)).join());
+        assertEquals(FailureReason.SEATS_TAKEN,
+                reservationManager.executeAsync(command(Action.BOOK, 1, 0, 1)).join().getFailureReason());
+        assertEquals(FailureReason.SEATS_NOT_RESERVED,
+                reservationManager.executeAsync(command(Action.CANCEL, 2, 0, 1)).join().getFailureReason());
+        assertEquals(FailureReason.INVALID_SEATS,
+                reservationManager.executeAsync(command(Action.CANCEL, 1, 7, 2)).join().getFailureReason());
+    }
+
+    @Test
+    void tryExecute_rowLockedByAnotherThread_timesOut() throws Exception {
+        ReservationManagerWithRowLevelLock reservationManager = new ReservationManagerWithRowLevelLock(new FlightSeats());
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> reservationManager.withRowLock(3, row -> {
+            locked.countDown();
+            try {
+                return release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }));
+        holder.start();
+        locked.await();
+
+        try {
+            assertEquals(FailureReason.TIMEOUT,
+                    reservationManager.tryExecute(command(Action.BOOK, 3, 0, 1), 10, TimeUnit.MILLISECONDS).getFailureReason());
+            assertSame(ReservationResult.SUCCESS, // Other rows aren't held
+                    reservationManager.tryExecute(command(Action.BOOK, 4, 0, 1), 10, TimeUnit.MILLISECONDS));
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+        assertSame(ReservationResult.SUCCESS, reservationManager.executeAsync(command(Action.BOOK, 3, 0, 1)).join());
+    }
+
+    @Test
+    void holdSeats_confirmKeepsSeatsReserved() {
+        for (ReservationStrategy strategy : ReservationStrategy.values()) {
+            FlightSeats flightSeats = new FlightSeats();
+            AbstractReservationManager reservationManager = strategy.create(flightSeats);
+
+            assertTrue(reservationManager.execute(command(Action.HOLD, 2, 1, 3)), strategy.name());
+            assertFalse(reservationManager.execute(command(Action.BOOK, 2, 0, 6)), "Held seats aren't free");
+            assertFalse(reservationManager.execute(command(Action.CANCEL, 2, 1, 3)), "Held seats can't be canceled");
+            assertTrue(reservationManager.execute(command(Action.CONFIRM, 2, 1, 3)));
+            assertFalse(reservationManager.execute(command(Action.RELEASE, 2, 1, 3)), "Confirmed seats aren't held");
+
+            assertEquals(0b1110L, flightSeats.getRowMask(2));
+            assertEquals(0L, reservationManager.getHeldMask(2));
+            assertTrue(reservationManager.execute(command(Action.CANCEL, 2, 1, 3)));
+        }
+    }
+
+    @Test
+    void releaseSeats_freesHeldSeats() {
+        FlightSeats flightSeats = new FlightSeats();
+        ReservationManagerWithCAS reservationManager = new ReservationManagerWithCAS(flightSeats);
+        reservationManager.execute(command(Action.BOOK, 4, 0, 1));
+
+        assertFalse(reservationManager.execute(command(Action.HOLD, 4, 0, 2)), "Seat 0 is booked");
+        assertEquals(0L, reservationManager.getHeldMask(4));
+        assertTrue(reservationManager.execute(command(Action.HOLD, 4, 1, 2)));
+        assertFalse(reservationManager.execute(command(Action.RELEASE, 4, 0, 2)), "Seat 0 isn't held");
+        assertTrue(reservationManager.execute(command(Action.RELEASE, 4, 1, 2)));
+
+        assertEquals(0b1L, flightSeats.getRowMask(4));
+    }
+
+    @Test
+    void holdSeats_expiredHoldReleased() throws Exception {
+        for (ReservationStrategy strategy : ReservationStrategy.values()) {
+            FlightSeats flightSeats = new FlightSeats();
+            AbstractReservationManager reservationManager = strategy.create(flightSeats);
+            reservationManager.configureHolds(20, TimeUnit.MILLISECONDS);
+
+            assertTrue(reservationManager.execute(command(Action.HOLD, 5, 0, 4)));
+            for (int i = 0; i < 500 && flightSeats.getRowMask(5) != 0; i++) {
+                Thread.sleep(10);
+            }
+
+            assertEquals(0L, flightSeats.getRowMask(5), strategy.name());
+            assertEquals(0L, reservationManager.getHeldMask(5));
+            assertFalse(reservationManager.execute(command(Action.CONFIRM, 5, 0, 4)), "An expired hold can't be confirmed");
+        }
+    }
+
+    @Test
+    void holdSeats_expiryThreadEndsWhenIdle() throws Exception {
+        for (ReservationStrategy strategy : ReservationStrategy.values()) {
+            FlightSeats flightSeats = new FlightSeats();
+            AbstractReservationManager reservationManager = strategy.create(flightSeats);
+            reservationManager.configureHolds(20, TimeUnit.MILLISECONDS);
+
+            for (int round = 0; round < 2; round++) { // The next hold starts a new thread
+                assertTrue(reservationManager.execute(command(Action.HOLD, 5, 0, 4)));
+                for (int i = 0; i < 500 && reservationManager.isExpiringHolds(); i++) {
+                    Thread.sleep(10);
+                }
+
+                assertFalse(reservationManager.isExpiringHolds(), strategy.name());
+                assertEquals(0L, flightSeats.getRowMask(5), strategy.name());
+            }
+        }
+    }
+
+    @Test
+    void bookGroup_allOrNothing() {
+        for (ReservationStrategy strategy : ReservationStrategy.values()) {
+            FlightSeats flightSeats = new FlightSeats();
+            AbstractReservationManager reservationManager = strategy.create(flightSeats);
+            reservationManager.execute(command(Action.BOOK, 7, 5, 1));
+
+            assertTrue(reservationManager.bookGroup(List.of(
+                    command(Action.BOOK, 6, 0, 3), command(Action.BOOK, 5, 0, 3), command(Action.BOOK, 6, 5, 1))), strategy.name());
+            assertFalse(reservationManager.bookGroup(List.of(
+                    command(Action.BOOK, 8, 3, 3), command(Action.BOOK, 7, 3, 3))), "Seat 5 of row 7 is taken");
+
+            assertEquals(0b111L, flightSeats.getRowMask(5));
+            assertEquals(0b100111L, flightSeats.getRowMask(6));
+            assertEquals(0b100000L, flightSeats.getRowMask(7));
+            assertEquals(0L, flightSeats.getRowMask(8), "The group was rolled back");
+            assertEquals(0L, reservationManager.getHeldMask(8));
+        }
+    }
+
+    @Test
+    void bookGroup_invalidGroup_throwsException() {
+        ReservationManagerWithCAS reservationManager = new ReservationManagerWithCAS(new FlightSeats());
+
+        assertThrows(IllegalArgumentException.class, () -> reservationManager.bookGroup(List.of(
+                command(Action.BOOK, 1, 0, 3), command(Action.CANCEL, 2, 0, 3))));
+        assertThrows(IllegalArgumentException.class, () -> reservationManager.bookGroup(List.of(
+                command(Action.BOOK, 1, 0, 3), command(Action.BOOK, 1, 2, 3))));
+        assertThrows(IllegalArgumentException.class, () -> reservationManager.bookGroup(List.of(
+                command(Action.BOOK, 1, 0, 3), command(Action.BOOK, 25, 0, 3))));
+    }
+
+    @Test
+    void bookGroup_concurrentOverlappingGroups_oneWins() throws Exception {
+        for (ReservationStrategy strategy : ReservationStrategy.values()) {
+            FlightSeats flightSeats = new FlightSeats();
+            AbstractReservationManager reservationManager = strategy.create(flightSeats);
+            int threads = 8;
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> results = new ArrayList<>();
+
+            // Every thread books two adjacent rows, each overlapping the next thread's pair
+            for (int t = 0; t < threads; t++) {
+                int row = t;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return reservationManager.bookGroup(List.of(
+                            command(Action.BOOK, row + 1, 0, 8), command(Action.BOOK, row, 0, 8)));
+                }));
+            }
+            start.countDown();
+            long[] expected = new long[threads + 1];
+            for (int t = 0; t < threads; t++) {
+                if (results.get(t).get()) {
+                    assertEquals(0L, expected[t] | expected[t + 1], strategy.name() + ": overlapping groups both booked");
+                    expected[t] = expected[t + 1] = 0xFFL;
+                }
+            }
+            executor.shutdown();
+            for (int row = 0; row <= threads; row++) {
+                assertEquals(expected[row], flightSeats.getRowMask(row), strategy.name() + ": half a group booked");
+                assertEquals(0L, reservationManager.getHeldMask(row));
+            }
+        }
+    }
+
+    @Test
+    void bookSeats_requestedSeatsTaken_seatsPartyTogetherNearby() {
+        ReservationManager reservationManager = new ReservationManager(new FlightSeats());
+        reservationManager.reserveSeats(3, 1, 2);
+        reservationManager.reserveSeats(3, 5, 5);
+
+        assertEquals(0b11000L, reservationManager.bookSeats(3, 2, 2), "Seats 3-4 are the nearest free pair");
+        assertEquals(0b11000000L, reservationManager.bookSeats(3, 0, 2), "Seat 0 alone can't take the pair");
+    }
+
+    @Test
+    void bookSeats_noBlockLeft_splitsOnlyWhenAllowed() {
+        ReservationManager reservationManager = new ReservationManager(new FlightSeats());
+        reservationManager.reserveSeats(4, 1, 1);
+        reservationManager.reserveSeats(4, 3, 3);
+        reservationManager.reserveSeats(4, 5, 7); // Free: 0, 2 and 4
+
+        reservationManager.configureSplitBookings(false);
+        assertEquals(0L, reservationManager.bookSeats(4, 0, 2));
+        reservationManager.configureSplitBookings(true);
+        assertEquals(0b101L, reservationManager.bookSeats(4, 0, 2));
+    }
+
+    @Test
+    void execute_blockedSeats_neverSold() throws Exception {
+        for (ReservationStrategy strategy : ReservationStrategy.values()) {
+            FlightSeats flightSeats = new FlightSeats(2, 4);
+            SeatAttributes.Builder attributes = flightSeats.getAttributes().toBuilder().setBlocked(0, 1, true);
+            for (int col = 0; col < 4; col++) {
+                attributes.setBlocked(1, col, true); // The whole of row 1
+            }
+            flightSeats.setAttributes(attributes.build());
+            AbstractReservationManager manager = strategy.create(flightSeats);
+            try {
+                assertTrue(manager.execute(command(Action.BOOK, 0, 1, 1)), strategy.name());
+                assertEquals(0b0001L, flightSeats.getRowMask(0), strategy.name() + ": nearest unblocked seat");
+                assertFalse(manager.execute(command(Action.BOOK, 1, 0, 1)), strategy.name());
+                assertFalse(manager.execute(command(Action.HOLD, 1, 0, 2)), strategy.name());
+                assertFalse(manager.bookGroup(List.of(command(Action.BOOK, 0, 2, 1), command(Action.BOOK, 1, 2, 1))), strategy.name());
+                assertFalse(manager.reserveSeats(0, 1, 2), strategy.name());
+
+                assertEquals(-1, manager.placeSeats(3), strategy.name() + ": only 2 adjacent seats are for sale");
+                assertEquals(0, manager.placeSeats(2), strategy.name());
+                assertEquals(0b1101L, flightSeats.getRowMask(0), strategy.name());
+                assertEquals(0L, flightSeats.getRowMask(1), strategy.name());
+            } finally {
+                if (manager instanceof AutoCloseable closeable) {
+                    closeable.close();
+                }
+            }
+        }
+    }
+
+    private static Command command(Action action, int row, int col, int seats) {
+        return new Command.Builder()
+                .setAction(action)
+                .setRowNumber(row)
+                .setColumnNumber(col)
+                .setConsecutiveSeats(seats)
+                .build();
+    }
+}
@@ -0,0 +1,120 @@
+package com.flight.reservation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationManagerWithCASTest {
+
+    @Test
+    void reserveSeats_success() {
+        ReservationManagerWithCAS reservationManager = new ReservationManagerWithCAS(new FlightSeats());
+
+        boolean result = reservationManager.reserveSeats(1, 2, 4);
+
+        assertTrue(result, "Seats should be reserved successfully.");
+    }
+
+    @Test
+    void reserveSeats_alreadyReserved_fail() {
+        ReservationManagerWithCAS reservationManager = new ReservationManagerWithCAS(new FlightSeats());
+        reservationManager.reserveSeats(1, 2, 4);
+
+        boolean result = reservationManager.reserveSeats(1, 2, 4);
+
+        assertFalse(result, "Seats should not be reserved if already booked.");
+    }
+
+    @Test
+    void cancelSeats_success() {
+        ReservationManagerWithCAS reservationManager = new ReservationManagerWithCAS(new FlightSeats());
+        reservationManager.reserveSeats(2, 3, 5);
+
+        boolean result = reservationManager.cancelSeats(2, 3, 5);
+
+        assertTrue(result, "Seats should be canceled successfully.");
+    }
+
+    @Test
+    void cancelSeats_notReserved_fail() {
+        ReservationManagerWithCAS reservationManager = new ReservationManagerWithCAS(new FlightSeats());
+
+        boolean result = reservationManager.cancelSeats(3, 1, 3);
+
+        assertFalse(result, "Seats should not be canceled if they were never reserved.");
+    }
+
+    @Test
+    void executeBookCommand_sameSeatsAsReservationManager() {
+        FlightSeats expectedSeats = new FlightSeats();
+        FlightSeats actualSeats = new FlightSeats();
+        ReservationManager expected = new ReservationManager(expectedSeats);
+        ReservationManagerWithCAS actual = new ReservationManagerWithCAS(actualSeats);
+        Command bookCommand = new Command.Builder()
+                .setAction(Action.BOOK)
+                .setRowNumber(4)
+                .setColumnNumber(2)
+                .setConsecutiveSeats(3)
+                .build();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(expected.execute(bookCommand), actual.execute(bookCommand));
+            assertEquals(expectedSeats.getRowMask(4), actualSeats.getRowMask(4));
+        }
+    }
+
+    @Test
+    void executeCancelCommand_unreservedSeats_fail() {
+        ReservationManagerWithCAS reservationManager = new ReservationManagerWithCAS(new FlightSeats());
+        Command cancelCommand = new Command.Builder()
+                .setAction(Action.CANCEL)
+                .setRowNumber(7)
+                .setColumnNumber(3)
+                .setConsecutiveSeats(2)
+                .build();
+
+        boolean result = reservationManager.execute(cancelCommand);
+
+        assertFalse(result, "Cancellation should fail when trying to cancel seats that were never reserved.");
+    }
+
+    @Test
+    void reserveSeats_concurrentThreads_eachSeatBookedOnce() throws Exception {
+        FlightSeats flightSeats = new FlightSeats();
+        ReservationManagerWithCAS reservationManager = new ReservationManagerWithCAS(flightSeats);
+        int threads = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        // Every thread tries to book every seat of the plane, one seat at a time
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                int booked = 0;
+                for (int row = 0; row < flightSeats.getRowLength(); row++) {
+                    for (int col = 0; col < flightSeats.getColLength(); col++) {
+                        if (reservationManager.reserveSeats(row, col, col)) booked++;
+                    }
+                }
+                return booked;
+            }));
+        }
+        start.countDown();
+        int totalBooked = 0;
+        for (Future<Integer> result : results) {
+            totalBooked += result.get();
+        }
+        executor.shutdown();
+
+        assertEquals(flightSeats.getRowLength() * flightSeats.getColLength(), totalBooked,
+                "Every seat should be booked exactly once.");
+    }
+}
@@ -0,0 +1,226 @@
+package com.flight.reservation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationManagerWithRingBufferTest {
+
+    @Test
+    void executeBookCommand_sameSeatsAsReservationManager() {
+        FlightSeats expectedSeats = new FlightSeats();
+        FlightSeats flightSeats = new FlightSeats();
+        Command command = command(Action.BOOK, 4, 2, 3);
+        try (ReservationManagerWithRingBuffer reservationManager = new ReservationManagerWithRingBuffer(flightSeats)) {
+
+            assertEquals(new ReservationManager(expectedSeats).execute(command), reservationManager.execute(command));
+            assertEquals(expectedSeats.getRowMask(4), flightSeats.getRowMask(4));
+        }
+    }
+
+    @Test
+    void executeAsync_completesFuturesInPublicationOrder() {
+        try (ReservationManagerWithRingBuffer reservationManager = new ReservationManagerWithRingBuffer(new FlightSeats(), 4)) {
+            List<CompletableFuture<ReservationResult>> futures = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                futures.add(reservationManager.executeAsync(command(i % 2 == 0 ? Action.BOOK : Action.CANCEL, 3, 0, 8)));
+            }
+
+            for (CompletableFuture<ReservationResult> future : futures) {
+                assertTrue(future.join().isSuccess());
+            }
+        }
+    }
+
+    @Test
+    void executeAsync_invalidSeats_invalidSeatsResult() {
+        try (ReservationManagerWithRingBuffer reservationManager = new ReservationManagerWithRingBuffer(new FlightSeats())) {
+
+            CompletableFuture<ReservationResult> future = reservationManager.executeAsync(command(Action.CANCEL, 1, 7, 2));
+
+            assertEquals(FailureReason.INVALID_SEATS, future.join().getFailureReason());
+            assertThrows(IllegalArgumentException.class, () -> reservationManager.execute(command(Action.BOOK, 25, 0, 1)));
+        }
+    }
+
+    @Test
+    void tryExecute_zeroTimeout_skippedByConsumer() {
+        FlightSeats flightSeats = new FlightSeats();
+        try (ReservationManagerWithRingBuffer reservationManager = new ReservationManagerWithRingBuffer(flightSeats)) {
+
+            ReservationResult result = reservationManager.tryExecute(command(Action.BOOK, 2, 0, 1), 0, TimeUnit.NANOSECONDS);
+
+            assertEquals(FailureReason.TIMEOUT, result.getFailureReason());
+            assertEquals(0L, flightSeats.getRowMask(2));
+        }
+    }
+
+    @Test
+    void executeAll_resultsInInputOrder() {
+        try (ReservationManagerWithRingBuffer reservationManager = new ReservationManagerWithRingBuffer(new FlightSeats())) {
+
+            boolean[] results = reservationManager.executeAll(List.of(
+                    command(Action.CANCEL, 3, 0, 1),
+                    command(Action.BOOK, 5, 0, 8),
+                    command(Action.BOOK, 5, 0, 1),
+                    command(Action.BOOK, 30, 0, 1)));
+
+            assertArrayEquals(new boolean[]{false, true, false, false}, results);
+        }
+    }
+
+    @Test
+    void execute_concurrentThreads_eachSeatBookedOnce() throws Exception {
+        FlightSeats flightSeats = new FlightSeats();
+        int threads = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (ReservationManagerWithRingBuffer reservationManager = new ReservationManagerWithRingBuffer(flightSeats, 16)) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> results = new ArrayList<>();
+
+            // Every thread books one seat per position of the plane; a row fails once it's full
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int booked = 0;
+                    for (int row = 0; row < flightSeats.getRowLength(); row++) {
+                        for (int col = 0; col < flightSeats.getColLength(); col++) {
+                            if (reservationManager.execute(command(Action.BOOK, row, col, 1))) booked++;
+                        }
+                    }
+                    return booked;
+                }));
+            }
+            start.countDown();
+            int totalBooked = 0;
+            for (Future<Integer> result : results) {
+                totalBooked += result.get();
+            }
+
+            assertEquals(flightSeats.getRowLength() * flightSeats.getColLength(), totalBooked,
+                    "Every seat should be booked exactly once.");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void close_commandsInRing_failInsteadOfHanging() throws Exception {
+        FlightSeats flightSeats = new FlightSeats();
+        ReservationManagerWithRingBuffer reservationManager = new ReservationManagerWithRingBuffer(flightSeats, 4);
+        CountDownLatch consumerBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // Keeps the consumer busy so the commands below stay in the ring
+            Future<?> blocker = executor.submit(() -> reservationManager.withRowLock(0, row -> {
+                consumerBusy.countDown();
+                awaitQuietly(release);
+                return true;
+            }));
+            consumerBusy.await();
+            List<CompletableFuture<ReservationResult>> futures = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                futures.add(reservationManager.executeAsync(command(Action.BOOK, 1, i, 1)));
+            }
+
+            reservationManager.close();
+            release.countDown();
+
+            blocker.get(5, TimeUnit.SECONDS);
+            for (CompletableFuture<ReservationResult> future : futures) {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(IllegalStateException.class, e.getCause());
+            }
+            assertEquals(0L, flightSeats.getRowMask(1), "Commands left in the ring aren't executed");
+            assertThrows(IllegalStateException.class, () -> reservationManager.execute(command(Action.BOOK, 1, 0, 1)));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void close_racingCommands_allComplete() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 20; round++) {
+                ReservationManagerWithRingBuffer reservationManager = new ReservationManagerWithRingBuffer(new FlightSeats(), 4);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> results = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    int row = t;
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        for (int i = 0; ; i++) {
+                            try {
+                                reservationManager.execute(command(i % 2 == 0 ? Action.BOOK : Action.CANCEL, row, 0, 1));
+                            } catch (IllegalStateException e) {
+                                return null; // Closed
+                            }
+                        }
+                    }));
+                }
+                start.countDown();
+                Thread.sleep(1);
+                reservationManager.close();
+
+                for (Future<?> result : results) {
+                    result.get(5, TimeUnit.SECONDS); // Every caller returns once the manager is closed
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void executeAsync_commandThrows_failsOnlyItsFuture() {
+        FlightSeats flightSeats = new FlightSeats();
+        FlightSeats.RowListener failing = (row, changedSeats, rowMask, version) -> {
+            if (row == 2) {
+                throw new IllegalStateException("listener failed");
+            }
+        };
+        flightSeats.addRowListener(failing);
+        try (ReservationManagerWithRingBuffer reservationManager = new ReservationManagerWithRingBuffer(flightSeats)) {
+
+            CompletableFuture<ReservationResult> failed = reservationManager.executeAsync(command(Action.BOOK, 2, 0, 2));
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+            assertTrue(reservationManager.execute(command(Action.BOOK, 3, 0, 2))); // The consumer still runs
+            assertThrows(IllegalStateException.class, () -> reservationManager.withRowLock(2, mask -> {
+                throw new IllegalStateException("update failed");
+            }));
+            assertTrue(reservationManager.execute(command(Action.BOOK, 4, 0, 2)));
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Command command(Action action, int row, int col, int seats) {
+        return new Command.Builder()
+                .setAction(action)
+                .setRowNumber(row)
+                .setColumnNumber(col)
+                .setConsecutiveSeats(seats)
+                .build();
+    }
+}
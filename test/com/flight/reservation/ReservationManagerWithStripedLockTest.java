@@ -0,0 +1,163 @@
+package com.flight.reservation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationManagerWithStripedLockTest {
+
+    @Test
+    void reserveSeats_alreadyReserved_fail() {
+        ReservationManagerWithStripedLock reservationManager = new ReservationManagerWithStripedLock(new FlightSeats());
+        assertTrue(reservationManager.reserveSeats(1, 2, 4), "Seats should be reserved successfully.");
+
+        boolean result = reservationManager.reserveSeats(1, 2, 4);
+
+        assertFalse(result, "Seats should not be reserved if already booked.");
+    }
+
+    @Test
+    void cancelSeats_success() {
+        ReservationManagerWithStripedLock reservationManager = new ReservationManagerWithStripedLock(new FlightSeats());
+        reservationManager.reserveSeats(2, 3, 5);
+
+        boolean result = reservationManager.cancelSeats(2, 3, 5);
+
+        assertTrue(result, "Seats should be canceled successfully.");
+        assertFalse(reservationManager.cancelSeats(2, 3, 5), "Seats should not be canceled twice.");
+    }
+
+    @Test
+    void areSeatsAvailable_reflectsReservations() {
+        ReservationManagerWithStripedLock reservationManager = new ReservationManagerWithStripedLock(new FlightSeats(), 3);
+        reservationManager.reserveSeats(5, 2, 3);
+
+        assertFalse(reservationManager.areSeatsAvailable(5, 3, 4));
+        assertTrue(reservationManager.areSeatsAvailable(5, 4, 7));
+        assertTrue(reservationManager.areSeatsAvailable(4, 2, 3));
+        assertThrows(IllegalArgumentException.class, () -> reservationManager.areSeatsAvailable(5, 6, 8));
+    }
+
+    @Test
+    void commitRow_staleMask_failsAndKeepsRow() {
+        FlightSeats flightSeats = new FlightSeats();
+        ReservationManagerWithStripedLock reservationManager = new ReservationManagerWithStripedLock(flightSeats);
+        reservationManager.reserveSeats(3, 0, 0);
+
+        assertFalse(reservationManager.commitRow(3, 0L, 0b10L), "The row no longer holds the mask read");
+        assertEquals(0b1L, flightSeats.getRowMask(3));
+        assertTrue(reservationManager.commitRow(3, 0b1L, 0b11L));
+        assertEquals(0b11L, flightSeats.getRowMask(3));
+    }
+
+    @Test
+    void tryExecute_stripeLockedPastTimeout_timesOut() throws Exception {
+        FlightSeats flightSeats = new FlightSeats();
+        ReservationManagerWithStripedLock reservationManager = new ReservationManagerWithStripedLock(flightSeats, 4);
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        flightSeats.addRowListener((row, changedSeats, rowMask, version) -> {
+            if (row == 0) {
+                committing.countDown();
+                try {
+                    release.await(); // Keeps the stripe of rows 0-3 locked
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<ReservationResult> holder = executor.submit(
+                    () -> reservationManager.tryExecute(command(Action.BOOK, 0, 0, 1), 1, TimeUnit.SECONDS));
+            committing.await();
+
+            assertEquals(FailureReason.TIMEOUT,
+                    reservationManager.tryExecute(command(Action.BOOK, 2, 0, 1), 10, TimeUnit.MILLISECONDS).getFailureReason());
+            assertTrue(reservationManager.tryExecute(command(Action.BOOK, 4, 0, 1), 10, TimeUnit.MILLISECONDS).isSuccess(),
+                    "Row 4 is in the next stripe");
+            release.countDown();
+            assertTrue(holder.get().isSuccess());
+            assertTrue(reservationManager.tryExecute(command(Action.BOOK, 2, 0, 1), 10, TimeUnit.MILLISECONDS).isSuccess());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void constructor_invalidStripeSize_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> new ReservationManagerWithStripedLock(new FlightSeats(), 0));
+    }
+
+    @Test
+    void executeBookCommand_sameSeatsAsReservationManager() {
+        FlightSeats expectedSeats = new FlightSeats();
+        FlightSeats actualSeats = new FlightSeats();
+        ReservationManager expected = new ReservationManager(expectedSeats);
+        ReservationManagerWithStripedLock actual = new ReservationManagerWithStripedLock(actualSeats);
+        Command bookCommand = new Command.Builder()
+                .setAction(Action.BOOK)
+                .setRowNumber(4)
+                .setColumnNumber(2)
+                .setConsecutiveSeats(3)
+                .build();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(expected.execute(bookCommand), actual.execute(bookCommand));
+            assertEquals(expectedSeats.getRowMask(4), actualSeats.getRowMask(4));
+        }
+    }
+
+    @Test
+    void reserveSeats_concurrentThreads_eachSeatBookedOnce() throws Exception {
+        for (int rowsPerStripe : new int[]{1, 4, 20}) {
+            FlightSeats flightSeats = new FlightSeats();
+            ReservationManagerWithStripedLock reservationManager = new ReservationManagerWithStripedLock(flightSeats, rowsPerStripe);
+            int threads = 16;
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> results = new ArrayList<>();
+
+            // Every thread tries to book every seat of the plane, one seat at a time
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int booked = 0;
+                    for (int row = 0; row < flightSeats.getRowLength(); row++) {
+                        for (int col = 0; col < flightSeats.getColLength(); col++) {
+                            if (reservationManager.reserveSeats(row, col, col)) booked++;
+                        }
+                    }
+                    return booked;
+                }));
+            }
+            start.countDown();
+            int totalBooked = 0;
+            for (Future<Integer> result : results) {
+                totalBooked += result.get();
+            }
+            executor.shutdown();
+
+            assertEquals(flightSeats.getRowLength() * flightSeats.getColLength(), totalBooked,
+                    "Every seat should be booked exactly once with " + rowsPerStripe + " rows per stripe.");
+        }
+    }
+
+    private static Command command(Action action, int row, int col, int seats) {
+        return new Command.Builder()
+                .setAction(action)
+                .setRowNumber(row)
+                .setColumnNumber(col)
+                .setConsecutiveSeats(seats)
+                .build();
+    }
+}
@@ -0,0 +1,64 @@
+package com.flight.reservation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationMetricsTest {
+
+    @Test
+    void execute_recordsOutcomesAndFailureReasons() {
+        ReservationManager reservationManager = new ReservationManager(new FlightSeats());
+        ReservationMetrics.Snapshot before = reservationManager.getMetrics().snapshot();
+
+        reservationManager.execute(command(Action.BOOK, 1, 0, 8));
+        reservationManager.execute(command(Action.BOOK, 1, 0, 1));   // row 1 is full
+        reservationManager.execute(command(Action.CANCEL, 2, 0, 1)); // nothing to cancel
+        assertThrows(IllegalArgumentException.class, () -> reservationManager.execute(command(Action.CANCEL, 1, 7, 2)));
+
+        ReservationMetrics.Snapshot after = reservationManager.getMetrics().snapshot();
+        assertEquals(1, after.getSuccessCount(Action.BOOK) - before.getSuccessCount(Action.BOOK));
+        assertEquals(1, after.getFailureCount(Action.BOOK) - before.getFailureCount(Action.BOOK));
+        assertEquals(2, after.getFailureCount(Action.CANCEL) - before.getFailureCount(Action.CANCEL));
+        assertEquals(1, after.getFailureCount(FailureReason.SEATS_TAKEN) - before.getFailureCount(FailureReason.SEATS_TAKEN));
+        assertEquals(1, after.getFailureCount(FailureReason.SEATS_NOT_RESERVED) - before.getFailureCount(FailureReason.SEATS_NOT_RESERVED));
+        assertEquals(1, after.getFailureCount(FailureReason.INVALID_SEATS) - before.getFailureCount(FailureReason.INVALID_SEATS));
+        assertEquals(2, after.getLatency(Action.BOOK).getCount() - before.getLatency(Action.BOOK).getCount());
+        assertEquals(4, after.getLockWait().getCount() - before.getLockWait().getCount());
+    }
+
+    @Test
+    void forManager_onePerManagerClass() {
+        ReservationMetrics metrics = new ReservationManagerWithCAS(new FlightSeats()).getMetrics();
+
+        assertSame(metrics, new ReservationManagerWithCAS(new FlightSeats()).getMetrics());
+        assertNotSame(metrics, new ReservationManager(new FlightSeats()).getMetrics());
+        assertEquals("ReservationManagerWithCAS", metrics.getManagerName());
+        assertTrue(ReservationMetrics.all().contains(metrics));
+    }
+
+    @Test
+    void latencyHistogram_percentilesAreBucketUpperBounds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(100); // bucket [64, 128)
+        }
+        histogram.record(5_000); // bucket [4096, 8192)
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.getCount());
+        assertEquals(127, snapshot.getPercentile(50));
+        assertEquals(127, snapshot.getPercentile(99));
+        assertEquals(8191, snapshot.getPercentile(100));
+        assertEquals(0, new LatencyHistogram().snapshot().getPercentile(99));
+    }
+
+    private static Command command(Action action, int row, int col, int seats) {
+        return new Command.Builder()
+                .setAction(action)
+                .setRowNumber(row)
+                .setColumnNumber(col)
+                .setConsecutiveSeats(seats)
+                .build();
+    }
+}
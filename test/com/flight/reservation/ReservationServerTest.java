@@ -0,0 +1,147 @@
+package com.flight.reservation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationServerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void handle_validCommand_journalsRow() throws IOException {
+        FlightInventory inventory = createInventory();
+        try (CommandJournal journal = CommandJournal.open(tempDir.resolve("seats.journal").toString());
+             ReservationServer server = new ReservationServer(inventory, journal, 0)) {
+
+            assertEquals("SUCCESS", server.handle("BOOK B3 2"));
+            assertEquals(0b11000L, inventory.getFlightSeats(Command.DEFAULT_FLIGHT_ID).getRowMask(1));
+            assertEquals(1, journal.size());
+        }
+    }
+
+    @Test
+    void handle_commandsOnDifferentFlights_independent() throws IOException {
+        FlightInventory inventory = createInventory();
+        try (CommandJournal journal = CommandJournal.open(tempDir.resolve("seats.journal").toString());
+             ReservationServer server = new ReservationServer(inventory, journal, 0)) {
+
+            assertEquals("SUCCESS", server.handle("BOOK UA100 A1 1"));
+            assertEquals("SUCCESS", server.handle("BOOK LH400 A1 1"));
+            assertEquals("FAIL", server.handle("CANCEL LH400 A2 1"));
+            assertEquals(0L, inventory.getFlightSeats(Command.DEFAULT_FLIGHT_ID).getRowMask(0));
+            assertEquals(2, journal.size());
+        }
+    }
+
+    @Test
+    void handle_replayedRequestId_getsOriginalAnswer() throws IOException {
+        FlightInventory inventory = createInventory();
+        try (CommandJournal journal = CommandJournal.open(tempDir.resolve("seats.journal").toString());
+             ReservationServer server = new ReservationServer(inventory, journal, 0)) {
+
+            assertEquals("SUCCESS", server.handle("PLACE 8 REQ=7"));
+            assertEquals("SUCCESS", server.handle("PLACE 8 REQ=7"));
+            assertEquals(0xFFL, inventory.getFlightSeats(Command.DEFAULT_FLIGHT_ID).getRowMask(0));
+            assertEquals(0L, inventory.getFlightSeats(Command.DEFAULT_FLIGHT_ID).getRowMask(1), "Placed once");
+
+            assertEquals("FAIL", server.handle("CANCEL B1 1 REQ=8"));
+            assertEquals("SUCCESS", server.handle("BOOK B1 1"));
+            assertEquals("FAIL", server.handle("CANCEL B1 1 REQ=8"));
+            assertEquals(0b10L, inventory.getFlightSeats(Command.DEFAULT_FLIGHT_ID).getRowMask(1));
+        }
+    }
+
+    @Test
+    void handle_invalidCommand_fail() throws IOException {
+        FlightInventory inventory = createInventory();
+        try (CommandJournal journal = CommandJournal.open(tempDir.resolve("seats.journal").toString());
+             ReservationServer server = new ReservationServer(inventory, journal, 0)) {
+
+            assertEquals("FAIL", server.handle("RESERVE B3 2"));
+            assertEquals("FAIL", server.handle(""));
+        }
+    }
+
+    @Test
+    void handle_undoAndRestore_journalsRestoredRows() throws IOException {
+        FlightInventory inventory = createInventory(16);
+        String journalFile = tempDir.resolve("seats.journal").toString();
+        try (CommandJournal journal = CommandJournal.open(journalFile);
+             ReservationServer server = new ReservationServer(inventory, journal, 0)) {
+            String start = server.handle("VERSION UA100");
+
+            assertEquals("SUCCESS", server.handle("BOOK UA100 A1 2"));
+            assertEquals("SUCCESS", server.handle("BOOK UA100 C1 1"));
+            assertEquals("SUCCESS", server.handle("UNDO UA100 1"));
+            assertEquals(0L, inventory.getFlightSeats("UA100").getRowMask(2));
+            assertEquals(3, journal.size());
+
+            assertEquals("SUCCESS", server.handle("RESTORE UA100 " + start));
+            assertEquals(0L, inventory.getFlightSeats("UA100").getRowMask(0));
+            assertEquals(5, journal.size(), "Rows 0 and 2 changed since the version");
+            assertEquals("FAIL", server.handle("UNDO UA100 5"), "Not enough changes left");
+            assertEquals("FAIL", server.handle("RESTORE UA100 x"));
+        }
+
+        FlightInventory replayed = createInventory(0);
+        try (CommandJournal journal = CommandJournal.open(journalFile)) {
+            journal.replay(replayed);
+        }
+        assertEquals(0L, replayed.getFlightSeats("UA100").getRowMask(0), "The restore was journaled");
+        assertEquals(0L, replayed.getFlightSeats("UA100").getRowMask(2));
+    }
+
+    @Test
+    void handle_undoWithoutHistory_fail() throws IOException {
+        FlightInventory inventory = createInventory();
+        try (CommandJournal journal = CommandJournal.open(tempDir.resolve("seats.journal").toString());
+             ReservationServer server = new ReservationServer(inventory, journal, 0)) {
+
+            assertEquals("SUCCESS", server.handle("BOOK A1 1"));
+            assertEquals("FAIL", server.handle("UNDO 1"));
+            assertEquals("1", server.handle("VERSION"));
+            assertEquals("FAIL", server.handle("VERSIONS"));
+        }
+    }
+
+    @Test
+    void clientConnection_answersEachLine() throws IOException {
+        FlightInventory inventory = createInventory();
+        try (CommandJournal journal = CommandJournal.open(tempDir.resolve("seats.journal").toString());
+             ReservationServer server = new ReservationServer(inventory, journal, 0)) {
+            server.start();
+
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+                 PrintWriter writer = new PrintWriter(socket.getOutputStream(), true);
+                 BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+                writer.println("CANCEL C1 1");
+                assertEquals("FAIL", reader.readLine());
+                writer.println("BOOK C1 1");
+                assertEquals("SUCCESS", reader.readLine());
+                writer.println("CANCEL C1 1");
+                assertEquals("SUCCESS", reader.readLine());
+            }
+        }
+    }
+
+    private FlightInventory createInventory() {
+        return createInventory(0);
+    }
+
+    private FlightInventory createInventory(int historyCapacity) {
+        FlightStore flightStore = new FlightStore(tempDir.resolve("seats.bin").toString(),
+                tempDir.resolve("seats.txt").toString(), tempDir.resolve("flights"));
+        return new FlightInventory(flightStore, ReservationStrategy.SYNCHRONIZED, historyCapacity);
+    }
+}
@@ -0,0 +1,99 @@
+package com.flight.reservation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeatAttributesTest {
+    private final static CabinLayout LAYOUT = new CabinLayout(10, 6);
+
+    @Test
+    void defaults_economyWithWindowsAtBothEnds() {
+        SeatAttributes attributes = SeatAttributes.defaults(LAYOUT);
+
+        assertEquals(CabinClass.ECONOMY, attributes.getCabinClass(3, 2));
+        assertEquals(0b100001L, attributes.getFeatureMask(3, SeatFeature.WINDOW));
+        assertEquals(0b011110L, attributes.getFeatureMask(3, SeatFeature.MIDDLE));
+        assertEquals(0L, attributes.getFeatureMask(3, SeatFeature.EXIT_ROW));
+        assertEquals(0, attributes.getPriceTier(3, 2));
+    }
+
+    @Test
+    void defaults_sharedPerLayout() {
+        assertSame(SeatAttributes.defaults(LAYOUT), SeatAttributes.defaults(new CabinLayout(10, 6)));
+        assertSame(new FlightSeats().getAttributes(), new FlightSeats().getAttributes());
+        assertNotSame(SeatAttributes.defaults(LAYOUT), SeatAttributes.defaults(new CabinLayout(10, 7)));
+    }
+
+    @Test
+    void getEligibleMask_combinesClassFeaturesTierAndBlocked() {
+        SeatAttributes attributes = cabin();
+
+        assertEquals(0L, attributes.getEligibleMask(0, economy().build()), "Row 0 is business");
+        assertEquals(0b001100L, attributes.getEligibleMask(3, economy().require(SeatFeature.AISLE).build()));
+        assertEquals(0b011110L, attributes.getEligibleMask(5, economy().exclude(SeatFeature.WINDOW).build()));
+        assertEquals(0b111011L, attributes.getEligibleMask(6, SeatFilter.ANY), "Seat 2 of row 6 is blocked");
+        assertEquals(0b111111L, attributes.getEligibleMask(5, new SeatFilter.Builder().require(SeatFeature.EXIT_ROW).build()));
+        assertEquals(0L, attributes.getEligibleMask(4, new SeatFilter.Builder().require(SeatFeature.EXIT_ROW).build()));
+        assertEquals(0L, attributes.getEligibleMask(3, new SeatFilter.Builder().setMaxPriceTier(2).build()), "Rows 2-4 are tier 3");
+    }
+
+    @Test
+    void toBuilder_keepsAttributes() {
+        SeatAttributes attributes = cabin().toBuilder().setBlocked(6, 2, false).build();
+
+        assertFalse(attributes.isBlocked(6, 2));
+        assertEquals(CabinClass.BUSINESS, attributes.getCabinClass(1, 4));
+        assertEquals(3, attributes.getPriceTier(4, 0));
+        assertEquals(0b001100L, attributes.getFeatureMask(8, SeatFeature.AISLE));
+    }
+
+    @Test
+    void builder_invalidValues_throwException() {
+        SeatAttributes.Builder builder = new SeatAttributes.Builder(LAYOUT);
+
+        assertThrows(IllegalArgumentException.class, () -> builder.setCabinClass(5, 10, CabinClass.FIRST));
+        assertThrows(IllegalArgumentException.class, () -> builder.setAisleColumns(6));
+        assertThrows(IllegalArgumentException.class, () -> builder.setPriceTier(0, 0, 0, 0, SeatAttributes.MAX_PRICE_TIER + 1));
+        assertThrows(IllegalArgumentException.class, () -> new SeatFilter.Builder().setMaxPriceTier(-1));
+    }
+
+    @Test
+    void findCheapestBlock_aisleAndMiddleSeatsInEconomy() {
+        FlightSeats flightSeats = new FlightSeats(LAYOUT);
+        flightSeats.setAttributes(cabin());
+        SeatFilter filter = economy().exclude(SeatFeature.WINDOW).build();
+
+        assertEquals(7 * 6 + 1, flightSeats.findCheapestBlock(filter, 2), "Row 7, seats 1-2 are tier 0");
+        flightSeats.getSeat(7, 1).reserve();
+        assertEquals(7 * 6 + 2, flightSeats.findCheapestBlock(filter, 2), "Row 7, seats 2-3 cost 0 + 1");
+        assertEquals(-1, flightSeats.findCheapestBlock(filter, 5), "Window seats are excluded");
+        assertEquals(0b011100L, flightSeats.getAvailableMask(7, filter));
+        assertEquals(8 * 4 - 1 - 1, flightSeats.getAvailableCount(filter), "One blocked and one reserved seat");
+    }
+
+    @Test
+    void setAttributes_otherLayout_throwsException() {
+        FlightSeats flightSeats = new FlightSeats(LAYOUT);
+
+        assertThrows(IllegalArgumentException.class, () -> flightSeats.setAttributes(SeatAttributes.defaults(CabinLayout.DEFAULT)));
+    }
+
+    // Business rows 0-1, economy rows 2-9; aisles at 2 and 3; exit row 5; seat 2 of row 6 blocked;
+    // tier 3 in rows 2-4, tier 1 in rows 5-9 but tier 0 for seats 1-2 of row 7
+    private static SeatAttributes cabin() {
+        return new SeatAttributes.Builder(LAYOUT)
+                .setCabinClass(0, 1, CabinClass.BUSINESS)
+                .setAisleColumns(2, 3)
+                .setExitRow(5)
+                .setBlocked(6, 2, true)
+                .setPriceTier(2, 4, 0, 5, 3)
+                .setPriceTier(5, 9, 0, 5, 1)
+                .setPriceTier(7, 7, 1, 2, 0)
+                .build();
+    }
+
+    private static SeatFilter.Builder economy() {
+        return new SeatFilter.Builder().setCabinClass(CabinClass.ECONOMY);
+    }
+}
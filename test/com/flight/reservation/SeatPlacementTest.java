@@ -0,0 +1,100 @@
+package com.flight.reservation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeatPlacementTest {
+
+    @Test
+    void nearestBlock_requestedSeatsFree_takesThem() {
+        assertEquals(0b0111000L, SeatPlacement.nearestBlock(0xFFL, 3, 3));
+    }
+
+    @Test
+    void nearestBlock_takesNearestBlockLowerOnTie() {
+        long free = 0b11100000_00000111L; // Blocks at 0-2 and 13-15
+
+        assertEquals(0b111L, SeatPlacement.nearestBlock(free, 5, 3));
+        assertEquals(0b11100000_00000000L, SeatPlacement.nearestBlock(free, 9, 3));
+        assertEquals(0b11100000_00000000L, SeatPlacement.nearestBlock(free, 7, 3), "Distance 7 to 0, 6 to 13");
+        assertEquals(0b111L, SeatPlacement.nearestBlock(0b111_000_111L, 3, 3), "Distance 3 both ways");
+    }
+
+    @Test
+    void place_noBlock_splitsOverNarrowestRange() {
+        long free = 0b1_0110_0001_1001L; // Free: 0, 3, 4, 9, 10, 12
+
+        assertEquals(0L, SeatPlacement.place(free, 0, 3, false));
+        assertEquals(0b1_0110_0000_0000L, SeatPlacement.place(free, 0, 3, true), "9-12 spans 4 columns, 0-4 spans 5");
+        assertEquals(0b11000L, SeatPlacement.place(free, 0, 2, true), "A block is preferred to a split");
+        assertEquals(0L, SeatPlacement.place(free, 0, 7, true), "Only 6 free seats");
+    }
+
+    @Test
+    void place_fullRow_fails() {
+        assertEquals(0L, SeatPlacement.place(0L, 4, 1, true));
+        assertEquals(-1L, SeatPlacement.place(-1L, 0, Long.SIZE, false));
+    }
+
+    @Test
+    void place_randomRows_matchesExhaustiveSearch() {
+        SplittableRandom random = new SplittableRandom(25);
+        for (int i = 0; i < 20_000; i++) {
+            int cols = 1 + random.nextInt(Long.SIZE);
+            long full = cols == Long.SIZE ? -1L : (1L << cols) - 1;
+            long free = random.nextLong() & random.nextLong() & full; // About a quarter of the seats free
+            if (random.nextBoolean()) {
+                free = ~free & full;
+            }
+            int target = random.nextInt(cols);
+            int seats = 1 + random.nextInt(Math.min(cols, 8));
+
+            long expected = exhaustiveBlock(free, target, seats, cols);
+            if (expected == 0) {
+                expected = exhaustiveGroup(free, target, seats, cols);
+            }
+            assertEquals(expected, SeatPlacement.place(free, target, seats, true),
+                    "free " + Long.toBinaryString(free) + ", target " + target + ", seats " + seats);
+        }
+    }
+
+    // Every block start, by distance to the target, then column
+    private static long exhaustiveBlock(long free, int target, int seats, int cols) {
+        long best = 0;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int start = 0; start + seats <= cols; start++) {
+            long block = FlightSeats.rangeMask(start, start + seats - 1);
+            if ((free & block) == block && Math.abs(start - target) < bestDistance) {
+                best = block;
+                bestDistance = Math.abs(start - target);
+            }
+        }
+        return best;
+    }
+
+    // Every range holding exactly `seats` free seats from a free first seat, by width, distance, then column
+    private static long exhaustiveGroup(long free, int target, int seats, int cols) {
+        long best = 0;
+        int bestWidth = Integer.MAX_VALUE;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int start = 0; start < cols; start++) {
+            if ((free & (1L << start)) == 0) continue;
+            for (int end = start; end < cols; end++) {
+                long group = free & FlightSeats.rangeMask(start, end);
+                if (Long.bitCount(group) != seats) continue;
+                int width = end - start;
+                int distance = Math.abs(start - target);
+                if (width < bestWidth || (width == bestWidth && distance < bestDistance)) {
+                    best = group;
+                    bestWidth = width;
+                    bestDistance = distance;
+                }
+                break;
+            }
+        }
+        return best;
+    }
+}